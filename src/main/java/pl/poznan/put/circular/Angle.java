@@ -32,9 +32,17 @@ public abstract class Angle implements Comparable<Angle> {
    */
   public static Angle betweenPoints(
       final Vector3D coordA, final Vector3D coordB, final Vector3D coordC) {
-    final Vector3D vectorAB = coordB.subtract(coordA);
-    final Vector3D vectorCB = coordB.subtract(coordC);
-    return ImmutableAngle.of(Vector3D.angle(vectorAB, vectorCB));
+    return ImmutableAngle.of(
+        GeometryKernel.betweenPoints(
+            coordA.getX(),
+            coordA.getY(),
+            coordA.getZ(),
+            coordB.getX(),
+            coordB.getY(),
+            coordB.getZ(),
+            coordC.getX(),
+            coordC.getY(),
+            coordC.getZ()));
   }
 
   /**
@@ -48,16 +56,10 @@ public abstract class Angle implements Comparable<Angle> {
    */
   public static Angle torsionAngleByAcos(
       final Vector3D a1, final Vector3D a2, final Vector3D a3, final Vector3D a4) {
-    final Vector3D d1 = a1.subtract(a2);
-    final Vector3D d2 = a2.subtract(a3);
-    final Vector3D d3 = a3.subtract(a4);
-
-    final Vector3D u1 = d1.crossProduct(d2);
-    final Vector3D u2 = d2.crossProduct(d3);
-
-    final double ctor = u1.dotProduct(u2) / FastMath.sqrt(u1.dotProduct(u1) * u2.dotProduct(u2));
-    final double torp = FastMath.acos(ctor < -1.0 ? -1.0 : Math.min(ctor, 1.0));
-    return ImmutableAngle.of(u1.dotProduct(u2.crossProduct(d2)) >= 0 ? torp : -torp);
+    return ImmutableAngle.of(
+        GeometryKernel.torsionAngleByAcos(
+            a1.getX(), a1.getY(), a1.getZ(), a2.getX(), a2.getY(), a2.getZ(), a3.getX(), a3.getY(),
+            a3.getZ(), a4.getX(), a4.getY(), a4.getZ()));
   }
 
   /**
@@ -71,10 +73,20 @@ public abstract class Angle implements Comparable<Angle> {
    */
   public static Angle torsionAngle(
       final Vector3D coordA, final Vector3D coordB, final Vector3D coordC, final Vector3D coordD) {
-    final Vector3D v1 = coordB.subtract(coordA);
-    final Vector3D v2 = coordC.subtract(coordB);
-    final Vector3D v3 = coordD.subtract(coordC);
-    return Angle.torsionAngle(v1, v2, v3);
+    return ImmutableAngle.of(
+        GeometryKernel.torsionAngle(
+            coordA.getX(),
+            coordA.getY(),
+            coordA.getZ(),
+            coordB.getX(),
+            coordB.getY(),
+            coordB.getZ(),
+            coordC.getX(),
+            coordC.getY(),
+            coordC.getZ(),
+            coordD.getX(),
+            coordD.getY(),
+            coordD.getZ()));
   }
 
   /**
@@ -0,0 +1,337 @@
+package pl.poznan.put.circular;
+
+import java.util.stream.IntStream;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.math3.exception.MathArithmeticException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathArrays;
+import org.apache.commons.math3.util.MathUtils;
+
+/**
+ * Geometric computations on raw coordinates, which do not create any objects. The operations are
+ * the same as in the methods of {@link Angle} working on {@link
+ * org.apache.commons.math3.geometry.euclidean.threed.Vector3D}, so the results are identical to
+ * {@link Angle#radians()} of these methods. All angles are in radians, in the range (-pi, pi] like
+ * values of {@link Angle}, so a planar trans geometry gives pi and never -pi.
+ */
+public final class GeometryKernel {
+  private static final int CHUNK_SIZE = 4096;
+
+  private GeometryKernel() {
+    super();
+  }
+
+  /**
+   * Calculates torsion angle given four points. Uses atan2 method (see {@link
+   * Angle#torsionAngle(org.apache.commons.math3.geometry.euclidean.threed.Vector3D,
+   * org.apache.commons.math3.geometry.euclidean.threed.Vector3D,
+   * org.apache.commons.math3.geometry.euclidean.threed.Vector3D,
+   * org.apache.commons.math3.geometry.euclidean.threed.Vector3D)}).
+   *
+   * @param ax The x coordinate of point A.
+   * @param ay The y coordinate of point A.
+   * @param az The z coordinate of point A.
+   * @param bx The x coordinate of point B.
+   * @param by The y coordinate of point B.
+   * @param bz The z coordinate of point B.
+   * @param cx The x coordinate of point C.
+   * @param cy The y coordinate of point C.
+   * @param cz The z coordinate of point C.
+   * @param dx The x coordinate of point D.
+   * @param dy The y coordinate of point D.
+   * @param dz The z coordinate of point D.
+   * @return A torsion angle (rotation around vector B-C) in radians.
+   */
+  public static double torsionAngle(
+      final double ax,
+      final double ay,
+      final double az,
+      final double bx,
+      final double by,
+      final double bz,
+      final double cx,
+      final double cy,
+      final double cz,
+      final double dx,
+      final double dy,
+      final double dz) {
+    final double v1x = bx - ax;
+    final double v1y = by - ay;
+    final double v1z = bz - az;
+    final double v2x = cx - bx;
+    final double v2y = cy - by;
+    final double v2z = cz - bz;
+    final double v3x = dx - cx;
+    final double v3y = dy - cy;
+    final double v3z = dz - cz;
+
+    final double t1x = MathArrays.linearCombination(v1y, v2z, -v1z, v2y);
+    final double t1y = MathArrays.linearCombination(v1z, v2x, -v1x, v2z);
+    final double t1z = MathArrays.linearCombination(v1x, v2y, -v1y, v2x);
+    final double t2x = MathArrays.linearCombination(v2y, v3z, -v2z, v3y);
+    final double t2y = MathArrays.linearCombination(v2z, v3x, -v2x, v3z);
+    final double t2z = MathArrays.linearCombination(v2x, v3y, -v2y, v3x);
+    final double norm = FastMath.sqrt(v2x * v2x + v2y * v2y + v2z * v2z);
+
+    return GeometryKernel.normalize(
+        FastMath.atan2(
+            MathArrays.linearCombination(norm * v1x, t2x, norm * v1y, t2y, norm * v1z, t2z),
+            MathArrays.linearCombination(t1x, t2x, t1y, t2y, t1z, t2z)));
+  }
+
+  /**
+   * Calculates torsion angle given four points stored in a flat array as consecutive (x, y, z)
+   * triples.
+   *
+   * @param coordinates The array of coordinates.
+   * @param a The offset of point A (its x coordinate).
+   * @param b The offset of point B.
+   * @param c The offset of point C.
+   * @param d The offset of point D.
+   * @return A torsion angle (rotation around vector B-C) in radians.
+   */
+  public static double torsionAngle(
+      final double[] coordinates, final int a, final int b, final int c, final int d) {
+    return GeometryKernel.torsionAngle(
+        coordinates[a],
+        coordinates[a + 1],
+        coordinates[a + 2],
+        coordinates[b],
+        coordinates[b + 1],
+        coordinates[b + 2],
+        coordinates[c],
+        coordinates[c + 1],
+        coordinates[c + 2],
+        coordinates[d],
+        coordinates[d + 1],
+        coordinates[d + 2]);
+  }
+
+  /**
+   * Calculates torsion angles of many quadruples of points given in a structure-of-arrays layout,
+   * i.e. the i-th angle is defined by points (ax[i], ay[i], az[i]), ..., (dx[i], dy[i], dz[i]).
+   * Each value is equal to the one from {@link #torsionAngle(double, double, double, double,
+   * double, double, double, double, double, double, double, double)}.
+   *
+   * @param ax The x coordinates of points A.
+   * @param ay The y coordinates of points A.
+   * @param az The z coordinates of points A.
+   * @param bx The x coordinates of points B.
+   * @param by The y coordinates of points B.
+   * @param bz The z coordinates of points B.
+   * @param cx The x coordinates of points C.
+   * @param cy The y coordinates of points C.
+   * @param cz The z coordinates of points C.
+   * @param dx The x coordinates of points D.
+   * @param dy The y coordinates of points D.
+   * @param dz The z coordinates of points D.
+   * @param parallel If true, the batch is split into chunks computed in parallel.
+   * @return An array of torsion angles in radians.
+   */
+  public static double[] torsionAngles(
+      final double[] ax,
+      final double[] ay,
+      final double[] az,
+      final double[] bx,
+      final double[] by,
+      final double[] bz,
+      final double[] cx,
+      final double[] cy,
+      final double[] cz,
+      final double[] dx,
+      final double[] dy,
+      final double[] dz,
+      final boolean parallel) {
+    final int size = ax.length;
+    for (final double[] array : new double[][] {ay, az, bx, by, bz, cx, cy, cz, dx, dy, dz}) {
+      Validate.isTrue(
+          array.length == size, "All coordinate arrays must have equal length: %d", size);
+    }
+
+    final double[] result = new double[size];
+    final int chunks = (size + GeometryKernel.CHUNK_SIZE - 1) / GeometryKernel.CHUNK_SIZE;
+    final IntStream stream = IntStream.range(0, chunks);
+    (parallel ? stream.parallel() : stream)
+        .forEach(
+            chunk -> {
+              final int end = Math.min(size, (chunk + 1) * GeometryKernel.CHUNK_SIZE);
+              for (int i = chunk * GeometryKernel.CHUNK_SIZE; i < end; i++) {
+                result[i] =
+                    GeometryKernel.torsionAngle(
+                        ax[i], ay[i], az[i], bx[i], by[i], bz[i], cx[i], cy[i], cz[i], dx[i], dy[i],
+                        dz[i]);
+              }
+            });
+    return result;
+  }
+
+  /**
+   * Calculates torsion angle given four points. Uses cos^-1 and a check for pseudovector.
+   *
+   * @param ax The x coordinate of point A.
+   * @param ay The y coordinate of point A.
+   * @param az The z coordinate of point A.
+   * @param bx The x coordinate of point B.
+   * @param by The y coordinate of point B.
+   * @param bz The z coordinate of point B.
+   * @param cx The x coordinate of point C.
+   * @param cy The y coordinate of point C.
+   * @param cz The z coordinate of point C.
+   * @param dx The x coordinate of point D.
+   * @param dy The y coordinate of point D.
+   * @param dz The z coordinate of point D.
+   * @return A torsion angle (rotation around vector B-C) in radians.
+   */
+  public static double torsionAngleByAcos(
+      final double ax,
+      final double ay,
+      final double az,
+      final double bx,
+      final double by,
+      final double bz,
+      final double cx,
+      final double cy,
+      final double cz,
+      final double dx,
+      final double dy,
+      final double dz) {
+    final double d1x = ax - bx;
+    final double d1y = ay - by;
+    final double d1z = az - bz;
+    final double d2x = bx - cx;
+    final double d2y = by - cy;
+    final double d2z = bz - cz;
+    final double d3x = cx - dx;
+    final double d3y = cy - dy;
+    final double d3z = cz - dz;
+
+    final double u1x = MathArrays.linearCombination(d1y, d2z, -d1z, d2y);
+    final double u1y = MathArrays.linearCombination(d1z, d2x, -d1x, d2z);
+    final double u1z = MathArrays.linearCombination(d1x, d2y, -d1y, d2x);
+    final double u2x = MathArrays.linearCombination(d2y, d3z, -d2z, d3y);
+    final double u2y = MathArrays.linearCombination(d2z, d3x, -d2x, d3z);
+    final double u2z = MathArrays.linearCombination(d2x, d3y, -d2y, d3x);
+
+    final double ctor =
+        MathArrays.linearCombination(u1x, u2x, u1y, u2y, u1z, u2z)
+            / FastMath.sqrt(
+                MathArrays.linearCombination(u1x, u1x, u1y, u1y, u1z, u1z)
+                    * MathArrays.linearCombination(u2x, u2x, u2y, u2y, u2z, u2z));
+    final double torp = FastMath.acos(ctor < -1.0 ? -1.0 : Math.min(ctor, 1.0));
+
+    final double wx = MathArrays.linearCombination(u2y, d2z, -u2z, d2y);
+    final double wy = MathArrays.linearCombination(u2z, d2x, -u2x, d2z);
+    final double wz = MathArrays.linearCombination(u2x, d2y, -u2y, d2x);
+    final double sign = MathArrays.linearCombination(u1x, wx, u1y, wy, u1z, wz);
+    return GeometryKernel.normalize(sign >= 0 ? torp : -torp);
+  }
+
+  /**
+   * Calculates angle ABC.
+   *
+   * @param ax The x coordinate of point A.
+   * @param ay The y coordinate of point A.
+   * @param az The z coordinate of point A.
+   * @param bx The x coordinate of point B.
+   * @param by The y coordinate of point B.
+   * @param bz The z coordinate of point B.
+   * @param cx The x coordinate of point C.
+   * @param cy The y coordinate of point C.
+   * @param cz The z coordinate of point C.
+   * @return Angle between lines AB and BC in radians.
+   * @throws MathArithmeticException If any of the vectors AB or CB has zero length.
+   */
+  public static double betweenPoints(
+      final double ax,
+      final double ay,
+      final double az,
+      final double bx,
+      final double by,
+      final double bz,
+      final double cx,
+      final double cy,
+      final double cz) {
+    final double v1x = bx - ax;
+    final double v1y = by - ay;
+    final double v1z = bz - az;
+    final double v2x = bx - cx;
+    final double v2y = by - cy;
+    final double v2z = bz - cz;
+
+    // the same as Vector3D.angle(v1, v2)
+    final double normProduct =
+        FastMath.sqrt(v1x * v1x + v1y * v1y + v1z * v1z)
+            * FastMath.sqrt(v2x * v2x + v2y * v2y + v2z * v2z);
+    if (normProduct == 0.0) {
+      throw new MathArithmeticException(LocalizedFormats.ZERO_NORM);
+    }
+
+    final double dot = MathArrays.linearCombination(v1x, v2x, v1y, v2y, v1z, v2z);
+    final double threshold = normProduct * 0.9999;
+    if ((dot < -threshold) || (dot > threshold)) {
+      final double wx = MathArrays.linearCombination(v1y, v2z, -v1z, v2y);
+      final double wy = MathArrays.linearCombination(v1z, v2x, -v1x, v2z);
+      final double wz = MathArrays.linearCombination(v1x, v2y, -v1y, v2x);
+      final double sine = FastMath.sqrt(wx * wx + wy * wy + wz * wz) / normProduct;
+      return dot >= 0.0 ? FastMath.asin(sine) : FastMath.PI - FastMath.asin(sine);
+    }
+    return FastMath.acos(dot / normProduct);
+  }
+
+  /**
+   * Calculates the distance between two points.
+   *
+   * @param ax The x coordinate of point A.
+   * @param ay The y coordinate of point A.
+   * @param az The z coordinate of point A.
+   * @param bx The x coordinate of point B.
+   * @param by The y coordinate of point B.
+   * @param bz The z coordinate of point B.
+   * @return The Euclidean distance between A and B.
+   */
+  public static double distance(
+      final double ax,
+      final double ay,
+      final double az,
+      final double bx,
+      final double by,
+      final double bz) {
+    final double dx = bx - ax;
+    final double dy = by - ay;
+    final double dz = bz - az;
+    return FastMath.sqrt(dx * dx + dy * dy + dz * dz);
+  }
+
+  /**
+   * Calculates the dot product of two vectors.
+   *
+   * @param ux The x coordinate of vector U.
+   * @param uy The y coordinate of vector U.
+   * @param uz The z coordinate of vector U.
+   * @param vx The x coordinate of vector V.
+   * @param vy The y coordinate of vector V.
+   * @param vz The z coordinate of vector V.
+   * @return The dot product U * V.
+   */
+  public static double dotProduct(
+      final double ux,
+      final double uy,
+      final double uz,
+      final double vx,
+      final double vy,
+      final double vz) {
+    return MathArrays.linearCombination(ux, vx, uy, vy, uz, vz);
+  }
+
+  /**
+   * Normalizes a value from the range of atan2 or acos to the range of {@link Angle}: (-pi, pi]. It
+   * is the same mapping of -pi to pi as done when an {@link Angle} is created.
+   *
+   * @param radians A value in radians, in range [-pi, pi].
+   * @return The same angle in range (-pi, pi].
+   */
+  public static double normalize(final double radians) {
+    return radians <= -FastMath.PI ? radians + MathUtils.TWO_PI : radians;
+  }
+}
@@ -8,8 +8,6 @@ import java.util.Collections;
 import java.util.List;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.math3.util.FastMath;
-import org.apache.commons.math3.util.MathUtils;
-import org.apache.commons.math3.util.Precision;
 import org.immutables.value.Value;
 
 /** A collection of angular observations put into bins of specified width. */
@@ -35,12 +33,14 @@ public abstract class Histogram {
    * @return Value in range [0; 1] describing relative size of the largest bin.
    */
   public final double largestBinSize() {
-    double maxFrequency = Double.NEGATIVE_INFINITY;
-    for (double d = 0.0; d < MathUtils.TWO_PI; d += binWidth()) {
-      final double frequency = (double) findBin(d).size() / data().size();
-      maxFrequency = FastMath.max(frequency, maxFrequency);
-    }
-    return maxFrequency;
+    return (double) counts().maxCount() / data().size();
+  }
+
+  /**
+   * @return A copy of the number of values in each bin, in the order of their starting points.
+   */
+  public final int[] binCounts() {
+    return counts().counts();
   }
 
   /**
@@ -50,30 +50,36 @@ public abstract class Histogram {
    * @return A collection of circular values in the found bin.
    */
   public final Collection<Angle> findBin(final double radiansStart) {
-    return bins().stream()
-        .filter(bin -> Precision.equals(bin.radiansStart(), radiansStart, 1.0e-3))
-        .findFirst()
-        .map(Bin::data)
-        .orElse(Collections.emptyList());
+    final int index = counts().findBin(radiansStart);
+    return index == -1 ? Collections.emptyList() : bins().get(index).data();
   }
 
   @Value.Lazy
-  protected Collection<Bin> bins() {
-    final Collection<Bin> bins = new ArrayList<>();
-
-    for (double radiansStart = 0.0; radiansStart < MathUtils.TWO_PI; radiansStart += binWidth()) {
-      final List<Angle> binData = new ArrayList<>();
+  protected HistogramCounts counts() {
+    final HistogramCounts counts = new HistogramCounts(binWidth());
+    data().forEach(counts::accept);
+    return counts;
+  }
 
-      for (final Angle circular : data()) {
-        final double radians = circular.radians2PI();
-        if ((radians >= radiansStart) && (radians < (radiansStart + binWidth()))) {
-          binData.add(circular);
-        }
+  // the values themselves are kept only when they are requested with findBin()
+  @Value.Lazy
+  protected List<Bin> bins() {
+    final HistogramCounts counts = counts();
+    final List<List<Angle>> binData = new ArrayList<>(counts.binCount());
+    for (int i = 0; i < counts.binCount(); i++) {
+      binData.add(new ArrayList<>(counts.count(i)));
+    }
+    for (final Angle circular : data()) {
+      final int index = counts.binIndex(circular.radians());
+      if (index != -1) {
+        binData.get(index).add(circular);
       }
-
-      bins.add(ImmutableBin.of(radiansStart, binData));
     }
 
+    final List<Bin> bins = new ArrayList<>(counts.binCount());
+    for (int i = 0; i < counts.binCount(); i++) {
+      bins.add(ImmutableBin.of(counts.binStart(i), binData.get(i)));
+    }
     return bins;
   }
 
@@ -0,0 +1,215 @@
+package pl.poznan.put.circular;
+
+import java.util.Arrays;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathUtils;
+import org.apache.commons.math3.util.Precision;
+
+/**
+ * Counts of angular observations in bins of specified width, accumulated in a single pass. Bins
+ * start at 0 and cover the range [0; 2pi) in the same way as in {@link Histogram}, so the bin of a
+ * value is found directly from its index floor(radians2PI / binWidth). Each observation may have a
+ * weight (1 by default), summed per bin next to the counts. Two accumulators of the same bin width
+ * may be combined, which makes it suitable for parallel streams:
+ *
+ * <pre>
+ * stream.collect(() -&gt; new HistogramCounts(width), HistogramCounts::accept, HistogramCounts::combine)
+ * </pre>
+ *
+ * <p>NaN values and values outside of all bins are ignored. This class is not thread-safe.
+ */
+public final class HistogramCounts {
+  private final double binWidth;
+  private final double[] binStarts;
+  private final int[] counts;
+  private final double[] weights;
+
+  /**
+   * Creates an empty accumulator.
+   *
+   * @param binWidth The width of bin in range (0, pi].
+   */
+  public HistogramCounts(final double binWidth) {
+    super();
+    Validate.isTrue(
+        binWidth > 0.0 && binWidth <= FastMath.PI, "Bin width out of range (0, pi]: %f", binWidth);
+    this.binWidth = binWidth;
+
+    // accumulated like in Histogram to have exactly the same boundaries
+    final int size = (int) FastMath.ceil(MathUtils.TWO_PI / binWidth) + 1;
+    final double[] starts = new double[size];
+    int bins = 0;
+    for (double radiansStart = 0.0; radiansStart < MathUtils.TWO_PI; radiansStart += binWidth) {
+      starts[bins++] = radiansStart;
+    }
+    binStarts = Arrays.copyOf(starts, bins);
+    counts = new int[bins];
+    weights = new double[bins];
+  }
+
+  /**
+   * Records a new value.
+   *
+   * @param radians A value in radians, in range (-pi; pi] or [0; 2pi).
+   */
+  public void accept(final double radians) {
+    accept(radians, 1.0);
+  }
+
+  /**
+   * Records a new value.
+   *
+   * @param angle An angular value.
+   */
+  public void accept(final Angle angle) {
+    accept(angle.radians(), 1.0);
+  }
+
+  /**
+   * Records a new value with a weight.
+   *
+   * @param radians A value in radians, in range (-pi; pi] or [0; 2pi).
+   * @param weight The weight of the value.
+   */
+  public void accept(final double radians, final double weight) {
+    final int index = binIndex(radians);
+    if (index != -1) {
+      counts[index]++;
+      weights[index] += weight;
+    }
+  }
+
+  /**
+   * Merges the state of another accumulator into this one.
+   *
+   * @param other Another accumulator of the same bin width.
+   */
+  public void combine(final HistogramCounts other) {
+    Validate.isTrue(
+        Double.compare(binWidth, other.binWidth) == 0,
+        "Bin widths differ: %f and %f",
+        binWidth,
+        other.binWidth);
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] += other.counts[i];
+      weights[i] += other.weights[i];
+    }
+  }
+
+  /**
+   * Finds the bin of a value.
+   *
+   * @param radians A value in radians, in range (-pi; pi] or [0; 2pi).
+   * @return The index of the bin or -1 if the value is NaN or does not fit in any bin.
+   */
+  public int binIndex(final double radians) {
+    // tiny negative values are rounded to 2pi, which may still fit in the last bin
+    final double radians2PI = (radians < 0.0) ? (radians + MathUtils.TWO_PI) : radians;
+    // like in Histogram, values below the first bin (or NaN) are not in any bin
+    if (!(radians2PI >= 0.0)) {
+      return -1;
+    }
+
+    // the estimate may be off by one due to accumulated bin starts
+    int index = FastMath.min((int) (radians2PI / binWidth), binStarts.length - 1);
+    while (index > 0 && radians2PI < binStarts[index]) {
+      index--;
+    }
+    while (index + 1 < binStarts.length && radians2PI >= binStarts[index + 1]) {
+      index++;
+    }
+    return radians2PI < binStarts[index] + binWidth ? index : -1;
+  }
+
+  /**
+   * Finds a bin which starts at a given point.
+   *
+   * @param radiansStart Value in radians which describes bin starting point (precision 1.0e-3).
+   * @return The index of the first such bin or -1 if there is none.
+   */
+  public int findBin(final double radiansStart) {
+    int index = Arrays.binarySearch(binStarts, radiansStart - 1.0e-3);
+    index = FastMath.max(0, (index < 0 ? -index - 1 : index) - 1);
+    for (; index < binStarts.length && binStarts[index] <= radiansStart + 1.0e-3; index++) {
+      if (Precision.equals(binStarts[index], radiansStart, 1.0e-3)) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return The width of bin.
+   */
+  public double binWidth() {
+    return binWidth;
+  }
+
+  /**
+   * @return The number of bins.
+   */
+  public int binCount() {
+    return binStarts.length;
+  }
+
+  /**
+   * @param index The index of a bin.
+   * @return The starting point of the bin in radians, in range [0; 2pi).
+   */
+  public double binStart(final int index) {
+    return binStarts[index];
+  }
+
+  /**
+   * @param index The index of a bin.
+   * @return The number of values in the bin.
+   */
+  public int count(final int index) {
+    return counts[index];
+  }
+
+  /**
+   * @param index The index of a bin.
+   * @return The sum of weights of values in the bin.
+   */
+  public double weight(final int index) {
+    return weights[index];
+  }
+
+  /**
+   * @return A copy of the number of values in each bin.
+   */
+  public int[] counts() {
+    return counts.clone();
+  }
+
+  /**
+   * @return A copy of the sums of weights in each bin.
+   */
+  public double[] weights() {
+    return weights.clone();
+  }
+
+  /**
+   * @return The number of all recorded values.
+   */
+  public long total() {
+    long total = 0L;
+    for (final int count : counts) {
+      total += count;
+    }
+    return total;
+  }
+
+  /**
+   * @return The highest number of values in a single bin.
+   */
+  public int maxCount() {
+    int max = 0;
+    for (final int count : counts) {
+      max = FastMath.max(max, count);
+    }
+    return max;
+  }
+}
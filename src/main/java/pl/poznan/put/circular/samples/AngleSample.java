@@ -2,17 +2,14 @@ package pl.poznan.put.circular.samples;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.Validate;
-import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.math3.util.FastMath;
 import org.apache.commons.math3.util.MathUtils;
 import org.immutables.value.Value;
 import pl.poznan.put.circular.Angle;
-import pl.poznan.put.circular.ImmutableAngle;
 import pl.poznan.put.circular.exception.InvalidCircularOperationException;
 
 /** A sample of angular values and computed statistics. */
@@ -96,7 +93,7 @@ public abstract class AngleSample {
    */
   @Value.Lazy
   public Angle medianDirection() {
-    return medianAndMeanDeviation().getKey();
+    return medianAndMeanDeviation().median();
   }
 
   /**
@@ -104,7 +101,7 @@ public abstract class AngleSample {
    */
   @Value.Lazy
   public double meanDeviation() {
-    return medianAndMeanDeviation().getValue();
+    return medianAndMeanDeviation().meanDeviation();
   }
 
   /**
@@ -154,31 +151,8 @@ public abstract class AngleSample {
   }
 
   @Value.Lazy
-  protected Pair<Angle, Double> medianAndMeanDeviation() {
-    // for odd number of observations, one of them will be the median
-    // for even number, a middle point will be the median
-    final List<Angle> candidates =
-        sortedData().size() % 2 == 1 ? sortedData() : computeMiddlePoints();
-
-    double minDeviation = Double.POSITIVE_INFINITY;
-    Angle minCandidate = candidates.get(0);
-
-    for (final Angle candidate : candidates) {
-      final double deviation = computeMeanDeviation(candidate);
-      if (deviation < minDeviation) {
-        minDeviation = deviation;
-        minCandidate = candidate;
-      }
-
-      final Angle candidateAlternative = ImmutableAngle.of(candidate.radians() + FastMath.PI);
-      final double deviationAlternative = computeMeanDeviation(candidateAlternative);
-      if (deviationAlternative < minDeviation) {
-        minDeviation = deviationAlternative;
-        minCandidate = candidateAlternative;
-      }
-    }
-
-    return Pair.of(minCandidate, minDeviation);
+  protected CircularMedian medianAndMeanDeviation() {
+    return CircularMedian.calculate(data().stream().mapToDouble(Angle::radians).toArray());
   }
 
   @Value.Lazy
@@ -188,40 +162,24 @@ public abstract class AngleSample {
 
   @Value.Lazy
   protected TrigonometricMoment um1() {
-    return TrigonometricMoment.computeUncentered(data(), 1);
+    return statistics().firstMoment();
   }
 
   @Value.Lazy
   protected TrigonometricMoment cm2() {
-    return TrigonometricMoment.computeCentered(data(), 2, meanDirection());
+    return statistics().centeredSecondMoment();
   }
 
   @Value.Lazy
   protected TrigonometricMoment um2() {
-    return TrigonometricMoment.computeUncentered(data(), 2);
-  }
-
-  private double computeMeanDeviation(final Angle alpha) {
-    return data().stream()
-            .mapToDouble(angle -> angle.subtract(alpha).radians())
-            .reduce(Double::sum)
-            .orElse(Double.NaN)
-        / data().size();
+    return statistics().secondMoment();
   }
 
-  private List<Angle> computeMiddlePoints() {
-    final List<Angle> middlePoints = new ArrayList<>();
-    for (int i = 1; i < sortedData().size(); i++) {
-      final Angle begin = sortedData().get(i - 1);
-      final Angle end = sortedData().get(i);
-      final Angle middle = ImmutableAngle.of((begin.radians() + end.radians()) / 2.0);
-      middlePoints.add(middle);
-    }
-
-    final Angle last = sortedData().get(sortedData().size() - 1);
-    final Angle first = sortedData().get(0);
-    final Angle middle = ImmutableAngle.of((last.radians() + first.radians()) / 2.0);
-    middlePoints.add(middle);
-    return middlePoints;
+  // all moments are derived from sums collected in a single pass over the data
+  @Value.Lazy
+  protected CircularStatistics statistics() {
+    final CircularStatistics statistics = new CircularStatistics();
+    data().forEach(statistics::accept);
+    return statistics;
   }
 }
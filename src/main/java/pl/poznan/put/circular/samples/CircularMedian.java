@@ -0,0 +1,256 @@
+package pl.poznan.put.circular.samples;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathArrays;
+import org.apache.commons.math3.util.MathUtils;
+import pl.poznan.put.circular.Angle;
+import pl.poznan.put.circular.ImmutableAngle;
+
+/**
+ * The circular median of a sample and the mean deviation from it. The median is the candidate (an
+ * observation for odd sample size, a middle point between consecutive observations for even one, or
+ * the antipode of either) with the minimum mean distance to all observations.
+ *
+ * <p>Mean distances of all candidates are estimated in O(n log n) from prefix sums of sorted
+ * values. Only candidates whose estimate is within the bound of rounding errors from the minimum
+ * are then evaluated directly, so the result is exactly the same as evaluating every candidate.
+ * When there are more than {@link #MAX_DIRECT_EVALUATIONS} such candidates (e.g. for evenly spaced
+ * values), their mean distances are equal up to rounding errors. Then only the ones with the lowest
+ * compensated estimate are evaluated directly, which keeps the whole computation in O(n log n).
+ */
+public final class CircularMedian {
+  private static final int MAX_DIRECT_EVALUATIONS = 16;
+
+  private final Angle median;
+  private final double meanDeviation;
+
+  private CircularMedian(final Angle median, final double meanDeviation) {
+    super();
+    this.median = median;
+    this.meanDeviation = meanDeviation;
+  }
+
+  /**
+   * Finds the circular median.
+   *
+   * @param radians Values in radians, in range (-pi; pi].
+   * @return The median and the mean deviation from it.
+   */
+  public static CircularMedian calculate(final double[] radians) {
+    Validate.isTrue(radians.length > 0, "The sample must not be empty");
+
+    final int n = radians.length;
+    final double[] sorted = radians.clone();
+    Arrays.sort(sorted);
+
+    // for odd number of observations, one of them will be the median
+    // for even number, a middle point will be the median
+    final double[] candidates;
+    if (n % 2 == 1) {
+      candidates = sorted;
+    } else {
+      candidates = new double[n];
+      for (int i = 1; i < n; i++) {
+        candidates[i - 1] = ImmutableAngle.of((sorted[i - 1] + sorted[i]) / 2.0).radians();
+      }
+      candidates[n - 1] = ImmutableAngle.of((sorted[n - 1] + sorted[0]) / 2.0).radians();
+    }
+
+    // each candidate is followed by its antipode
+    final double[] alphas = new double[2 * n];
+    for (int i = 0; i < n; i++) {
+      alphas[2 * i] = candidates[i];
+      alphas[2 * i + 1] = ImmutableAngle.of(candidates[i] + FastMath.PI).radians();
+    }
+
+    // the rounding errors of prefix sums are kept for compensated estimates
+    final double[] prefixSums = new double[n + 1];
+    final double[] prefixErrors = new double[n + 1];
+    final double[] estimates = new double[alphas.length];
+    if (Double.isNaN(sorted[n - 1])) {
+      Arrays.fill(estimates, Double.NaN);
+    } else {
+      for (int i = 0; i < n; i++) {
+        final double sum = prefixSums[i] + sorted[i];
+        final double rounded = sum - prefixSums[i];
+        prefixSums[i + 1] = sum;
+        prefixErrors[i + 1] =
+            prefixErrors[i] + ((prefixSums[i] - (sum - rounded)) + (sorted[i] - rounded));
+      }
+      for (int i = 0; i < alphas.length; i++) {
+        estimates[i] = CircularMedian.estimateMeanDeviation(sorted, prefixSums, alphas[i]);
+      }
+    }
+
+    double minEstimate = Double.POSITIVE_INFINITY;
+    for (final double estimate : estimates) {
+      minEstimate = FastMath.min(minEstimate, estimate);
+    }
+    // both the direct sum and the estimate are within this bound from the exact value
+    final double tolerance = 4.0 * (n + 8) * FastMath.ulp(MathUtils.TWO_PI);
+
+    // equal candidates are next to each other, only the first one of them can be chosen
+    int[] nearest = new int[alphas.length];
+    int count = 0;
+    for (int i = 0; i < alphas.length; i++) {
+      if (!(estimates[i] > minEstimate + 2.0 * tolerance)
+          && (i < 2 || Double.compare(alphas[i], alphas[i - 2]) != 0)) {
+        nearest[count] = i;
+        count++;
+      }
+    }
+    if (count > CircularMedian.MAX_DIRECT_EVALUATIONS) {
+      nearest =
+          CircularMedian.lowestCompensated(
+              sorted, prefixSums, prefixErrors, alphas, Arrays.copyOf(nearest, count));
+      count = nearest.length;
+    }
+
+    final Map<Double, Double> exact = new HashMap<>();
+    double minDeviation = Double.POSITIVE_INFINITY;
+    double minAlpha = candidates[0];
+    for (int j = 0; j < count; j++) {
+      final double alpha = alphas[nearest[j]];
+      final double deviation =
+          exact.computeIfAbsent(alpha, key -> CircularMedian.meanDeviation(radians, key));
+      if (deviation < minDeviation) {
+        minDeviation = deviation;
+        minAlpha = alpha;
+      }
+    }
+
+    return new CircularMedian(ImmutableAngle.of(minAlpha), minDeviation);
+  }
+
+  // the mean of distances summed in the order of observations
+  private static double meanDeviation(final double[] radians, final double alpha) {
+    double sum = 0.0;
+    for (final double value : radians) {
+      sum += Angle.subtractByAbsolutes(value, alpha);
+    }
+    return sum / radians.length;
+  }
+
+  private static double estimateMeanDeviation(
+      final double[] sorted, final double[] prefixSums, final double alpha) {
+    final int n = sorted.length;
+    // values in (alpha - pi; alpha] and (alpha; alpha + pi] are at distance |x - alpha|, the rest
+    // wrap around the circle and are at distance 2pi - |x - alpha|
+    final int low = CircularMedian.countNotGreater(sorted, alpha - FastMath.PI);
+    final int middle = CircularMedian.countNotGreater(sorted, alpha);
+    final int high = CircularMedian.countNotGreater(sorted, alpha + FastMath.PI);
+
+    final double sum =
+        ((MathUtils.TWO_PI - alpha) * low + prefixSums[low])
+            + (alpha * (middle - low) - (prefixSums[middle] - prefixSums[low]))
+            + ((prefixSums[high] - prefixSums[middle]) - alpha * (high - middle))
+            + ((MathUtils.TWO_PI + alpha) * (n - high) - (prefixSums[n] - prefixSums[high]));
+    return sum / n;
+  }
+
+  // indices of candidates with the lowest compensated estimates, the first ones win ties
+  private static int[] lowestCompensated(
+      final double[] sorted,
+      final double[] prefixSums,
+      final double[] prefixErrors,
+      final double[] alphas,
+      final int[] indices) {
+    final int[] lowest = new int[CircularMedian.MAX_DIRECT_EVALUATIONS];
+    final double[] values = new double[CircularMedian.MAX_DIRECT_EVALUATIONS];
+    int size = 0;
+    for (final int index : indices) {
+      final double value =
+          CircularMedian.compensatedMeanDeviation(sorted, prefixSums, prefixErrors, alphas[index]);
+      if (size == lowest.length && !(value < values[size - 1])) {
+        continue;
+      }
+
+      // insertion after all values not greater than the new one
+      int position = FastMath.min(size, lowest.length - 1);
+      while (position > 0 && !(values[position - 1] <= value)) {
+        lowest[position] = lowest[position - 1];
+        values[position] = values[position - 1];
+        position--;
+      }
+      lowest[position] = index;
+      values[position] = value;
+      size = FastMath.min(size + 1, lowest.length);
+    }
+
+    final int[] result = Arrays.copyOf(lowest, size);
+    Arrays.sort(result);
+    return result;
+  }
+
+  // the same sum as in the estimate, but with all terms added in twice the working precision
+  private static double compensatedMeanDeviation(
+      final double[] sorted,
+      final double[] prefixSums,
+      final double[] prefixErrors,
+      final double alpha) {
+    final int n = sorted.length;
+    final int low = CircularMedian.countNotGreater(sorted, alpha - FastMath.PI);
+    final int middle = CircularMedian.countNotGreater(sorted, alpha);
+    final int high = CircularMedian.countNotGreater(sorted, alpha + FastMath.PI);
+
+    final double sum =
+        MathArrays.linearCombination(
+            new double[] {
+              alpha,
+              MathUtils.TWO_PI,
+              prefixSums[low],
+              prefixErrors[low],
+              prefixSums[middle],
+              prefixErrors[middle],
+              prefixSums[high],
+              prefixErrors[high],
+              prefixSums[n],
+              prefixErrors[n]
+            },
+            new double[] {
+              n + 2 * (middle - low - high),
+              low + n - high,
+              2.0,
+              2.0,
+              -2.0,
+              -2.0,
+              2.0,
+              2.0,
+              -1.0,
+              -1.0
+            });
+    return sum / n;
+  }
+
+  private static int countNotGreater(final double[] sorted, final double value) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      if (sorted[middle] <= value) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return The median direction.
+   */
+  public Angle median() {
+    return median;
+  }
+
+  /**
+   * @return The mean of distances of the observations from the median.
+   */
+  public double meanDeviation() {
+    return meanDeviation;
+  }
+}
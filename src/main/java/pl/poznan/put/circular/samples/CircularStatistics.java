@@ -0,0 +1,198 @@
+package pl.poznan.put.circular.samples;
+
+import java.util.function.DoubleConsumer;
+import org.apache.commons.math3.util.FastMath;
+import pl.poznan.put.circular.Angle;
+import pl.poznan.put.circular.ImmutableAngle;
+
+/**
+ * A streaming accumulator of circular statistics. It keeps only the count and the sums of cosines
+ * and sines of the first and second multiples of observed angles, so the values themselves are not
+ * stored. The sums are compensated (Kahan-Babuska summation) to stay accurate for very large
+ * samples. Two accumulators may be combined, which makes it suitable for parallel streams:
+ *
+ * <pre>
+ * stream.collect(CircularStatistics::new, CircularStatistics::accept, CircularStatistics::combine)
+ * </pre>
+ *
+ * <p>The statistics are defined in the same way as in {@link AngleSample}. For an empty
+ * accumulator, all of them are NaN. This class is not thread-safe.
+ */
+public final class CircularStatistics implements DoubleConsumer {
+  private static final int COS1 = 0;
+  private static final int SIN1 = 1;
+  private static final int COS2 = 2;
+  private static final int SIN2 = 3;
+
+  private final double[] sums = new double[4];
+  private final double[] compensations = new double[4];
+  private long count;
+
+  /**
+   * Records a new value.
+   *
+   * @param radians An angular value in radians.
+   */
+  @Override
+  public void accept(final double radians) {
+    final double cos = FastMath.cos(radians);
+    final double sin = FastMath.sin(radians);
+    add(CircularStatistics.COS1, cos);
+    add(CircularStatistics.SIN1, sin);
+    add(CircularStatistics.COS2, (cos - sin) * (cos + sin));
+    add(CircularStatistics.SIN2, 2.0 * sin * cos);
+    count++;
+  }
+
+  /**
+   * Records a new value.
+   *
+   * @param angle An angular value.
+   */
+  public void accept(final Angle angle) {
+    accept(angle.radians());
+  }
+
+  /**
+   * Merges the state of another accumulator into this one.
+   *
+   * @param other Another accumulator.
+   */
+  public void combine(final CircularStatistics other) {
+    for (int i = 0; i < sums.length; i++) {
+      add(i, other.sums[i]);
+      compensations[i] += other.compensations[i];
+    }
+    count += other.count;
+  }
+
+  /**
+   * @return The number of recorded values.
+   */
+  public long count() {
+    return count;
+  }
+
+  /**
+   * @return The first uncentered trigonometric moment.
+   */
+  public TrigonometricMoment firstMoment() {
+    return moment(sum(CircularStatistics.COS1), sum(CircularStatistics.SIN1));
+  }
+
+  /**
+   * @return The second uncentered trigonometric moment.
+   */
+  public TrigonometricMoment secondMoment() {
+    return moment(sum(CircularStatistics.COS2), sum(CircularStatistics.SIN2));
+  }
+
+  /**
+   * @return The second trigonometric moment centered at the mean direction.
+   */
+  public TrigonometricMoment centeredSecondMoment() {
+    // rotate the second moment by -2 * meanDirection
+    final double theta = 2.0 * meanDirection().radians();
+    final double cos = FastMath.cos(theta);
+    final double sin = FastMath.sin(theta);
+    final double c = sum(CircularStatistics.COS2);
+    final double s = sum(CircularStatistics.SIN2);
+    return moment(c * cos + s * sin, s * cos - c * sin);
+  }
+
+  /**
+   * @return A mean angular value of the recorded values.
+   */
+  public Angle meanDirection() {
+    return firstMoment().meanDirection();
+  }
+
+  /**
+   * @return The length of the mean direction vector in range [0; 1].
+   */
+  public double meanResultantLength() {
+    return firstMoment().meanResultantLength();
+  }
+
+  /**
+   * @return A measure of variance of the data on the circle, taking values in range [0; 1].
+   */
+  public double circularVariance() {
+    return 1.0 - meanResultantLength();
+  }
+
+  /**
+   * @return A measure of variance of the data on the circle, taking values in range [0; &infin;].
+   */
+  public double circularStandardDeviation() {
+    return FastMath.sqrt(-2.0 * FastMath.log(meanResultantLength()));
+  }
+
+  /**
+   * @return Another measure of variance of the data depending on the first and second central
+   *     trigonometric moment.
+   */
+  public double circularDispersion() {
+    return (1.0 - centeredSecondMoment().meanResultantLength())
+        / (2.0 * FastMath.pow(meanResultantLength(), 2));
+  }
+
+  /**
+   * @return The skewness, defined as in {@link AngleSample#skewness()}.
+   */
+  public double skewness() {
+    final TrigonometricMoment cm2 = centeredSecondMoment();
+    return (cm2.meanResultantLength()
+            * FastMath.sin(cm2.meanDirection().subtract(meanDirection().multiply(2.0)).radians()))
+        / FastMath.sqrt(circularVariance());
+  }
+
+  /**
+   * @return The kurtosis, defined as in {@link AngleSample#kurtosis()}.
+   */
+  public double kurtosis() {
+    return ((centeredSecondMoment().meanResultantLength()
+                * FastMath.cos(
+                    secondMoment()
+                        .meanDirection()
+                        .subtract(meanDirection().multiply(2.0))
+                        .radians()))
+            - FastMath.pow(meanResultantLength(), 4))
+        / FastMath.pow(circularVariance(), 2);
+  }
+
+  @Override
+  public String toString() {
+    return "CircularStatistics [count="
+        + count
+        + ", meanDirection="
+        + meanDirection()
+        + ", meanResultantLength="
+        + meanResultantLength()
+        + ']';
+  }
+
+  // Kahan-Babuska (Neumaier) summation
+  private void add(final int index, final double value) {
+    final double sum = sums[index];
+    final double total = sum + value;
+    if (FastMath.abs(sum) >= FastMath.abs(value)) {
+      compensations[index] += (sum - total) + value;
+    } else {
+      compensations[index] += (value - total) + sum;
+    }
+    sums[index] = total;
+  }
+
+  private double sum(final int index) {
+    return sums[index] + compensations[index];
+  }
+
+  private TrigonometricMoment moment(final double cosSum, final double sinSum) {
+    final double c = cosSum / count;
+    final double s = sinSum / count;
+    final double rho = FastMath.sqrt(FastMath.pow(c, 2) + FastMath.pow(s, 2));
+    final double mi = FastMath.atan2(s, c);
+    return ImmutableTrigonometricMoment.of(ImmutableAngle.of(mi), rho);
+  }
+}
@@ -14,6 +14,7 @@ import org.immutables.value.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.poznan.put.atom.AtomName;
+import pl.poznan.put.circular.GeometryKernel;
 import pl.poznan.put.pdb.analysis.ImmutableDefaultPdbResidue;
 import pl.poznan.put.pdb.analysis.ImmutableDefaultResidueCollection;
 import pl.poznan.put.pdb.analysis.ResidueCollection;
@@ -219,7 +220,7 @@ public abstract class PdbAtomLine implements ChainNumberICode {
    * @return Euclidean distance in 3D between two atoms.
    */
   public final double distanceTo(final PdbAtomLine other) {
-    return toVector3D().distance(other.toVector3D());
+    return GeometryKernel.distance(x(), y(), z(), other.x(), other.y(), other.z());
   }
 
   /**
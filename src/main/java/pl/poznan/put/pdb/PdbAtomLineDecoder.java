@@ -0,0 +1,323 @@
+package pl.poznan.put.pdb;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * A decoder of ATOM and HETATM lines in PDB format which reads fixed columns directly from a {@link
+ * CharSequence} or a slice of {@code byte[]}. In contrast to {@link PdbAtomLine#parse(String)}, it
+ * does not create temporary substrings: numbers are parsed in place, single-character fields are
+ * taken from a shared table and the recurring names (atoms, residues, chains, elements) are reused
+ * from a small cache. The result is always equal to the one of {@link PdbAtomLine#parse(String)}.
+ *
+ * <p>An instance keeps its cache between calls, so it is not thread-safe. Create one decoder per
+ * parsing thread.
+ */
+public final class PdbAtomLineDecoder {
+  private static final int CACHE_SIZE = 1024;
+  private static final int MAX_FAST_DIGITS = 15;
+  private static final String[] SINGLE_CHARACTERS = new String[128];
+  private static final Optional<String>[] SINGLE_CHARACTER_OPTIONALS = createOptionals();
+  private static final double[] POWERS_OF_TEN = {
+    1.0e0, 1.0e1, 1.0e2, 1.0e3, 1.0e4, 1.0e5, 1.0e6, 1.0e7, 1.0e8, 1.0e9, 1.0e10, 1.0e11, 1.0e12,
+    1.0e13, 1.0e14, 1.0e15
+  };
+
+  static {
+    for (int i = 0; i < PdbAtomLineDecoder.SINGLE_CHARACTERS.length; i++) {
+      PdbAtomLineDecoder.SINGLE_CHARACTERS[i] = String.valueOf((char) i).intern();
+    }
+  }
+
+  private final String[] cache = new String[PdbAtomLineDecoder.CACHE_SIZE];
+  private final ByteSequence byteSequence = new ByteSequence();
+
+  // boundaries of the most recently trimmed field
+  private int begin;
+  private int end;
+
+  @SuppressWarnings("unchecked")
+  private static Optional<String>[] createOptionals() {
+    final Optional<String>[] optionals = new Optional[128];
+    for (int i = 0; i < optionals.length; i++) {
+      optionals[i] = Optional.of(String.valueOf((char) i).intern());
+    }
+    return optionals;
+  }
+
+  /**
+   * Decodes a line of text as ATOM or HETATM record.
+   *
+   * @param line A text in PDB format (ATOM or HETATM).
+   * @return An instance of {@link PdbAtomLine} equal to the one returned by {@link
+   *     PdbAtomLine#parse(String)}.
+   */
+  public PdbAtomLine decode(final CharSequence line) {
+    try {
+      return decodeUnchecked(line);
+    } catch (final NumberFormatException e) {
+      throw new PdbParsingException("Failed to parse PDB ATOM line", e);
+    }
+  }
+
+  /**
+   * Decodes a slice of ASCII-encoded bytes as ATOM or HETATM record.
+   *
+   * @param buffer The buffer with data in PDB format.
+   * @param offset The index of the first byte of the line.
+   * @param length The number of bytes in the line (without the line terminator).
+   * @return An instance of {@link PdbAtomLine} equal to the one returned by {@link
+   *     PdbAtomLine#parse(String)}.
+   */
+  public PdbAtomLine decode(final byte[] buffer, final int offset, final int length) {
+    byteSequence.reset(buffer, offset, length);
+    return decode(byteSequence);
+  }
+
+  /**
+   * Reads only the residue name of an ATOM or HETATM line, e.g. to reject the line before it is
+   * fully decoded.
+   *
+   * @param line A text in PDB format (ATOM or HETATM).
+   * @return The residue name, equal to {@link PdbAtomLine#residueName()} of the decoded line.
+   */
+  public String decodeResidueName(final CharSequence line) {
+    trim(line, 17, 20);
+    return cachedString(line);
+  }
+
+  /**
+   * Reads only the chain identifier of an ATOM or HETATM line, e.g. to reject the line before it is
+   * fully decoded.
+   *
+   * @param line A text in PDB format (ATOM or HETATM).
+   * @return The chain identifier, equal to {@link PdbAtomLine#chainIdentifier()} of the decoded
+   *     line.
+   */
+  public String decodeChainIdentifier(final CharSequence line) {
+    trim(line, 20, 22);
+    return cachedString(line);
+  }
+
+  private PdbAtomLine decodeUnchecked(final CharSequence line) {
+    trim(line, 0, 6);
+    if (!regionEquals(line, "ATOM") && !regionEquals(line, "HETATM")) {
+      throw new PdbParsingException("PDB line does not start with ATOM or HETATM");
+    }
+
+    trim(line, 6, 11);
+    final int serialNumber = parseIntOrDefault(line, 1);
+    trim(line, 12, 16);
+    final String atomName = cachedString(line);
+    trim(line, 16, 17);
+    final Optional<String> alternateLocation = optionalString(line);
+    final String residueName = decodeResidueName(line);
+    final String chainIdentifier = decodeChainIdentifier(line);
+    trim(line, 22, 26);
+    final int residueNumber = parseInt(line);
+    trim(line, 26, 27);
+    final Optional<String> insertionCode = optionalString(line);
+    trim(line, 30, 38);
+    final double x = parseDouble(line);
+    trim(line, 38, 46);
+    final double y = parseDouble(line);
+    trim(line, 46, 54);
+    final double z = parseDouble(line);
+    trim(line, 54, 60);
+    final double occupancy = parseDoubleOrDefault(line, 0.0);
+    trim(line, 60, 66);
+    final double temperatureFactor = parseDoubleOrDefault(line, 0.0);
+    trim(line, 76, 78);
+    final String elementSymbol = cachedString(line);
+    trim(line, 78, 80);
+    final String charge = cachedString(line);
+
+    return ImmutablePdbAtomLine.of(
+        serialNumber,
+        atomName,
+        alternateLocation,
+        residueName,
+        chainIdentifier,
+        residueNumber,
+        insertionCode,
+        x,
+        y,
+        z,
+        occupancy,
+        temperatureFactor,
+        elementSymbol,
+        charge);
+  }
+
+  // the same semantics as StringUtils.trimToEmpty(StringUtils.substring(line, from, to))
+  private void trim(final CharSequence line, final int from, final int to) {
+    final int length = line.length();
+    int i = Math.min(from, length);
+    int j = Math.min(to, length);
+    while (i < j && line.charAt(i) <= ' ') {
+      i++;
+    }
+    while (j > i && line.charAt(j - 1) <= ' ') {
+      j--;
+    }
+    begin = i;
+    end = j;
+  }
+
+  private boolean regionEquals(final CharSequence line, final String expected) {
+    if (end - begin != expected.length()) {
+      return false;
+    }
+    for (int i = begin; i < end; i++) {
+      if (line.charAt(i) != expected.charAt(i - begin)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String cachedString(final CharSequence line) {
+    final int length = end - begin;
+    if (length == 0) {
+      return "";
+    }
+    if (length == 1 && line.charAt(begin) < PdbAtomLineDecoder.SINGLE_CHARACTERS.length) {
+      return PdbAtomLineDecoder.SINGLE_CHARACTERS[line.charAt(begin)];
+    }
+
+    int hash = 0;
+    for (int i = begin; i < end; i++) {
+      hash = 31 * hash + line.charAt(i);
+    }
+    final int index = (hash ^ (hash >>> 16)) & (PdbAtomLineDecoder.CACHE_SIZE - 1);
+
+    final String cached = cache[index];
+    if (cached != null && regionEquals(line, cached)) {
+      return cached;
+    }
+
+    final String created = line.subSequence(begin, end).toString();
+    cache[index] = created;
+    return created;
+  }
+
+  private Optional<String> optionalString(final CharSequence line) {
+    if (begin == end) {
+      return Optional.empty();
+    }
+    if (end - begin == 1 && line.charAt(begin) < PdbAtomLineDecoder.SINGLE_CHARACTERS.length) {
+      return PdbAtomLineDecoder.SINGLE_CHARACTER_OPTIONALS[line.charAt(begin)];
+    }
+    return Optional.of(line.subSequence(begin, end).toString());
+  }
+
+  private int parseIntOrDefault(final CharSequence line, final int defaultValue) {
+    try {
+      return parseInt(line);
+    } catch (final NumberFormatException ignored) {
+      return defaultValue;
+    }
+  }
+
+  private int parseInt(final CharSequence line) {
+    int i = begin;
+    final boolean negative = i < end && line.charAt(i) == '-';
+    if (i < end && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+      i++;
+    }
+
+    if (i == end || end - i > 9) {
+      return Integer.parseInt(line.subSequence(begin, end).toString());
+    }
+
+    int value = 0;
+    for (; i < end; i++) {
+      final char c = line.charAt(i);
+      if (c < '0' || c > '9') {
+        return Integer.parseInt(line.subSequence(begin, end).toString());
+      }
+      value = value * 10 + (c - '0');
+    }
+    return negative ? -value : value;
+  }
+
+  private double parseDoubleOrDefault(final CharSequence line, final double defaultValue) {
+    if (begin == end) {
+      return defaultValue;
+    }
+    try {
+      return parseDouble(line);
+    } catch (final NumberFormatException ignored) {
+      return defaultValue;
+    }
+  }
+
+  // a fast path for plain decimals, which are exact when divided by an exact power of ten
+  private double parseDouble(final CharSequence line) {
+    int i = begin;
+    final boolean negative = i < end && line.charAt(i) == '-';
+    if (i < end && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+      i++;
+    }
+
+    long mantissa = 0L;
+    int digits = 0;
+    int fractionDigits = 0;
+    boolean dot = false;
+
+    for (; i < end; i++) {
+      final char c = line.charAt(i);
+      if (c >= '0' && c <= '9') {
+        mantissa = mantissa * 10L + (c - '0');
+        digits++;
+        if (dot) {
+          fractionDigits++;
+        }
+      } else if (c == '.' && !dot) {
+        dot = true;
+      } else {
+        return Double.parseDouble(line.subSequence(begin, end).toString());
+      }
+    }
+
+    if (digits == 0 || digits > PdbAtomLineDecoder.MAX_FAST_DIGITS) {
+      return Double.parseDouble(line.subSequence(begin, end).toString());
+    }
+
+    final double value = mantissa / PdbAtomLineDecoder.POWERS_OF_TEN[fractionDigits];
+    return negative ? -value : value;
+  }
+
+  /** A reusable view of ASCII bytes as characters. */
+  private static final class ByteSequence implements CharSequence {
+    private byte[] buffer = new byte[0];
+    private int offset;
+    private int length;
+
+    private void reset(final byte[] buffer, final int offset, final int length) {
+      this.buffer = buffer;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+      return (char) (buffer[offset + index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+      return new String(buffer, offset + start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+      return new String(buffer, offset, length, StandardCharsets.ISO_8859_1);
+    }
+  }
+}
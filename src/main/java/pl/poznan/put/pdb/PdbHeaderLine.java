@@ -30,7 +30,9 @@ public abstract class PdbHeaderLine implements Serializable {
   // @formatter:on
   private static final String FORMAT = "HEADER    %-40s%9s   %4s              "; // NON-NLS
   private static final String RECORD_NAME = "HEADER"; // NON-NLS
-  private static final DateFormat DATE_FORMAT = new SimpleDateFormat("dd-MMM-yy", Locale.US);
+  // SimpleDateFormat is not thread-safe, so each thread gets its own instance
+  private static final ThreadLocal<DateFormat> DATE_FORMAT =
+      ThreadLocal.withInitial(() -> new SimpleDateFormat("dd-MMM-yy", Locale.US));
 
   /**
    * Parses text with HEADER line in PDB format.
@@ -47,8 +49,9 @@ public abstract class PdbHeaderLine implements Serializable {
     try {
       final String classification = StringUtils.trimToEmpty(StringUtils.substring(line, 10, 50));
       final Date depositionDate =
-          PdbHeaderLine.DATE_FORMAT.parse(
-              StringUtils.trimToEmpty(StringUtils.substring(line, 50, 59)));
+          PdbHeaderLine.DATE_FORMAT
+              .get()
+              .parse(StringUtils.trimToEmpty(StringUtils.substring(line, 50, 59)));
       final String idCode = StringUtils.trimToEmpty(StringUtils.substring(line, 62, 66));
       return ImmutablePdbHeaderLine.of(classification, depositionDate, idCode);
     } catch (final ParseException e) {
@@ -87,7 +90,7 @@ public abstract class PdbHeaderLine implements Serializable {
         Locale.US,
         PdbHeaderLine.FORMAT,
         classification(),
-        PdbHeaderLine.DATE_FORMAT.format(depositionDate()).toUpperCase(Locale.US),
+        PdbHeaderLine.DATE_FORMAT.get().format(depositionDate()).toUpperCase(Locale.US),
         idCode());
   }
 }
@@ -1,14 +1,16 @@
 package pl.poznan.put.pdb.analysis;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-import java.util.stream.Stream;
 import pl.poznan.put.pdb.PdbAtomLine;
+import pl.poznan.put.pdb.PdbModresLine;
 import pl.poznan.put.pdb.PdbRemark465Line;
 import pl.poznan.put.pdb.PdbResidueIdentifier;
 
@@ -71,65 +73,90 @@ public abstract class AbstractPdbModel implements PdbModel {
   }
 
   /**
-   * Groups together atoms from the same residue and repeat that for every residue.
+   * Groups together atoms from the same residue and repeat that for every residue. The whole
+   * computation is a single pass over atoms followed by a sort, so subclasses should cache the
+   * result (e.g. with {@code @Value.Lazy}).
    *
    * @return A list of residues in the structure.
    */
   @Override
   public List<PdbResidue> residues() {
-    // group atoms by common (chain, number, icode)
+    // group atoms by common (chain, number, icode) and remember the chain order from the input file
     final Map<PdbResidueIdentifier, List<PdbAtomLine>> atomGroups = new LinkedHashMap<>();
-    atoms()
-        .forEach(
-            atom -> {
-              atomGroups.putIfAbsent(PdbResidueIdentifier.from(atom), new ArrayList<>());
-              atomGroups.get(PdbResidueIdentifier.from(atom)).add(atom);
-            });
+    final Map<String, Integer> chainRanks = new HashMap<>();
+    for (final PdbAtomLine atom : atoms()) {
+      atomGroups
+          .computeIfAbsent(PdbResidueIdentifier.from(atom), key -> new ArrayList<>())
+          .add(atom);
+      chainRanks.putIfAbsent(atom.chainIdentifier(), chainRanks.size());
+    }
+
+    final Map<PdbResidueIdentifier, PdbModresLine> modifications = firstModifications();
 
     // create residues out of atom groups and leave only those detected as nucleotides or amino
     // acids
-    final List<PdbResidue> existingResidues =
-        atomGroups.values().stream()
-            .map(this::atomGroupToResidue)
-            .filter(
-                residue ->
-                    residue.residueInformationProvider().moleculeType() != MoleculeType.UNKNOWN)
-            .collect(Collectors.toList());
+    final List<PdbResidue> residues = new ArrayList<>(atomGroups.size());
+    for (final Map.Entry<PdbResidueIdentifier, List<PdbAtomLine>> entry : atomGroups.entrySet()) {
+      final PdbResidue residue =
+          AbstractPdbModel.atomGroupToResidue(entry.getKey(), entry.getValue(), modifications);
+      if (residue.residueInformationProvider().moleculeType() != MoleculeType.UNKNOWN) {
+        residues.add(residue);
+      }
+    }
 
-    // construct a set of non-missing residue identifiers
-    final Set<PdbResidueIdentifier> existingIdentifiers =
-        existingResidues.stream().map(PdbResidueIdentifier::from).collect(Collectors.toSet());
+    addMissingAndSort(residues, chainRanks);
+    return residues;
+  }
 
-    // create residues out of information about missing residues in the headers
-    final Stream<PdbResidue> missingResidueStream =
-        missingResidues().stream()
-            .filter(missing -> missing.modelNumber() == modelNumber())
-            .filter(missing -> !existingIdentifiers.contains(PdbResidueIdentifier.from(missing)))
-            .map(PdbRemark465Line::toResidue);
+  /**
+   * @return A map of residues to MODRES entries, where the first matching entry describes the
+   *     residue (like in {@link #modificationDetails}).
+   */
+  final Map<PdbResidueIdentifier, PdbModresLine> firstModifications() {
+    final Map<PdbResidueIdentifier, PdbModresLine> modifications = new HashMap<>();
+    for (final PdbModresLine modifiedResidue : modifiedResidues()) {
+      modifications.putIfAbsent(PdbResidueIdentifier.from(modifiedResidue), modifiedResidue);
+    }
+    return modifications;
+  }
 
-    // maintain chain order from the input file
-    final List<String> order =
-        atoms().stream().map(PdbAtomLine::chainIdentifier).distinct().collect(Collectors.toList());
+  /**
+   * Adds missing residues from the headers to the residues detected from atoms, then sorts all of
+   * them by chain and residue number.
+   *
+   * @param residues The list of residues detected from atoms, modified in place.
+   * @param chainRanks The order of chains in the input file.
+   */
+  final void addMissingAndSort(
+      final List<PdbResidue> residues, final Map<String, Integer> chainRanks) {
+    // create residues out of information about missing residues in the headers (atom groups
+    // include also residues of unknown type, so the check is done against detected ones only)
+    final Set<PdbResidueIdentifier> existingIdentifiers =
+        residues.stream().map(PdbResidueIdentifier::from).collect(Collectors.toSet());
+    for (final PdbRemark465Line missing : missingResidues()) {
+      if (missing.modelNumber() == modelNumber()
+          && !existingIdentifiers.contains(PdbResidueIdentifier.from(missing))) {
+        residues.add(missing.toResidue());
+      }
+    }
 
-    // create a list of residues
     // the comparator applies chain order, but within a chain it goes back to
     // ChainNumberICode::compareTo in order to put missing residues in correct places
-    return Stream.concat(existingResidues.stream(), missingResidueStream)
-        .sorted(
-            (t, t1) -> {
-              if (t.chainIdentifier().equals(t1.chainIdentifier())) return t.compareTo(t1);
-              return Integer.compare(
-                  order.indexOf(t.chainIdentifier()), order.indexOf(t1.chainIdentifier()));
-            })
-        .collect(Collectors.toList());
+    // (chains known only from missing residues come first, as they have no rank)
+    residues.sort(
+        Comparator.comparingInt(
+                (PdbResidue residue) -> chainRanks.getOrDefault(residue.chainIdentifier(), -1))
+            .thenComparing(Comparator.naturalOrder()));
   }
 
-  private PdbResidue atomGroupToResidue(final List<PdbAtomLine> residueAtoms) {
-    final PdbResidueIdentifier residueIdentifier = PdbResidueIdentifier.from(residueAtoms.get(0));
-    final boolean isModified = isModified(residueIdentifier);
+  private static PdbResidue atomGroupToResidue(
+      final PdbResidueIdentifier residueIdentifier,
+      final List<PdbAtomLine> residueAtoms,
+      final Map<PdbResidueIdentifier, PdbModresLine> modifications) {
     final String residueName = residueAtoms.get(0).residueName();
+    final PdbModresLine modification = modifications.get(residueIdentifier);
     final String modifiedResidueName =
-        isModified ? modificationDetails(residueIdentifier).standardResidueName() : residueName;
+        (modification == null) ? residueName : modification.standardResidueName();
     return ImmutableDefaultPdbResidue.of(
         residueIdentifier, residueName, modifiedResidueName, residueAtoms);
   }
@@ -0,0 +1,97 @@
+package pl.poznan.put.pdb.analysis;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import pl.poznan.put.pdb.PdbAtomLine;
+import pl.poznan.put.pdb.PdbModresLine;
+
+/**
+ * The state of an {@link AtomSelection} applied during a single parsing session. Atoms are rejected
+ * by their residue name only if the name is unambiguously of another molecule type and the chain
+ * has no modified residues, so that the final {@link PdbModel#filteredNewInstance(MoleculeType)}
+ * yields the same result as for a fully parsed model.
+ */
+final class AtomFilter {
+  private final AtomSelection selection;
+  private final Set<String> chainsWithModifiedResidues;
+  private final Map<String, MoleculeType> residueNameTypes = new HashMap<>();
+  private final Set<String> seenAtomNames = new HashSet<>();
+
+  private int lastModelNumber = Integer.MIN_VALUE;
+  private String lastChainIdentifier = "";
+  private int lastResidueNumber = Integer.MIN_VALUE;
+  private Optional<String> lastInsertionCode = Optional.empty();
+
+  AtomFilter(final AtomSelection selection, final Collection<PdbModresLine> modifiedResidues) {
+    super();
+    this.selection = selection;
+    chainsWithModifiedResidues =
+        modifiedResidues.stream().map(PdbModresLine::chainIdentifier).collect(Collectors.toSet());
+  }
+
+  boolean acceptsModel(final int modelNumber) {
+    return selection.acceptsModel(modelNumber);
+  }
+
+  boolean acceptsRecordType(final String recordType) {
+    return selection.acceptsRecordType(recordType);
+  }
+
+  boolean acceptsResidue(final String chainIdentifier, final String residueName) {
+    if (!selection.acceptsChain(chainIdentifier)) {
+      return false;
+    }
+    if (!selection.moleculeType().isPresent()
+        || chainsWithModifiedResidues.contains(chainIdentifier)) {
+      return true;
+    }
+
+    final MoleculeType moleculeType =
+        residueNameTypes.computeIfAbsent(
+            residueName,
+            name ->
+                ResidueTypeDetector.detectResidueType(name, Collections.emptySet()).moleculeType());
+    return moleculeType == MoleculeType.UNKNOWN || moleculeType == selection.moleculeType().get();
+  }
+
+  boolean acceptsAlternateLocation(final int modelNumber, final PdbAtomLine atomLine) {
+    if (selection.alternateLocationPolicy() == AtomSelection.AlternateLocationPolicy.ALL) {
+      return true;
+    }
+
+    if (modelNumber != lastModelNumber
+        || atomLine.residueNumber() != lastResidueNumber
+        || !atomLine.chainIdentifier().equals(lastChainIdentifier)
+        || !atomLine.insertionCode().equals(lastInsertionCode)) {
+      lastModelNumber = modelNumber;
+      lastChainIdentifier = atomLine.chainIdentifier();
+      lastResidueNumber = atomLine.residueNumber();
+      lastInsertionCode = atomLine.insertionCode();
+      seenAtomNames.clear();
+    }
+
+    return seenAtomNames.add(atomLine.atomName());
+  }
+
+  Optional<PdbModel> finish(final PdbModel model) {
+    return selection.moleculeType().isPresent()
+        ? keepsAnyAtom(model).map(model::filteredNewInstance)
+        : Optional.of(model);
+  }
+
+  Optional<CifModel> finish(final CifModel model) {
+    return selection.moleculeType().isPresent()
+        ? keepsAnyAtom(model).map(model::filteredNewInstance)
+        : Optional.of(model);
+  }
+
+  private Optional<MoleculeType> keepsAnyAtom(final PdbModel model) {
+    return selection.moleculeType().filter(type -> !model.filteredAtoms(type).isEmpty());
+  }
+}
@@ -0,0 +1,93 @@
+package pl.poznan.put.pdb.analysis;
+
+import java.util.Optional;
+import java.util.Set;
+import org.immutables.value.Value;
+
+/**
+ * A selection of atoms applied by {@link PdbParser} and {@link CifParser} while the atoms are being
+ * decoded. An empty set of model numbers, chain identifiers or record types means that all of them
+ * are accepted.
+ */
+@Value.Immutable
+public abstract class AtomSelection {
+  /**
+   * @return A selection which accepts all atoms.
+   */
+  public static AtomSelection all() {
+    return ImmutableAtomSelection.builder().build();
+  }
+
+  /**
+   * @return The numbers of models to keep.
+   */
+  public abstract Set<Integer> modelNumbers();
+
+  /**
+   * @return The identifiers of chains to keep.
+   */
+  public abstract Set<String> chainIdentifiers();
+
+  /**
+   * @return The types of records to keep i.e. ATOM and/or HETATM.
+   */
+  public abstract Set<String> recordTypes();
+
+  /**
+   * @return The type of molecule to keep. The result is the same as the one of {@link
+   *     PdbModel#filteredNewInstance(MoleculeType)} applied to a fully parsed model.
+   */
+  public abstract Optional<MoleculeType> moleculeType();
+
+  /**
+   * @return The policy for atoms with alternate locations ({@link AlternateLocationPolicy#ALL} by
+   *     default).
+   */
+  @Value.Default
+  public AlternateLocationPolicy alternateLocationPolicy() {
+    return AlternateLocationPolicy.ALL;
+  }
+
+  /**
+   * @param modelNumber The number of a model.
+   * @return True if atoms of this model are to be kept.
+   */
+  public final boolean acceptsModel(final int modelNumber) {
+    return modelNumbers().isEmpty() || modelNumbers().contains(modelNumber);
+  }
+
+  /**
+   * @param chainIdentifier The identifier of a chain.
+   * @return True if atoms of this chain are to be kept.
+   */
+  public final boolean acceptsChain(final String chainIdentifier) {
+    return chainIdentifiers().isEmpty() || chainIdentifiers().contains(chainIdentifier);
+  }
+
+  /**
+   * @param recordType The type of record i.e. ATOM or HETATM.
+   * @return True if atoms in records of this type are to be kept.
+   */
+  public final boolean acceptsRecordType(final String recordType) {
+    return recordTypes().isEmpty() || recordTypes().contains(recordType);
+  }
+
+  /**
+   * @return True if this selection accepts all atoms.
+   */
+  public final boolean isAll() {
+    return modelNumbers().isEmpty()
+        && chainIdentifiers().isEmpty()
+        && recordTypes().isEmpty()
+        && !moleculeType().isPresent()
+        && alternateLocationPolicy() == AlternateLocationPolicy.ALL;
+  }
+
+  /** A policy for atoms which are present in several alternate locations. */
+  public enum AlternateLocationPolicy {
+    /** Keep all alternate locations. */
+    ALL,
+    /** Keep only the first occurrence of each atom name in a residue. */
+    FIRST
+  }
+}
@@ -9,4 +9,7 @@ public interface CifModel extends PdbModel {
    * @return The list of base pairs as parsed from mmCIF file.
    */
   List<QuantifiedBasePair> basePairs();
+
+  @Override
+  CifModel filteredNewInstance(MoleculeType moleculeType);
 }
@@ -5,11 +5,15 @@ import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
 import org.apache.commons.io.IOUtils;
@@ -49,53 +53,84 @@ import pl.poznan.put.structure.QuantifiedBasePair;
 
 /** A parser of mmCIF format. */
 public final class CifParser {
-  private PdbHeaderLine header;
-  private PdbExpdtaLine experimentalData;
-  private PdbRemark2Line resolution;
-  private List<PdbModresLine> modifiedResidues;
-  private List<PdbRemark465Line> missingResidues;
-  private String title;
-  private List<QuantifiedBasePair> basePairs;
-  private Map<Integer, List<PdbAtomLine>> modelAtoms;
+  private static final Set<String> METADATA_CATEGORIES =
+      new HashSet<>(
+          Arrays.asList(
+              "entry", "struct", "struct_keywords", "exptl", "refine", "pdbx_database_status"));
 
   public CifParser() {
     super();
   }
 
   /**
-   * Parses content in mmCIF format.
+   * Parses content in mmCIF format. All state is local to a single call, so one instance can be
+   * safely shared between threads.
    *
    * @param structureContent A string with data in mmCIF format.
    * @return A parsed object representing a molecular structure.
    * @throws IOException When parsing of the data fails.
    */
-  public synchronized List<CifModel> parse(final String structureContent) throws IOException {
-    header = ImmutablePdbHeaderLine.of("", new Date(), "");
-    experimentalData = ImmutablePdbExpdtaLine.of(Collections.emptyList());
-    resolution = ImmutablePdbRemark2Line.of(Double.NaN);
-    modifiedResidues = Collections.emptyList();
-    missingResidues = Collections.emptyList();
-    title = "";
-    modelAtoms = new TreeMap<>();
+  public List<CifModel> parse(final String structureContent) throws IOException {
+    return CifParser.parseContent(structureContent);
+  }
+
+  /**
+   * Parses content in mmCIF format. This method is reentrant and thread-safe.
+   *
+   * @param structureContent A string with data in mmCIF format.
+   * @return A parsed object representing a molecular structure.
+   * @throws IOException When parsing of the data fails.
+   */
+  public static List<CifModel> parseContent(final String structureContent) throws IOException {
+    return CifParser.parseContent(structureContent, AtomSelection.all());
+  }
+
+  /**
+   * Parses content in mmCIF format keeping only the selected atoms. The selection is applied before
+   * rows of {@code atom_site} are converted into atoms, so rejected atoms are never allocated.
+   *
+   * @param structureContent A string with data in mmCIF format.
+   * @param selection The selection of atoms to keep.
+   * @return A parsed object representing a molecular structure. Models without any selected atoms
+   *     are skipped.
+   * @throws IOException When parsing of the data fails.
+   */
+  public List<CifModel> parse(final String structureContent, final AtomSelection selection)
+      throws IOException {
+    return CifParser.parseContent(structureContent, selection);
+  }
 
+  /**
+   * Parses content in mmCIF format keeping only the selected atoms (see {@link #parse(String,
+   * AtomSelection)}). This method is reentrant and thread-safe.
+   *
+   * @param structureContent A string with data in mmCIF format.
+   * @param selection The selection of atoms to keep.
+   * @return A parsed object representing a molecular structure. Models without any selected atoms
+   *     are skipped.
+   * @throws IOException When parsing of the data fails.
+   */
+  public static List<CifModel> parseContent(
+      final String structureContent, final AtomSelection selection) throws IOException {
     final MmCifFile cifFile =
         CifIO.readFromInputStream(IOUtils.toInputStream(structureContent, StandardCharsets.UTF_8))
             .as(StandardSchemata.MMCIF);
     final MmCifBlock data = cifFile.getFirstBlock();
 
-    handleHeader(data);
-    handleExperimentalData(data);
-    handleResolution(data);
-    handleModifiedResidues(data);
-    handleMissingResidues(data);
-    handleTitle(data);
-    handleBasePairs(data);
-    handleAtoms(data);
+    final PdbHeaderLine header = CifParser.parseHeader(data);
+    final PdbExpdtaLine experimentalData = CifParser.parseExperimentalData(data);
+    final PdbRemark2Line resolution = CifParser.parseResolution(data);
+    final List<PdbModresLine> modifiedResidues = CifParser.parseModifiedResidues(data, header);
+    final List<PdbRemark465Line> missingResidues = CifParser.parseMissingResidues(data);
+    final String title = CifParser.parseTitle(data);
+    final List<QuantifiedBasePair> basePairs = CifParser.parseBasePairs(data);
+    final AtomFilter atomFilter = new AtomFilter(selection, modifiedResidues);
+    final Map<Integer, List<PdbAtomLine>> modelAtoms = CifParser.parseAtoms(data, atomFilter);
 
     final List<CifModel> result = new ArrayList<>(modelAtoms.size());
 
     for (final Map.Entry<Integer, List<PdbAtomLine>> entry : modelAtoms.entrySet()) {
-      result.add(
+      final CifModel model =
           ImmutableDefaultCifModel.of(
               header,
               experimentalData,
@@ -106,13 +141,93 @@ public final class CifParser {
               missingResidues,
               title,
               Collections.emptyList(),
-              basePairs));
+              basePairs);
+      atomFilter.finish(model).ifPresent(result::add);
     }
 
     return result;
   }
 
-  private void handleBasePairs(final MmCifBlock data) {
+  /**
+   * Parses only the metadata of a structure in mmCIF format. Before the data is handed to the mmCIF
+   * reader, all categories other than {@code entry}, {@code struct}, {@code struct_keywords},
+   * {@code exptl}, {@code refine} and {@code pdbx_database_status} are removed from the text, so
+   * the coordinates in {@code atom_site} are never tokenized.
+   *
+   * @param structureContent A string with data in mmCIF format.
+   * @return The header, experimental data, resolution and title of the structure.
+   * @throws IOException When parsing of the data fails.
+   */
+  public StructureMetadata parseMetadata(final String structureContent) throws IOException {
+    final String filtered =
+        CifParser.filterCategories(structureContent, CifParser.METADATA_CATEGORIES);
+    final MmCifFile cifFile =
+        CifIO.readFromInputStream(IOUtils.toInputStream(filtered, StandardCharsets.UTF_8))
+            .as(StandardSchemata.MMCIF);
+    final MmCifBlock data = cifFile.getFirstBlock();
+
+    return ImmutableStructureMetadata.of(
+        CifParser.parseHeader(data),
+        CifParser.parseExperimentalData(data),
+        CifParser.parseResolution(data),
+        CifParser.parseTitle(data));
+  }
+
+  /**
+   * Leaves only the data blocks' headers and the given categories. Both key-value pairs and loops
+   * are supported, including multi-line text fields delimited with semicolons.
+   */
+  private static String filterCategories(final String content, final Set<String> categories) {
+    final StringBuilder builder = new StringBuilder();
+    String pendingLoop = null;
+    boolean inLoop = false;
+    boolean inLoopHeader = false;
+    boolean inTextField = false;
+    boolean keep = false;
+
+    for (final String line : content.split("\n")) {
+      if (inTextField || line.startsWith(";")) {
+        if (line.startsWith(";")) {
+          inTextField = !inTextField;
+        }
+      } else if (line.startsWith("data_")) {
+        inLoop = false;
+        keep = true;
+      } else if (line.startsWith("#")) {
+        continue;
+      } else if (line.startsWith("loop_")) {
+        pendingLoop = line;
+        inLoop = true;
+        inLoopHeader = true;
+        keep = false;
+        continue;
+      } else if (line.startsWith("_")) {
+        final int dot = line.indexOf('.');
+        final String category = line.substring(1, (dot == -1) ? line.length() : dot);
+        final boolean wanted = categories.contains(category.toLowerCase(Locale.ROOT));
+
+        if (inLoop && inLoopHeader) {
+          if (wanted && !keep) {
+            builder.append(pendingLoop).append('\n');
+          }
+          keep = wanted;
+        } else {
+          inLoop = false;
+          keep = wanted;
+        }
+      } else if (inLoop) {
+        inLoopHeader = false;
+      }
+
+      if (keep) {
+        builder.append(line).append('\n');
+      }
+    }
+
+    return builder.toString();
+  }
+
+  private static List<QuantifiedBasePair> parseBasePairs(final MmCifBlock data) {
     final NdbStructNaBasePair ndbStructNaBasePair = data.getNdbStructNaBasePair();
     final StrColumn iAuthAsymId = ndbStructNaBasePair.getIAuthAsymId();
     final StrColumn iAuthSeqId = ndbStructNaBasePair.getIAuthSeqId();
@@ -176,14 +291,14 @@ public final class CifParser {
               .withSaenger(saenger)
               .withLeontisWesthof(leontisWesthof));
     }
-    basePairs = result;
+    return result;
   }
 
-  private void handleTitle(final MmCifBlock data) {
-    title = data.getStruct().getTitle().values().collect(Collectors.joining("\n"));
+  private static String parseTitle(final MmCifBlock data) {
+    return data.getStruct().getTitle().values().collect(Collectors.joining("\n"));
   }
 
-  private void handleMissingResidues(final MmCifBlock data) {
+  private static List<PdbRemark465Line> parseMissingResidues(final MmCifBlock data) {
     final PdbxUnobsOrZeroOccResidues pdbxUnobsOrZeroOccResidues =
         data.getPdbxUnobsOrZeroOccResidues();
     final IntColumn pdbModelNum = pdbxUnobsOrZeroOccResidues.getPDBModelNum();
@@ -208,10 +323,11 @@ public final class CifParser {
               CifParser.isEmpty(insertionCode) ? Optional.empty() : Optional.of(insertionCode)));
     }
 
-    missingResidues = result;
+    return result;
   }
 
-  private void handleModifiedResidues(final MmCifBlock data) {
+  private static List<PdbModresLine> parseModifiedResidues(
+      final MmCifBlock data, final PdbHeaderLine header) {
     final PdbxStructModResidue pdbxStructModResidue = data.getPdbxStructModResidue();
     final StrColumn authCompId = pdbxStructModResidue.getAuthCompId();
     final StrColumn authAsymId = pdbxStructModResidue.getAuthAsymId();
@@ -239,16 +355,15 @@ public final class CifParser {
               comment));
     }
 
-    modifiedResidues = result;
+    return result;
   }
 
-  private void handleResolution(final MmCifBlock data) {
-    resolution =
-        ImmutablePdbRemark2Line.of(
-            data.getRefine().getLsDResHigh().values().min().orElse(Double.NaN));
+  private static PdbRemark2Line parseResolution(final MmCifBlock data) {
+    return ImmutablePdbRemark2Line.of(
+        data.getRefine().getLsDResHigh().values().min().orElse(Double.NaN));
   }
 
-  private void handleExperimentalData(final MmCifBlock data) {
+  private static PdbExpdtaLine parseExperimentalData(final MmCifBlock data) {
     final Exptl exptl = data.getExptl();
     final List<ExperimentalTechnique> experimentalTechniques =
         exptl
@@ -256,10 +371,10 @@ public final class CifParser {
             .values()
             .map(ExperimentalTechnique::fromFullName)
             .collect(Collectors.toList());
-    experimentalData = ImmutablePdbExpdtaLine.of(experimentalTechniques);
+    return ImmutablePdbExpdtaLine.of(experimentalTechniques);
   }
 
-  private void handleHeader(final MmCifBlock data) {
+  private static PdbHeaderLine parseHeader(final MmCifBlock data) {
     Date depositionData;
     try {
       depositionData =
@@ -275,11 +390,13 @@ public final class CifParser {
     final String classification =
         data.getStructKeywords().getPdbxKeywords().values().collect(Collectors.joining("\n"));
     final String idCode = data.getEntry().getId().values().collect(Collectors.joining("\n"));
-    header = ImmutablePdbHeaderLine.of(classification, depositionData, idCode);
+    return ImmutablePdbHeaderLine.of(classification, depositionData, idCode);
   }
 
-  private void handleAtoms(final MmCifBlock data) {
+  private static Map<Integer, List<PdbAtomLine>> parseAtoms(
+      final MmCifBlock data, final AtomFilter atomFilter) {
     final AtomSite atomSite = data.getAtomSite();
+    final Map<Integer, List<PdbAtomLine>> modelAtoms = new TreeMap<>();
 
     final IntColumn id = atomSite.getId();
     final StrColumn authAtomId = atomSite.getAuthAtomId();
@@ -301,15 +418,26 @@ public final class CifParser {
     final StrColumn typeSymbol = atomSite.getTypeSymbol();
     final IntColumn pdbxFormalCharge = atomSite.getPdbxFormalCharge();
     final IntColumn pdbxPDBModelNum = atomSite.getPdbxPDBModelNum();
+    final StrColumn groupPDB = atomSite.getGroupPDB();
 
     for (int i = 0; i < atomSite.getRowCount(); i++) {
+      final int model = pdbxPDBModelNum.isDefined() ? pdbxPDBModelNum.get(i) : 1;
+      if (!atomFilter.acceptsModel(model)
+          || (groupPDB.isDefined() && !atomFilter.acceptsRecordType(groupPDB.get(i)))) {
+        continue;
+      }
+
+      final String residueName = authCompId.isDefined() ? authCompId.get(i) : labelCompId.get(i);
+      final String chainIdentifier =
+          authAsymId.isDefined() ? authAsymId.get(i) : labelAsymId.get(i);
+      if (!atomFilter.acceptsResidue(chainIdentifier, residueName)) {
+        continue;
+      }
+
       final int serialNumber = id.get(i);
       final String atomName = authAtomId.isDefined() ? authAtomId.get(i) : labelAtomId.get(i);
       final String alternateLocation =
           pdbxAuthAltId.isDefined() ? pdbxAuthAltId.get(i) : labelAltId.get(i);
-      final String residueName = authCompId.isDefined() ? authCompId.get(i) : labelCompId.get(i);
-      final String chainIdentifier =
-          authAsymId.isDefined() ? authAsymId.get(i) : labelAsymId.get(i);
       final int residueNumber = authSeqId.isDefined() ? authSeqId.get(i) : labelSeqId.get(i);
       final String insertionCode = pdbxPDBInsCode.isDefined() ? pdbxPDBInsCode.get(i) : "?";
       final double x = cartnX.get(i);
@@ -320,7 +448,6 @@ public final class CifParser {
       final String elementSymbol = typeSymbol.get(i);
       final String charge =
           pdbxFormalCharge.isDefined() ? Integer.toString(pdbxFormalCharge.get(i)) : "";
-      final int model = pdbxPDBModelNum.isDefined() ? pdbxPDBModelNum.get(i) : 1;
 
       final ImmutablePdbAtomLine atomLine =
           ImmutablePdbAtomLine.of(
@@ -340,6 +467,9 @@ public final class CifParser {
               temperatureFactor,
               elementSymbol,
               charge);
+      if (!atomFilter.acceptsAlternateLocation(model, atomLine)) {
+        continue;
+      }
 
       if (!modelAtoms.containsKey(model)) {
         modelAtoms.put(model, new ArrayList<>());
@@ -347,6 +477,8 @@ public final class CifParser {
 
       modelAtoms.get(model).add(atomLine);
     }
+
+    return modelAtoms;
   }
 
   private static boolean isEmpty(final String value) {
@@ -0,0 +1,816 @@
+package pl.poznan.put.pdb.analysis;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import pl.poznan.put.atom.AtomName;
+import pl.poznan.put.pdb.ImmutablePdbAtomLine;
+import pl.poznan.put.pdb.ImmutablePdbResidueIdentifier;
+import pl.poznan.put.pdb.PdbAtomLine;
+import pl.poznan.put.pdb.PdbExpdtaLine;
+import pl.poznan.put.pdb.PdbHeaderLine;
+import pl.poznan.put.pdb.PdbModresLine;
+import pl.poznan.put.pdb.PdbRemark2Line;
+import pl.poznan.put.pdb.PdbRemark465Line;
+import pl.poznan.put.pdb.PdbResidueIdentifier;
+
+/**
+ * A structure which stores its atoms in primitive columns instead of a list of objects.
+ * Coordinates, occupancy and temperature factor are kept in {@code double[]} arrays, textual fields
+ * are dictionary-encoded and (chain, number, icode) is kept once per residue. Instances of {@link
+ * PdbAtomLine} are created only when {@link #atoms()} elements are accessed. The detected residues
+ * are lightweight views over ranges of atom indices, which materialize atoms on demand as well. The
+ * residues and chains are computed once and cached.
+ */
+public final class ColumnarPdbModel extends AbstractPdbModel {
+  private static final int NONE = -1;
+
+  private final PdbHeaderLine header;
+  private final PdbExpdtaLine experimentalData;
+  private final PdbRemark2Line resolution;
+  private final int modelNumber;
+  private final List<PdbModresLine> modifiedResidues;
+  private final List<PdbRemark465Line> missingResidues;
+  private final String title;
+  private final Set<PdbResidueIdentifier> chainTerminatedAfter;
+
+  private final String[] dictionary;
+  private final double[] x;
+  private final double[] y;
+  private final double[] z;
+  private final double[] occupancy;
+  private final double[] temperatureFactor;
+  private final int[] serialNumber;
+  private final int[] residueIndex;
+  private final int[] atomNameCode;
+  private final AtomName[] atomNames;
+  private final int[] alternateLocationCode;
+  private final int[] residueNameCode;
+  private final int[] elementSymbolCode;
+  private final int[] chargeCode;
+  private final int[] residueChainCode;
+  private final int[] residueNumber;
+  private final int[] residueInsertionCode;
+
+  private transient volatile List<PdbResidue> residues;
+  private transient volatile List<PdbChain> chains;
+  private transient volatile ResidueIndex residueLookup;
+
+  ColumnarPdbModel(
+      final PdbHeaderLine header,
+      final PdbExpdtaLine experimentalData,
+      final PdbRemark2Line resolution,
+      final int modelNumber,
+      final List<PdbModresLine> modifiedResidues,
+      final List<PdbRemark465Line> missingResidues,
+      final String title,
+      final Set<PdbResidueIdentifier> chainTerminatedAfter,
+      final Columns columns) {
+    super();
+
+    this.header = header;
+    this.experimentalData = experimentalData;
+    this.resolution = resolution;
+    this.modelNumber = modelNumber;
+    this.modifiedResidues = Collections.unmodifiableList(new ArrayList<>(modifiedResidues));
+    this.missingResidues =
+        missingResidues.stream()
+            .filter(missing -> missing.modelNumber() == modelNumber)
+            .collect(
+                Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+    this.title = title;
+    this.chainTerminatedAfter =
+        Collections.unmodifiableSet(new LinkedHashSet<>(chainTerminatedAfter));
+
+    dictionary = columns.dictionary;
+    x = columns.x;
+    y = columns.y;
+    z = columns.z;
+    occupancy = columns.occupancy;
+    temperatureFactor = columns.temperatureFactor;
+    serialNumber = columns.serialNumber;
+    residueIndex = columns.residueIndex;
+    atomNameCode = columns.atomNameCode;
+    atomNames = columns.atomNames;
+    alternateLocationCode = columns.alternateLocationCode;
+    residueNameCode = columns.residueNameCode;
+    elementSymbolCode = columns.elementSymbolCode;
+    chargeCode = columns.chargeCode;
+    residueChainCode = columns.residueChainCode;
+    residueNumber = columns.residueNumber;
+    residueInsertionCode = columns.residueInsertionCode;
+  }
+
+  /**
+   * Creates a columnar copy of any structure.
+   *
+   * @param model The structure to copy.
+   * @return An instance with the same data, but atoms stored in primitive columns.
+   */
+  public static ColumnarPdbModel of(final PdbModel model) {
+    if (model instanceof ColumnarPdbModel) {
+      return (ColumnarPdbModel) model;
+    }
+    return ColumnarPdbModel.of(
+        model.header(),
+        model.experimentalData(),
+        model.resolution(),
+        model.modelNumber(),
+        model.atoms(),
+        model.modifiedResidues(),
+        model.missingResidues(),
+        model.title(),
+        model.chainTerminatedAfter());
+  }
+
+  /**
+   * Creates an instance with atoms encoded in primitive columns.
+   *
+   * @param header The structure header.
+   * @param experimentalData Details about experiment used to solve the structure.
+   * @param resolution Information about the experimental resolution.
+   * @param modelNumber Model number.
+   * @param atoms The list of atoms.
+   * @param modifiedResidues The list of modified residues.
+   * @param missingResidues The list of missing residues.
+   * @param title Structure title.
+   * @param chainTerminatedAfter The set of residues, after which the chain was terminated.
+   * @return An instance of this class.
+   */
+  public static ColumnarPdbModel of(
+      final PdbHeaderLine header,
+      final PdbExpdtaLine experimentalData,
+      final PdbRemark2Line resolution,
+      final int modelNumber,
+      final List<PdbAtomLine> atoms,
+      final List<PdbModresLine> modifiedResidues,
+      final List<PdbRemark465Line> missingResidues,
+      final String title,
+      final Set<PdbResidueIdentifier> chainTerminatedAfter) {
+    return new ColumnarPdbModel(
+        header,
+        experimentalData,
+        resolution,
+        modelNumber,
+        modifiedResidues,
+        missingResidues,
+        title,
+        chainTerminatedAfter,
+        Columns.encode(atoms));
+  }
+
+  @Override
+  public PdbHeaderLine header() {
+    return header;
+  }
+
+  @Override
+  public PdbExpdtaLine experimentalData() {
+    return experimentalData;
+  }
+
+  @Override
+  public PdbRemark2Line resolution() {
+    return resolution;
+  }
+
+  @Override
+  public int modelNumber() {
+    return modelNumber;
+  }
+
+  /**
+   * @return An unmodifiable view of atoms, in which each element is created on access.
+   */
+  @Override
+  public List<PdbAtomLine> atoms() {
+    return new AtomsView();
+  }
+
+  @Override
+  public List<PdbModresLine> modifiedResidues() {
+    return modifiedResidues;
+  }
+
+  @Override
+  public List<PdbRemark465Line> missingResidues() {
+    return missingResidues;
+  }
+
+  @Override
+  public String title() {
+    return title;
+  }
+
+  @Override
+  public Set<PdbResidueIdentifier> chainTerminatedAfter() {
+    return chainTerminatedAfter;
+  }
+
+  @Override
+  public List<PdbResidue> residues() {
+    List<PdbResidue> result = residues;
+    if (result == null) {
+      result = Collections.unmodifiableList(detectResidues());
+      residues = result;
+    }
+    return result;
+  }
+
+  @Override
+  public List<PdbChain> chains() {
+    List<PdbChain> result = chains;
+    if (result == null) {
+      result = Collections.unmodifiableList(super.chains());
+      chains = result;
+    }
+    return result;
+  }
+
+  @Override
+  public ResidueIndex residueIndex() {
+    ResidueIndex result = residueLookup;
+    if (result == null) {
+      result = super.residueIndex();
+      residueLookup = result;
+    }
+    return result;
+  }
+
+  @Override
+  public PdbModel filteredNewInstance(final MoleculeType moleculeType) {
+    return ColumnarPdbModel.of(
+        header,
+        experimentalData,
+        resolution,
+        modelNumber,
+        filteredAtoms(moleculeType),
+        modifiedResidues,
+        filteredMissing(moleculeType),
+        title,
+        chainTerminatedAfter);
+  }
+
+  /**
+   * @return The number of atoms.
+   */
+  public int atomCount() {
+    return x.length;
+  }
+
+  /**
+   * @param index Index of an atom.
+   * @return The x coordinate of the atom.
+   */
+  public double x(final int index) {
+    return x[index];
+  }
+
+  /**
+   * @param index Index of an atom.
+   * @return The y coordinate of the atom.
+   */
+  public double y(final int index) {
+    return y[index];
+  }
+
+  /**
+   * @param index Index of an atom.
+   * @return The z coordinate of the atom.
+   */
+  public double z(final int index) {
+    return z[index];
+  }
+
+  /**
+   * @param index Index of an atom.
+   * @return The detected atom name.
+   */
+  public AtomName atomName(final int index) {
+    return atomNames[atomNameCode[index]];
+  }
+
+  /**
+   * @param index Index of an atom.
+   * @return The index of (chain, number, icode) group the atom belongs to, in the order of first
+   *     appearance in the list of atoms.
+   */
+  public int residueIndex(final int index) {
+    return residueIndex[index];
+  }
+
+  /**
+   * Estimates the number of bytes occupied by the columns. The estimation includes the arrays and
+   * the dictionary, but not the metadata shared with other representations (header, modified and
+   * missing residues).
+   *
+   * @return Approximate size of atom data in bytes.
+   */
+  public long estimatedColumnsSize() {
+    final long arrayHeader = 16L;
+    long size = 0L;
+    size += 5L * (arrayHeader + 8L * x.length);
+    size += 7L * (arrayHeader + 4L * x.length);
+    size += 3L * (arrayHeader + 4L * residueNumber.length);
+    size += 2L * (arrayHeader + 4L * dictionary.length);
+    for (final String value : dictionary) {
+      size += 40L + value.length();
+    }
+    return size;
+  }
+
+  // the same as AbstractPdbModel.residues(), but atom groups are taken from residueIndex column
+  private List<PdbResidue> detectResidues() {
+    // atoms of each (chain, number, icode) group in the input order: group r has atoms
+    // order[starts[r]], ..., order[starts[r + 1] - 1]
+    final int residueCount = residueNumber.length;
+    final int[] starts = new int[residueCount + 1];
+    for (final int residue : residueIndex) {
+      starts[residue + 1]++;
+    }
+    for (int i = 0; i < residueCount; i++) {
+      starts[i + 1] += starts[i];
+    }
+    final int[] order = new int[residueIndex.length];
+    final int[] next = Arrays.copyOf(starts, residueCount);
+    for (int i = 0; i < residueIndex.length; i++) {
+      order[next[residueIndex[i]]++] = i;
+    }
+
+    final Map<String, Integer> chainRanks = new HashMap<>();
+    final Map<PdbResidueIdentifier, PdbModresLine> modifications = firstModifications();
+    final List<PdbResidue> result = new ArrayList<>(residueCount);
+    for (int residue = 0; residue < residueCount; residue++) {
+      final PdbResidueIdentifier identifier =
+          ImmutablePdbResidueIdentifier.of(
+              decode(residueChainCode[residue]),
+              residueNumber[residue],
+              decodeOptional(residueInsertionCode[residue]));
+      chainRanks.putIfAbsent(identifier.chainIdentifier(), chainRanks.size());
+
+      final String residueName = decode(residueNameCode[order[starts[residue]]]);
+      final PdbModresLine modification = modifications.get(identifier);
+      final String modifiedResidueName =
+          (modification == null) ? residueName : modification.standardResidueName();
+      final PdbResidue view =
+          new ResidueView(
+              identifier,
+              residueName,
+              modifiedResidueName,
+              order,
+              starts[residue],
+              starts[residue + 1]);
+      if (view.residueInformationProvider().moleculeType() != MoleculeType.UNKNOWN) {
+        result.add(view);
+      }
+    }
+
+    addMissingAndSort(result, chainRanks);
+    return result;
+  }
+
+  private String decode(final int code) {
+    return dictionary[code];
+  }
+
+  private Optional<String> decodeOptional(final int code) {
+    return (code == ColumnarPdbModel.NONE) ? Optional.empty() : Optional.of(dictionary[code]);
+  }
+
+  private PdbAtomLine materialize(final int index) {
+    final int residue = residueIndex[index];
+    return ImmutablePdbAtomLine.of(
+        serialNumber[index],
+        decode(atomNameCode[index]),
+        decodeOptional(alternateLocationCode[index]),
+        decode(residueNameCode[index]),
+        decode(residueChainCode[residue]),
+        residueNumber[residue],
+        decodeOptional(residueInsertionCode[residue]),
+        x[index],
+        y[index],
+        z[index],
+        occupancy[index],
+        temperatureFactor[index],
+        decode(elementSymbolCode[index]),
+        decode(chargeCode[index]));
+  }
+
+  /** A read-only list which materializes atoms on access. */
+  private final class AtomsView extends AbstractList<PdbAtomLine> {
+    @Override
+    public PdbAtomLine get(final int index) {
+      return materialize(index);
+    }
+
+    @Override
+    public int size() {
+      return x.length;
+    }
+  }
+
+  /**
+   * A residue which keeps only a range of atom indices. Atoms are materialized on access, while the
+   * detected type and the index of atom names are computed once.
+   */
+  private final class ResidueView implements PdbResidue {
+    private final PdbResidueIdentifier identifier;
+    private final String standardResidueName;
+    private final String modifiedResidueName;
+    private final int[] order;
+    private final int start;
+    private final int end;
+
+    private volatile ResidueInformationProvider residueInformationProvider;
+    private volatile ResidueAtomIndex atomIndex;
+
+    private ResidueView(
+        final PdbResidueIdentifier identifier,
+        final String standardResidueName,
+        final String modifiedResidueName,
+        final int[] order,
+        final int start,
+        final int end) {
+      super();
+      this.identifier = identifier;
+      this.standardResidueName = standardResidueName;
+      this.modifiedResidueName = modifiedResidueName;
+      this.order = order;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public PdbResidueIdentifier identifier() {
+      return identifier;
+    }
+
+    @Override
+    public String standardResidueName() {
+      return standardResidueName;
+    }
+
+    @Override
+    public String modifiedResidueName() {
+      return modifiedResidueName;
+    }
+
+    @Override
+    public List<PdbAtomLine> atoms() {
+      return new AbstractList<>() {
+        @Override
+        public PdbAtomLine get(final int index) {
+          Objects.checkIndex(index, end - start);
+          return materialize(order[start + index]);
+        }
+
+        @Override
+        public int size() {
+          return end - start;
+        }
+      };
+    }
+
+    @Override
+    public boolean isMissing() {
+      return false;
+    }
+
+    @Override
+    public ResidueInformationProvider residueInformationProvider() {
+      ResidueInformationProvider result = residueInformationProvider;
+      if (result == null) {
+        result = PdbResidue.super.residueInformationProvider();
+        residueInformationProvider = result;
+      }
+      return result;
+    }
+
+    @Override
+    public ResidueAtomIndex atomIndex() {
+      ResidueAtomIndex result = atomIndex;
+      if (result == null) {
+        result = ResidueAtomIndex.of(atoms());
+        atomIndex = result;
+      }
+      return result;
+    }
+
+    // equal to any residue with the same data, e.g. the one detected by AbstractPdbModel
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof PdbResidue)) {
+        return false;
+      }
+      final PdbResidue other = (PdbResidue) o;
+      return identifier.equals(other.identifier())
+          && standardResidueName.equals(other.standardResidueName())
+          && modifiedResidueName.equals(other.modifiedResidueName())
+          && atoms().equals(other.atoms());
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(identifier, standardResidueName, modifiedResidueName);
+    }
+
+    @Override
+    public String toString() {
+      return identifier.chainIdentifier()
+          + '.'
+          + modifiedResidueName
+          + identifier.residueNumber()
+          + identifier.insertionCode().orElse("");
+    }
+  }
+
+  /** Primitive columns built from a list of atoms. */
+  static final class Columns {
+    private final String[] dictionary;
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final double[] occupancy;
+    private final double[] temperatureFactor;
+    private final int[] serialNumber;
+    private final int[] residueIndex;
+    private final int[] atomNameCode;
+    private final AtomName[] atomNames;
+    private final int[] alternateLocationCode;
+    private final int[] residueNameCode;
+    private final int[] elementSymbolCode;
+    private final int[] chargeCode;
+    private final int[] residueChainCode;
+    private final int[] residueNumber;
+    private final int[] residueInsertionCode;
+
+    Columns(
+        final String[] dictionary,
+        final double[] x,
+        final double[] y,
+        final double[] z,
+        final double[] occupancy,
+        final double[] temperatureFactor,
+        final int[] serialNumber,
+        final int[] residueIndex,
+        final int[] atomNameCode,
+        final int[] alternateLocationCode,
+        final int[] residueNameCode,
+        final int[] elementSymbolCode,
+        final int[] chargeCode,
+        final int[] residueChainCode,
+        final int[] residueNumber,
+        final int[] residueInsertionCode) {
+      super();
+      this.dictionary = dictionary;
+      this.x = x;
+      this.y = y;
+      this.z = z;
+      this.occupancy = occupancy;
+      this.temperatureFactor = temperatureFactor;
+      this.serialNumber = serialNumber;
+      this.residueIndex = residueIndex;
+      this.atomNameCode = atomNameCode;
+      this.alternateLocationCode = alternateLocationCode;
+      this.residueNameCode = residueNameCode;
+      this.elementSymbolCode = elementSymbolCode;
+      this.chargeCode = chargeCode;
+      this.residueChainCode = residueChainCode;
+      this.residueNumber = residueNumber;
+      this.residueInsertionCode = residueInsertionCode;
+
+      // atom names are detected once per dictionary entry, not once per atom
+      atomNames = new AtomName[dictionary.length];
+      for (final int code : atomNameCode) {
+        if (atomNames[code] == null) {
+          atomNames[code] = AtomName.fromString(dictionary[code]);
+        }
+      }
+    }
+
+    static Columns encode(final List<PdbAtomLine> atoms) {
+      final int size = atoms.size();
+      final Map<String, Integer> codes = new HashMap<>();
+      final List<String> dictionary = new ArrayList<>();
+      final Map<PdbResidueIdentifier, Integer> residueIndices = new LinkedHashMap<>();
+
+      final double[] x = new double[size];
+      final double[] y = new double[size];
+      final double[] z = new double[size];
+      final double[] occupancy = new double[size];
+      final double[] temperatureFactor = new double[size];
+      final int[] serialNumber = new int[size];
+      final int[] residueIndex = new int[size];
+      final int[] atomNameCode = new int[size];
+      final int[] alternateLocationCode = new int[size];
+      final int[] residueNameCode = new int[size];
+      final int[] elementSymbolCode = new int[size];
+      final int[] chargeCode = new int[size];
+
+      for (int i = 0; i < size; i++) {
+        final PdbAtomLine atom = atoms.get(i);
+        x[i] = atom.x();
+        y[i] = atom.y();
+        z[i] = atom.z();
+        occupancy[i] = atom.occupancy();
+        temperatureFactor[i] = atom.temperatureFactor();
+        serialNumber[i] = atom.serialNumber();
+        residueIndex[i] =
+            residueIndices.computeIfAbsent(
+                PdbResidueIdentifier.from(atom), identifier -> residueIndices.size());
+        atomNameCode[i] = Columns.code(atom.atomName(), codes, dictionary);
+        alternateLocationCode[i] =
+            atom.alternateLocation()
+                .map(value -> Columns.code(value, codes, dictionary))
+                .orElse(ColumnarPdbModel.NONE);
+        residueNameCode[i] = Columns.code(atom.residueName(), codes, dictionary);
+        elementSymbolCode[i] = Columns.code(atom.elementSymbol(), codes, dictionary);
+        chargeCode[i] = Columns.code(atom.charge(), codes, dictionary);
+      }
+
+      final int residueCount = residueIndices.size();
+      final int[] residueChainCode = new int[residueCount];
+      final int[] residueNumber = new int[residueCount];
+      final int[] residueInsertionCode = new int[residueCount];
+      for (final Map.Entry<PdbResidueIdentifier, Integer> entry : residueIndices.entrySet()) {
+        final PdbResidueIdentifier identifier = entry.getKey();
+        final int index = entry.getValue();
+        residueChainCode[index] = Columns.code(identifier.chainIdentifier(), codes, dictionary);
+        residueNumber[index] = identifier.residueNumber();
+        residueInsertionCode[index] =
+            identifier
+                .insertionCode()
+                .map(value -> Columns.code(value, codes, dictionary))
+                .orElse(ColumnarPdbModel.NONE);
+      }
+
+      return new Columns(
+          dictionary.toArray(new String[0]),
+          x,
+          y,
+          z,
+          occupancy,
+          temperatureFactor,
+          serialNumber,
+          residueIndex,
+          atomNameCode,
+          alternateLocationCode,
+          residueNameCode,
+          elementSymbolCode,
+          chargeCode,
+          residueChainCode,
+          residueNumber,
+          residueInsertionCode);
+    }
+
+    static Columns read(final ByteBuffer buffer) throws IOException {
+      final String[] dictionary = new String[ModelSnapshot.readCount(buffer, Integer.BYTES)];
+      for (int i = 0; i < dictionary.length; i++) {
+        dictionary[i] = ModelSnapshot.readString(buffer);
+      }
+
+      // each atom takes 5 doubles and 7 ints, each residue takes 3 ints
+      final int size = ModelSnapshot.readCount(buffer, 5 * Double.BYTES + 7 * Integer.BYTES);
+      final int residueCount = ModelSnapshot.readCount(buffer, 3 * Integer.BYTES);
+      final double[] x = Columns.readDoubles(buffer, size);
+      final double[] y = Columns.readDoubles(buffer, size);
+      final double[] z = Columns.readDoubles(buffer, size);
+      final double[] occupancy = Columns.readDoubles(buffer, size);
+      final double[] temperatureFactor = Columns.readDoubles(buffer, size);
+      final int[] serialNumber = Columns.readInts(buffer, size);
+      final int[] residueIndex = Columns.readInts(buffer, size);
+      final int[] atomNameCode = Columns.readInts(buffer, size);
+      final int[] alternateLocationCode = Columns.readInts(buffer, size);
+      final int[] residueNameCode = Columns.readInts(buffer, size);
+      final int[] elementSymbolCode = Columns.readInts(buffer, size);
+      final int[] chargeCode = Columns.readInts(buffer, size);
+      final int[] residueChainCode = Columns.readInts(buffer, residueCount);
+      final int[] residueNumber = Columns.readInts(buffer, residueCount);
+      final int[] residueInsertionCode = Columns.readInts(buffer, residueCount);
+
+      final int codes = dictionary.length;
+      for (final int[] values :
+          new int[][] {
+            atomNameCode, residueNameCode, elementSymbolCode, chargeCode, residueChainCode
+          }) {
+        Columns.checkRange(values, 0, codes, "dictionary code");
+      }
+      for (final int[] values : new int[][] {alternateLocationCode, residueInsertionCode}) {
+        Columns.checkRange(values, ColumnarPdbModel.NONE, codes, "dictionary code");
+      }
+      Columns.checkRange(residueIndex, 0, residueCount, "residue index");
+
+      // each residue must have at least one atom, like in encode()
+      final boolean[] used = new boolean[residueCount];
+      for (final int residue : residueIndex) {
+        used[residue] = true;
+      }
+      for (int i = 0; i < residueCount; i++) {
+        if (!used[i]) {
+          throw new IOException("Residue without atoms in model snapshot: " + i);
+        }
+      }
+
+      return new Columns(
+          dictionary,
+          x,
+          y,
+          z,
+          occupancy,
+          temperatureFactor,
+          serialNumber,
+          residueIndex,
+          atomNameCode,
+          alternateLocationCode,
+          residueNameCode,
+          elementSymbolCode,
+          chargeCode,
+          residueChainCode,
+          residueNumber,
+          residueInsertionCode);
+    }
+
+    // all values must be in [from, to)
+    private static void checkRange(
+        final int[] values, final int from, final int to, final String description)
+        throws IOException {
+      for (final int value : values) {
+        if (value < from || value >= to) {
+          throw new IOException("Invalid " + description + " in model snapshot: " + value);
+        }
+      }
+    }
+
+    private static double[] readDoubles(final ByteBuffer buffer, final int size) {
+      final double[] values = new double[size];
+      buffer.asDoubleBuffer().get(values);
+      buffer.position(buffer.position() + Double.BYTES * size);
+      return values;
+    }
+
+    private static int[] readInts(final ByteBuffer buffer, final int size) {
+      final int[] values = new int[size];
+      buffer.asIntBuffer().get(values);
+      buffer.position(buffer.position() + Integer.BYTES * size);
+      return values;
+    }
+
+    void write(final DataOutput output) throws IOException {
+      output.writeInt(dictionary.length);
+      for (final String value : dictionary) {
+        ModelSnapshot.writeString(output, value);
+      }
+
+      output.writeInt(x.length);
+      output.writeInt(residueNumber.length);
+      for (final double[] values : new double[][] {x, y, z, occupancy, temperatureFactor}) {
+        for (final double value : values) {
+          output.writeDouble(value);
+        }
+      }
+      for (final int[] values :
+          new int[][] {
+            serialNumber,
+            residueIndex,
+            atomNameCode,
+            alternateLocationCode,
+            residueNameCode,
+            elementSymbolCode,
+            chargeCode,
+            residueChainCode,
+            residueNumber,
+            residueInsertionCode
+          }) {
+        for (final int value : values) {
+          output.writeInt(value);
+        }
+      }
+    }
+
+    private static int code(
+        final String value, final Map<String, Integer> codes, final List<String> dictionary) {
+      return codes.computeIfAbsent(
+          value,
+          key -> {
+            dictionary.add(key);
+            return dictionary.size() - 1;
+          });
+    }
+  }
+}
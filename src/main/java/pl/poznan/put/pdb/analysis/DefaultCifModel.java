@@ -97,6 +97,12 @@ public abstract class DefaultCifModel extends AbstractPdbModel implements CifMod
     return super.residues();
   }
 
+  @Override
+  @Value.Lazy
+  public ResidueIndex residueIndex() {
+    return super.residueIndex();
+  }
+
   @Value.Check
   public DefaultCifModel normalize() {
     Validate.notEmpty(atoms());
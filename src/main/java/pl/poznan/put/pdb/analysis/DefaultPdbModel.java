@@ -116,6 +116,12 @@ public abstract class DefaultPdbModel extends AbstractPdbModel {
     return super.residues();
   }
 
+  @Override
+  @Value.Lazy
+  public ResidueIndex residueIndex() {
+    return super.residueIndex();
+  }
+
   @Value.Check
   protected DefaultPdbModel normalize() {
     Validate.notEmpty(atoms());
@@ -3,9 +3,7 @@ package pl.poznan.put.pdb.analysis;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import java.util.List;
-import java.util.Set;
 import org.immutables.value.Value;
-import pl.poznan.put.atom.AtomName;
 import pl.poznan.put.pdb.PdbAtomLine;
 import pl.poznan.put.pdb.PdbResidueIdentifier;
 
@@ -38,8 +36,8 @@ public abstract class DefaultPdbResidue implements PdbResidue {
 
   @Override
   @Value.Lazy
-  public Set<AtomName> atomNames() {
-    return PdbResidue.super.atomNames();
+  public ResidueAtomIndex atomIndex() {
+    return PdbResidue.super.atomIndex();
   }
 
   @Override
@@ -48,6 +46,12 @@ public abstract class DefaultPdbResidue implements PdbResidue {
     return PdbResidue.super.hasAllHeavyAtoms();
   }
 
+  @Override
+  @Value.Lazy
+  public boolean isModified() {
+    return PdbResidue.super.isModified();
+  }
+
   @Override
   public final String toString() {
     final String chainIdentifier = identifier().chainIdentifier();
@@ -13,4 +13,10 @@ public abstract class DefaultResidueCollection implements ResidueCollection {
   @Override
   @Value.Parameter(order = 1)
   public abstract List<PdbResidue> residues();
+
+  @Override
+  @Value.Lazy
+  public ResidueIndex residueIndex() {
+    return ResidueCollection.super.residueIndex();
+  }
 }
@@ -0,0 +1,452 @@
+package pl.poznan.put.pdb.analysis;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import pl.poznan.put.notation.LeontisWesthof;
+import pl.poznan.put.notation.Saenger;
+import pl.poznan.put.pdb.ExperimentalTechnique;
+import pl.poznan.put.pdb.ImmutablePdbExpdtaLine;
+import pl.poznan.put.pdb.ImmutablePdbHeaderLine;
+import pl.poznan.put.pdb.ImmutablePdbModresLine;
+import pl.poznan.put.pdb.ImmutablePdbNamedResidueIdentifier;
+import pl.poznan.put.pdb.ImmutablePdbRemark2Line;
+import pl.poznan.put.pdb.ImmutablePdbRemark465Line;
+import pl.poznan.put.pdb.ImmutablePdbResidueIdentifier;
+import pl.poznan.put.pdb.PdbExpdtaLine;
+import pl.poznan.put.pdb.PdbHeaderLine;
+import pl.poznan.put.pdb.PdbModresLine;
+import pl.poznan.put.pdb.PdbNamedResidueIdentifier;
+import pl.poznan.put.pdb.PdbRemark2Line;
+import pl.poznan.put.pdb.PdbRemark465Line;
+import pl.poznan.put.pdb.PdbResidueIdentifier;
+import pl.poznan.put.structure.ImmutableBasePair;
+import pl.poznan.put.structure.ImmutableQuantifiedBasePair;
+import pl.poznan.put.structure.QuantifiedBasePair;
+
+/**
+ * A compact binary format of parsed models, meant as a cache of text parsing results. A snapshot
+ * starts with a magic number and a format version, followed by the list of models. For each model
+ * there are its metadata, modified and missing residues, residues after which chains were
+ * terminated and the atoms as a table of distinct strings plus primitive blocks of coordinates and
+ * dictionary codes (see {@link ColumnarPdbModel}). For {@link CifModel}, base pairs are stored as
+ * well.
+ *
+ * <p>Snapshots are read with a memory-mapped file. Models from PDB are restored as {@link
+ * ColumnarPdbModel}, which creates atom objects only on access. Models from mmCIF are restored as
+ * {@link CifModel} with the same content.
+ */
+public final class ModelSnapshot {
+  private static final int MAGIC = 0x42434d53; // "BCMS"
+  private static final int VERSION = 1;
+  private static final byte KIND_PDB = 0;
+  private static final byte KIND_CIF = 1;
+  private static final int NONE = -1;
+
+  private ModelSnapshot() {
+    super();
+  }
+
+  /**
+   * Writes models to a file.
+   *
+   * @param models The list of models to store.
+   * @param path The path of the output file.
+   * @throws IOException When writing fails.
+   */
+  public static void write(final List<? extends PdbModel> models, final Path path)
+      throws IOException {
+    try (final OutputStream stream = new BufferedOutputStream(Files.newOutputStream(path))) {
+      ModelSnapshot.write(models, stream);
+    }
+  }
+
+  /**
+   * Writes models to a stream. The stream is not closed by this method.
+   *
+   * @param models The list of models to store.
+   * @param stream The output stream.
+   * @throws IOException When writing fails.
+   */
+  public static void write(final List<? extends PdbModel> models, final OutputStream stream)
+      throws IOException {
+    final DataOutputStream output = new DataOutputStream(stream);
+    output.writeInt(ModelSnapshot.MAGIC);
+    output.writeInt(ModelSnapshot.VERSION);
+    output.writeInt(models.size());
+    for (final PdbModel model : models) {
+      ModelSnapshot.writeModel(output, model);
+    }
+    output.flush();
+  }
+
+  /**
+   * @param models The list of models to store.
+   * @return The snapshot as an array of bytes.
+   */
+  public static byte[] toBytes(final List<? extends PdbModel> models) {
+    try {
+      final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      ModelSnapshot.write(models, stream);
+      return stream.toByteArray();
+    } catch (final IOException e) {
+      throw new IllegalStateException("Failed to write to memory", e);
+    }
+  }
+
+  /**
+   * Reads models from a file. The file is memory-mapped, so only the parts which are actually
+   * decoded are loaded from the disk.
+   *
+   * @param path The path of a snapshot file.
+   * @return The list of models in the order in which they were written.
+   * @throws IOException When the file cannot be read or is not a valid snapshot.
+   */
+  public static List<PdbModel> read(final Path path) throws IOException {
+    try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final MappedByteBuffer buffer =
+          channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+      return ModelSnapshot.read(buffer);
+    }
+  }
+
+  /**
+   * Reads models from a buffer, starting at its current position.
+   *
+   * @param buffer The buffer with a snapshot.
+   * @return The list of models in the order in which they were written.
+   * @throws IOException When the data is not a valid snapshot.
+   */
+  public static List<PdbModel> read(final ByteBuffer buffer) throws IOException {
+    try {
+      if (buffer.getInt() != ModelSnapshot.MAGIC) {
+        throw new IOException("Data is not a model snapshot");
+      }
+      final int version = buffer.getInt();
+      if (version != ModelSnapshot.VERSION) {
+        throw new IOException("Unsupported model snapshot version: " + version);
+      }
+
+      final int count = ModelSnapshot.readCount(buffer, 1);
+      final List<PdbModel> models = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        models.add(ModelSnapshot.readModel(buffer));
+      }
+      return models;
+    } catch (final BufferUnderflowException e) {
+      throw new IOException("Model snapshot is truncated", e);
+    }
+  }
+
+  /**
+   * @param bytes The snapshot as an array of bytes.
+   * @return The list of models in the order in which they were written.
+   * @throws IOException When the data is not a valid snapshot.
+   */
+  public static List<PdbModel> fromBytes(final byte[] bytes) throws IOException {
+    return ModelSnapshot.read(ByteBuffer.wrap(bytes));
+  }
+
+  static void writeString(final DataOutput output, final String value) throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  static String readString(final ByteBuffer buffer) throws IOException {
+    final Optional<String> value = ModelSnapshot.readOptionalString(buffer);
+    if (value.isEmpty()) {
+      throw new IOException("Missing string in model snapshot");
+    }
+    return value.get();
+  }
+
+  // the count must not exceed the number of items which fit in the remaining bytes
+  static int readCount(final ByteBuffer buffer, final int itemBytes) throws IOException {
+    final int count = buffer.getInt();
+    if (count < 0 || count > buffer.remaining() / itemBytes) {
+      throw new IOException("Invalid count in model snapshot: " + count);
+    }
+    return count;
+  }
+
+  private static <E extends Enum<E>> E readEnum(final ByteBuffer buffer, final Class<E> type)
+      throws IOException {
+    final String name = ModelSnapshot.readString(buffer);
+    try {
+      return Enum.valueOf(type, name);
+    } catch (final IllegalArgumentException e) {
+      throw new IOException("Unknown value of " + type.getSimpleName() + ": " + name, e);
+    }
+  }
+
+  private static void writeOptionalString(final DataOutput output, final Optional<String> value)
+      throws IOException {
+    if (value.isPresent()) {
+      ModelSnapshot.writeString(output, value.get());
+    } else {
+      output.writeInt(ModelSnapshot.NONE);
+    }
+  }
+
+  private static Optional<String> readOptionalString(final ByteBuffer buffer) throws IOException {
+    final int length = buffer.getInt();
+    if (length == ModelSnapshot.NONE) {
+      return Optional.empty();
+    }
+    if (length < 0 || length > buffer.remaining()) {
+      throw new IOException("Invalid string length in model snapshot: " + length);
+    }
+    final byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return Optional.of(new String(bytes, StandardCharsets.UTF_8));
+  }
+
+  private static void writeModel(final DataOutput output, final PdbModel model) throws IOException {
+    final boolean isCif = model instanceof CifModel;
+    output.writeByte(isCif ? ModelSnapshot.KIND_CIF : ModelSnapshot.KIND_PDB);
+
+    final PdbHeaderLine header = model.header();
+    ModelSnapshot.writeString(output, header.classification());
+    output.writeLong(header.depositionDate().getTime());
+    ModelSnapshot.writeString(output, header.idCode());
+
+    final List<ExperimentalTechnique> techniques =
+        model.experimentalData().experimentalTechniques();
+    output.writeInt(techniques.size());
+    for (final ExperimentalTechnique technique : techniques) {
+      ModelSnapshot.writeString(output, technique.name());
+    }
+
+    output.writeDouble(model.resolution().resolution());
+    output.writeInt(model.modelNumber());
+    ModelSnapshot.writeString(output, model.title());
+
+    output.writeInt(model.modifiedResidues().size());
+    for (final PdbModresLine modified : model.modifiedResidues()) {
+      ModelSnapshot.writeString(output, modified.idCode());
+      ModelSnapshot.writeString(output, modified.residueName());
+      ModelSnapshot.writeIdentifier(
+          output, modified.chainIdentifier(), modified.residueNumber(), modified.insertionCode());
+      ModelSnapshot.writeString(output, modified.standardResidueName());
+      ModelSnapshot.writeString(output, modified.comment());
+    }
+
+    output.writeInt(model.missingResidues().size());
+    for (final PdbRemark465Line missing : model.missingResidues()) {
+      output.writeInt(missing.modelNumber());
+      ModelSnapshot.writeString(output, missing.residueName());
+      ModelSnapshot.writeIdentifier(
+          output, missing.chainIdentifier(), missing.residueNumber(), missing.insertionCode());
+    }
+
+    output.writeInt(model.chainTerminatedAfter().size());
+    for (final PdbResidueIdentifier identifier : model.chainTerminatedAfter()) {
+      ModelSnapshot.writeIdentifier(
+          output,
+          identifier.chainIdentifier(),
+          identifier.residueNumber(),
+          identifier.insertionCode());
+    }
+
+    ColumnarPdbModel.Columns.encode(model.atoms()).write(output);
+
+    if (isCif) {
+      ModelSnapshot.writeBasePairs(output, ((CifModel) model).basePairs());
+    }
+  }
+
+  private static void writeBasePairs(
+      final DataOutput output, final Collection<QuantifiedBasePair> basePairs) throws IOException {
+    output.writeInt(basePairs.size());
+    for (final QuantifiedBasePair basePair : basePairs) {
+      ModelSnapshot.writeNamedIdentifier(output, basePair.basePair().left());
+      ModelSnapshot.writeNamedIdentifier(output, basePair.basePair().right());
+      output.writeDouble(basePair.shear());
+      output.writeDouble(basePair.stretch());
+      output.writeDouble(basePair.stagger());
+      output.writeDouble(basePair.buckle());
+      output.writeDouble(basePair.propeller());
+      output.writeDouble(basePair.opening());
+      ModelSnapshot.writeString(output, basePair.saenger().name());
+      ModelSnapshot.writeString(output, basePair.leontisWesthof().name());
+    }
+  }
+
+  private static void writeNamedIdentifier(
+      final DataOutput output, final PdbNamedResidueIdentifier identifier) throws IOException {
+    ModelSnapshot.writeIdentifier(
+        output,
+        identifier.chainIdentifier(),
+        identifier.residueNumber(),
+        identifier.insertionCode());
+    output.writeChar(identifier.oneLetterName());
+  }
+
+  private static void writeIdentifier(
+      final DataOutput output,
+      final String chainIdentifier,
+      final int residueNumber,
+      final Optional<String> insertionCode)
+      throws IOException {
+    ModelSnapshot.writeString(output, chainIdentifier);
+    output.writeInt(residueNumber);
+    ModelSnapshot.writeOptionalString(output, insertionCode);
+  }
+
+  private static PdbModel readModel(final ByteBuffer buffer) throws IOException {
+    final byte kind = buffer.get();
+    if (kind != ModelSnapshot.KIND_PDB && kind != ModelSnapshot.KIND_CIF) {
+      throw new IOException("Unknown kind of model in snapshot: " + kind);
+    }
+
+    final String classification = ModelSnapshot.readString(buffer);
+    final Date depositionDate = new Date(buffer.getLong());
+    final String idCode = ModelSnapshot.readString(buffer);
+    final PdbHeaderLine header = ImmutablePdbHeaderLine.of(classification, depositionDate, idCode);
+
+    final int techniqueCount = ModelSnapshot.readCount(buffer, Integer.BYTES);
+    final List<ExperimentalTechnique> techniques = new ArrayList<>(techniqueCount);
+    for (int i = 0; i < techniqueCount; i++) {
+      techniques.add(ModelSnapshot.readEnum(buffer, ExperimentalTechnique.class));
+    }
+    final PdbExpdtaLine experimentalData = ImmutablePdbExpdtaLine.of(techniques);
+
+    final PdbRemark2Line resolution = ImmutablePdbRemark2Line.of(buffer.getDouble());
+    final int modelNumber = buffer.getInt();
+    final String title = ModelSnapshot.readString(buffer);
+
+    final int modifiedCount = ModelSnapshot.readCount(buffer, Integer.BYTES);
+    final List<PdbModresLine> modifiedResidues = new ArrayList<>(modifiedCount);
+    for (int i = 0; i < modifiedCount; i++) {
+      final String modifiedIdCode = ModelSnapshot.readString(buffer);
+      final String residueName = ModelSnapshot.readString(buffer);
+      final PdbResidueIdentifier identifier = ModelSnapshot.readIdentifier(buffer);
+      final String standardResidueName = ModelSnapshot.readString(buffer);
+      final String comment = ModelSnapshot.readString(buffer);
+      modifiedResidues.add(
+          ImmutablePdbModresLine.of(
+              modifiedIdCode,
+              residueName,
+              identifier.chainIdentifier(),
+              identifier.residueNumber(),
+              identifier.insertionCode(),
+              standardResidueName,
+              comment));
+    }
+
+    final int missingCount = ModelSnapshot.readCount(buffer, Integer.BYTES);
+    final List<PdbRemark465Line> missingResidues = new ArrayList<>(missingCount);
+    for (int i = 0; i < missingCount; i++) {
+      final int missingModelNumber = buffer.getInt();
+      final String residueName = ModelSnapshot.readString(buffer);
+      final PdbResidueIdentifier identifier = ModelSnapshot.readIdentifier(buffer);
+      missingResidues.add(
+          ImmutablePdbRemark465Line.of(
+              missingModelNumber,
+              residueName,
+              identifier.chainIdentifier(),
+              identifier.residueNumber(),
+              identifier.insertionCode()));
+    }
+
+    final int terminatedCount = ModelSnapshot.readCount(buffer, Integer.BYTES);
+    final Set<PdbResidueIdentifier> chainTerminatedAfter = new LinkedHashSet<>();
+    for (int i = 0; i < terminatedCount; i++) {
+      chainTerminatedAfter.add(ModelSnapshot.readIdentifier(buffer));
+    }
+
+    final ColumnarPdbModel columnar =
+        new ColumnarPdbModel(
+            header,
+            experimentalData,
+            resolution,
+            modelNumber,
+            modifiedResidues,
+            missingResidues,
+            title,
+            chainTerminatedAfter,
+            ColumnarPdbModel.Columns.read(buffer));
+
+    if (kind == ModelSnapshot.KIND_PDB) {
+      return columnar;
+    }
+
+    return ImmutableDefaultCifModel.of(
+        header,
+        experimentalData,
+        resolution,
+        modelNumber,
+        new ArrayList<>(columnar.atoms()),
+        modifiedResidues,
+        missingResidues,
+        title,
+        chainTerminatedAfter,
+        ModelSnapshot.readBasePairs(buffer));
+  }
+
+  private static List<QuantifiedBasePair> readBasePairs(final ByteBuffer buffer)
+      throws IOException {
+    final int count = ModelSnapshot.readCount(buffer, Integer.BYTES);
+    final List<QuantifiedBasePair> basePairs = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      final PdbNamedResidueIdentifier left = ModelSnapshot.readNamedIdentifier(buffer);
+      final PdbNamedResidueIdentifier right = ModelSnapshot.readNamedIdentifier(buffer);
+      final double shear = buffer.getDouble();
+      final double stretch = buffer.getDouble();
+      final double stagger = buffer.getDouble();
+      final double buckle = buffer.getDouble();
+      final double propeller = buffer.getDouble();
+      final double opening = buffer.getDouble();
+      final Saenger saenger = ModelSnapshot.readEnum(buffer, Saenger.class);
+      final LeontisWesthof leontisWesthof = ModelSnapshot.readEnum(buffer, LeontisWesthof.class);
+      basePairs.add(
+          ImmutableQuantifiedBasePair.of(
+                  ImmutableBasePair.of(left, right),
+                  shear,
+                  stretch,
+                  stagger,
+                  buckle,
+                  propeller,
+                  opening)
+              .withSaenger(saenger)
+              .withLeontisWesthof(leontisWesthof));
+    }
+    return basePairs;
+  }
+
+  private static PdbNamedResidueIdentifier readNamedIdentifier(final ByteBuffer buffer)
+      throws IOException {
+    final PdbResidueIdentifier identifier = ModelSnapshot.readIdentifier(buffer);
+    return ImmutablePdbNamedResidueIdentifier.of(
+        identifier.chainIdentifier(),
+        identifier.residueNumber(),
+        identifier.insertionCode(),
+        buffer.getChar());
+  }
+
+  private static PdbResidueIdentifier readIdentifier(final ByteBuffer buffer) throws IOException {
+    final String chainIdentifier = ModelSnapshot.readString(buffer);
+    final int residueNumber = buffer.getInt();
+    final Optional<String> insertionCode = ModelSnapshot.readOptionalString(buffer);
+    return ImmutablePdbResidueIdentifier.of(chainIdentifier, residueNumber, insertionCode);
+  }
+}
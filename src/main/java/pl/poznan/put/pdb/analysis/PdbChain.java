@@ -21,6 +21,12 @@ public abstract class PdbChain implements Comparable<PdbChain>, SingleTypedResid
   @Value.Parameter(order = 2)
   public abstract List<PdbResidue> residues();
 
+  @Override
+  @Value.Lazy
+  public ResidueIndex residueIndex() {
+    return SingleTypedResidueCollection.super.residueIndex();
+  }
+
   @Override
   public final int compareTo(@Nonnull final PdbChain t) {
     return identifier().compareTo(t.identifier());
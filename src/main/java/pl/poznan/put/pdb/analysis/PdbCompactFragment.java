@@ -22,6 +22,12 @@ public abstract class PdbCompactFragment implements SingleTypedResidueCollection
   @Value.Parameter(order = 1)
   public abstract List<PdbResidue> residues();
 
+  @Override
+  @Value.Lazy
+  public ResidueIndex residueIndex() {
+    return SingleTypedResidueCollection.super.residueIndex();
+  }
+
   /**
    * @return The name of this compact fragment.
    */
@@ -77,11 +83,19 @@ public abstract class PdbCompactFragment implements SingleTypedResidueCollection
         .collect(Collectors.toSet());
   }
 
+  /**
+   * @return Values of all torsion angles in this fragment, computed once.
+   */
+  @Value.Lazy
+  public TorsionAngleTable torsionAngleTable() {
+    return TorsionAngleTable.calculate(residues());
+  }
+
   @Value.Lazy
   protected List<ResidueTorsionAngles> angleValues() {
+    final TorsionAngleTable table = torsionAngleTable();
     return IntStream.range(0, residues().size())
-        .boxed()
-        .map(i -> ResidueTorsionAngles.calculate(residues(), i))
+        .mapToObj(table::residueTorsionAngles)
         .collect(Collectors.toList());
   }
 }
@@ -1,18 +1,37 @@
 package pl.poznan.put.pdb.analysis;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.RandomUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +39,7 @@ import pl.poznan.put.pdb.ImmutablePdbExpdtaLine;
 import pl.poznan.put.pdb.ImmutablePdbHeaderLine;
 import pl.poznan.put.pdb.ImmutablePdbRemark2Line;
 import pl.poznan.put.pdb.PdbAtomLine;
+import pl.poznan.put.pdb.PdbAtomLineDecoder;
 import pl.poznan.put.pdb.PdbExpdtaLine;
 import pl.poznan.put.pdb.PdbHeaderLine;
 import pl.poznan.put.pdb.PdbModresLine;
@@ -33,35 +53,298 @@ import pl.poznan.put.pdb.PdbTitleLine;
 public class PdbParser {
   private static final Logger LOGGER = LoggerFactory.getLogger(PdbParser.class);
 
-  private final List<PdbModresLine> modifiedResidues = new ArrayList<>();
-  private final List<PdbRemark465Line> missingResidues = new ArrayList<>();
-  private final Collection<PdbResidueIdentifier> processedIdentifiers = new HashSet<>();
-  private final Set<PdbResidueIdentifier> chainTerminatedAfter = new HashSet<>();
-  private final Collection<Integer> endedModelNumbers = new HashSet<>();
-  private final Map<Integer, List<PdbAtomLine>> modelAtoms = new TreeMap<>();
-  private final Collection<PdbTitleLine> titleLines = new ArrayList<>();
-
-  private Optional<PdbHeaderLine> headerLine = Optional.empty();
-  private Optional<PdbExpdtaLine> experimentalDataLine = Optional.empty();
-  private Optional<PdbRemark2Line> resolutionLine = Optional.empty();
-  private Optional<PdbResidueIdentifier> currentIdentifier = Optional.empty();
-  private int currentModelNumber;
-
   /** Creates an instance with {@code strictMode} set to true. */
   public PdbParser() {
     super();
   }
 
   /**
-   * Parses a string in PDB format.
+   * Parses a string in PDB format. All state is local to a single call, so one instance can be
+   * safely shared between threads.
    *
    * @param structureContent A string containing data in PDB format.
    * @return An object representing the parsed data.
    */
-  public final synchronized List<PdbModel> parse(final String structureContent) {
-    resetState();
+  public final List<PdbModel> parse(final String structureContent) {
+    return PdbParser.parseContent(structureContent);
+  }
+
+  /**
+   * Parses a string in PDB format. This method is reentrant and thread-safe.
+   *
+   * @param structureContent A string containing data in PDB format.
+   * @return An object representing the parsed data.
+   */
+  public static List<PdbModel> parseContent(final String structureContent) {
+    return PdbParser.parseContent(structureContent, AtomSelection.all());
+  }
+
+  /**
+   * Parses a string in PDB format keeping only the selected atoms. The selection is applied before
+   * ATOM and HETATM records are decoded, so rejected atoms are never allocated.
+   *
+   * @param structureContent A string containing data in PDB format.
+   * @param selection The selection of atoms to keep.
+   * @return An object representing the parsed data. Models without any selected atoms are skipped.
+   */
+  public final List<PdbModel> parse(final String structureContent, final AtomSelection selection) {
+    return PdbParser.parseContent(structureContent, selection);
+  }
+
+  /**
+   * Parses a string in PDB format keeping only the selected atoms (see {@link #parse(String,
+   * AtomSelection)}). This method is reentrant and thread-safe.
+   *
+   * @param structureContent A string containing data in PDB format.
+   * @param selection The selection of atoms to keep.
+   * @return An object representing the parsed data. Models without any selected atoms are skipped.
+   */
+  public static List<PdbModel> parseContent(
+      final String structureContent, final AtomSelection selection) {
+    final ParseContext context = new ParseContext(selection);
 
     for (final String line : structureContent.split("\n")) {
+      context.handleLine(line);
+    }
+
+    return context.buildRemainingModels();
+  }
+
+  /**
+   * Parses only the metadata of a structure in PDB format. Reading stops at the first ATOM, HETATM
+   * or MODEL record, so the coordinates section is never processed.
+   *
+   * @param structureContent A string containing data in PDB format.
+   * @return The header, experimental data, resolution and title of the structure.
+   */
+  public final StructureMetadata parseMetadata(final String structureContent) {
+    try {
+      return parseMetadata(new StringReader(structureContent));
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Parses only the metadata of a structure in PDB format (see {@link #parseMetadata(String)}). The
+   * reader is not closed by this method.
+   *
+   * @param reader A reader with data in PDB format.
+   * @return The header, experimental data, resolution and title of the structure.
+   * @throws IOException When reading the data fails.
+   */
+  public final StructureMetadata parseMetadata(final Reader reader) throws IOException {
+    final BufferedReader bufferedReader =
+        (reader instanceof BufferedReader) ? (BufferedReader) reader : new BufferedReader(reader);
+    final ParseContext context = new ParseContext();
+
+    String line;
+    while ((line = bufferedReader.readLine()) != null) {
+      if (line.startsWith("ATOM") || line.startsWith("HETATM") || line.startsWith("MODEL")) {
+        break;
+      }
+      context.handleLine(line);
+    }
+
+    return context.buildMetadata();
+  }
+
+  /**
+   * Parses a string in PDB format using the common {@link ForkJoinPool} (see {@link
+   * #parseParallel(String, ForkJoinPool)}).
+   *
+   * @param structureContent A string containing data in PDB format.
+   * @return An object representing the parsed data, equal to the result of {@link #parse(String)}.
+   */
+  public final List<PdbModel> parseParallel(final String structureContent) {
+    return parseParallel(structureContent, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Parses a string in PDB format with models decoded concurrently. First, a sequential scan finds
+   * offsets of MODEL records, assigns model numbers (including renumbering of duplicates) and
+   * handles all header records. Then the ATOM, HETATM and TER records of each model block are
+   * decoded in parallel on the given pool. This pays off for multi-model files e.g. NMR ensembles.
+   *
+   * @param structureContent A string containing data in PDB format.
+   * @param pool The pool to run the parsing tasks in.
+   * @return An object representing the parsed data, equal to the result of {@link #parse(String)}.
+   */
+  public final List<PdbModel> parseParallel(
+      final String structureContent, final ForkJoinPool pool) {
+    final ParseContext context = new ParseContext();
+    final List<ModelSegment> segments = new ArrayList<>();
+    ModelSegment segment = new ModelSegment(context.currentModelNumber, 0);
+
+    int begin = 0;
+    while (begin < structureContent.length()) {
+      int end = structureContent.indexOf('\n', begin);
+      if (end == -1) {
+        end = structureContent.length();
+      }
+
+      if (structureContent.startsWith("MODEL", begin)) {
+        segment.end = begin;
+        segments.add(segment);
+        context.handleLine(structureContent.substring(begin, end));
+        segment = new ModelSegment(context.currentModelNumber, end + 1);
+      } else if (!ModelSegment.isAtomOrTerRecord(structureContent, begin)) {
+        context.handleLine(structureContent.substring(begin, end));
+      }
+
+      begin = end + 1;
+    }
+
+    segment.end = structureContent.length();
+    segments.add(segment);
+
+    final List<ModelBlock> blocks =
+        pool.invoke(
+            ForkJoinTask.adapt(
+                () ->
+                    segments.parallelStream()
+                        .map(modelSegment -> modelSegment.parse(structureContent))
+                        .collect(Collectors.toList())));
+    for (final ModelBlock block : blocks) {
+      context.modelBlocks.put(block.modelNumber, block);
+    }
+    return context.buildRemainingModels();
+  }
+
+  /**
+   * Parses a file in PDB format lazily. Each model is emitted as soon as its ENDMDL record is read,
+   * so at most one model is kept in memory at a time. Header records (HEADER, EXPDTA, TITLE,
+   * MODRES, REMARK 2 and REMARK 465) are shared by all emitted models. The returned stream should
+   * be closed to release the underlying file.
+   *
+   * @param path Path to a file in PDB format.
+   * @return A lazily populated stream of models in the order of their appearance in the file.
+   * @throws IOException When the file cannot be opened.
+   */
+  public final Stream<PdbModel> parse(final Path path) throws IOException {
+    final BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+    return parse(reader);
+  }
+
+  /**
+   * Parses a stream of data in PDB format lazily (see {@link #parse(Path)}). The returned stream
+   * should be closed to release the underlying input stream.
+   *
+   * @param inputStream A stream with data in PDB format.
+   * @return A lazily populated stream of models in the order of their appearance in the data.
+   */
+  public final Stream<PdbModel> parse(final InputStream inputStream) {
+    return parse(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Parses data in PDB format lazily (see {@link #parse(Path)}). The returned stream should be
+   * closed to release the underlying reader. Any {@link IOException} raised while reading is
+   * rethrown as {@link UncheckedIOException}.
+   *
+   * @param reader A reader with data in PDB format.
+   * @return A lazily populated stream of models in the order of their appearance in the data.
+   */
+  public final Stream<PdbModel> parse(final Reader reader) {
+    final BufferedReader bufferedReader =
+        (reader instanceof BufferedReader) ? (BufferedReader) reader : new BufferedReader(reader);
+    final Iterator<PdbModel> iterator = new ModelIterator(bufferedReader);
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(
+                iterator, Spliterator.ORDERED | Spliterator.NONNULL),
+            false)
+        .onClose(
+            () -> {
+              try {
+                bufferedReader.close();
+              } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+  }
+
+  /** An iterator which reads lines until a complete model is available. */
+  private static final class ModelIterator implements Iterator<PdbModel> {
+    private final BufferedReader reader;
+    private final ParseContext context = new ParseContext();
+    private final Queue<PdbModel> ready = new ArrayDeque<>();
+    private boolean finished;
+
+    private ModelIterator(final BufferedReader reader) {
+      super();
+      this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (ready.isEmpty() && !finished) {
+        readUntilModelIsReady();
+      }
+      return !ready.isEmpty();
+    }
+
+    @Override
+    public PdbModel next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException("No more models available");
+      }
+      return ready.remove();
+    }
+
+    private void readUntilModelIsReady() {
+      try {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (line.startsWith("MODEL")) {
+            // a model without ENDMDL is complete when the next one begins
+            context.buildCurrentModel().ifPresent(ready::add);
+          }
+
+          context.handleLine(line);
+
+          if (line.startsWith("ENDMDL")) {
+            context.buildCurrentModel().ifPresent(ready::add);
+          }
+
+          if (!ready.isEmpty()) {
+            return;
+          }
+        }
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+
+      ready.addAll(context.buildRemainingModels());
+      finished = true;
+    }
+  }
+
+  /** The state of a single parsing session. */
+  private static final class ParseContext {
+    private final List<PdbModresLine> modifiedResidues = new ArrayList<>();
+    private final List<PdbRemark465Line> missingResidues = new ArrayList<>();
+    private final Collection<Integer> endedModelNumbers = new HashSet<>();
+    private final Map<Integer, ModelBlock> modelBlocks = new TreeMap<>();
+    private final Collection<PdbTitleLine> titleLines = new ArrayList<>();
+    private final PdbAtomLineDecoder atomLineDecoder = new PdbAtomLineDecoder();
+    private final AtomSelection selection;
+
+    private AtomFilter atomFilter;
+    private Optional<PdbHeaderLine> headerLine = Optional.empty();
+    private Optional<PdbExpdtaLine> experimentalDataLine = Optional.empty();
+    private Optional<PdbRemark2Line> resolutionLine = Optional.empty();
+    private int currentModelNumber;
+
+    private ParseContext() {
+      this(AtomSelection.all());
+    }
+
+    private ParseContext(final AtomSelection selection) {
+      super();
+      this.selection = selection;
+    }
+
+    private void handleLine(final String line) {
       if (line.startsWith("MODEL")) {
         handleModelLine(line);
       } else if (line.startsWith("ATOM") || line.startsWith("HETATM")) {
@@ -83,151 +366,240 @@ public class PdbParser {
       }
     }
 
-    final String titleBuilder =
-        titleLines.stream().map(PdbTitleLine::title).collect(Collectors.joining());
+    private Optional<PdbModel> buildCurrentModel() {
+      return Optional.ofNullable(modelBlocks.remove(currentModelNumber))
+          .filter(block -> !block.atoms.isEmpty())
+          .flatMap(this::buildSelectedModel);
+    }
 
-    final List<PdbModel> result = new ArrayList<>();
+    private List<PdbModel> buildRemainingModels() {
+      final List<PdbModel> result =
+          modelBlocks.values().stream()
+              .filter(block -> !block.atoms.isEmpty())
+              .map(this::buildSelectedModel)
+              .flatMap(Optional::stream)
+              .collect(Collectors.toList());
+      modelBlocks.clear();
+      return result;
+    }
 
-    for (final Map.Entry<Integer, List<PdbAtomLine>> entry : modelAtoms.entrySet()) {
-      final int modelNumber = entry.getKey();
-      final List<PdbAtomLine> atoms = entry.getValue();
-      final PdbModel structureModel =
-          ImmutableDefaultPdbModel.of(
-              headerLine.orElse(ImmutablePdbHeaderLine.of("", new Date(0L), "")),
-              experimentalDataLine.orElse(ImmutablePdbExpdtaLine.of(Collections.emptyList())),
-              resolutionLine.orElse(ImmutablePdbRemark2Line.of(Double.NaN)),
-              modelNumber,
-              atoms,
-              modifiedResidues,
-              missingResidues,
-              titleBuilder,
-              chainTerminatedAfter);
-      result.add(structureModel);
+    private StructureMetadata buildMetadata() {
+      return ImmutableStructureMetadata.of(
+          headerLine.orElse(ImmutablePdbHeaderLine.of("", new Date(0L), "")),
+          experimentalDataLine.orElse(ImmutablePdbExpdtaLine.of(Collections.emptyList())),
+          resolutionLine.orElse(ImmutablePdbRemark2Line.of(Double.NaN)),
+          titleLines.stream().map(PdbTitleLine::title).collect(Collectors.joining()));
     }
 
-    return result;
-  }
+    private Optional<PdbModel> buildSelectedModel(final ModelBlock block) {
+      return atomFilter().finish(buildModel(block));
+    }
 
-  private void resetState() {
-    modifiedResidues.clear();
-    missingResidues.clear();
-    processedIdentifiers.clear();
-    chainTerminatedAfter.clear();
-    endedModelNumbers.clear();
-    modelAtoms.clear();
-    titleLines.clear();
+    // MODRES records precede coordinates, so they are all known when the first atom is filtered
+    private AtomFilter atomFilter() {
+      if (atomFilter == null) {
+        atomFilter = new AtomFilter(selection, modifiedResidues);
+      }
+      return atomFilter;
+    }
 
-    headerLine = Optional.empty();
-    experimentalDataLine = Optional.empty();
-    currentModelNumber = 0;
-    currentIdentifier = Optional.empty();
-  }
+    private PdbModel buildModel(final ModelBlock block) {
+      final StructureMetadata metadata = buildMetadata();
+      return ImmutableDefaultPdbModel.of(
+          metadata.header(),
+          metadata.experimentalData(),
+          metadata.resolution(),
+          block.modelNumber,
+          block.atoms,
+          modifiedResidues,
+          missingResidues,
+          metadata.title(),
+          block.chainTerminatedAfter);
+    }
+
+    private void handleModelLine(final String line) {
+      endedModelNumbers.add(currentModelNumber);
 
-  private void handleModelLine(final String line) {
-    endedModelNumbers.add(currentModelNumber);
+      final String modelNumberString =
+          (line.length() > 14) ? line.substring(10, 14).trim() : line.substring(5).trim();
+      int modelNumber = Integer.parseInt(modelNumberString);
 
-    final String modelNumberString =
-        (line.length() > 14) ? line.substring(10, 14).trim() : line.substring(5).trim();
-    int modelNumber = Integer.parseInt(modelNumberString);
+      while (endedModelNumbers.contains(modelNumber)) {
+        // model number has four digits, the next free one is taken to keep parsing deterministic
+        modelNumber = (modelNumber % 9999) + 1;
+      }
 
-    while (endedModelNumbers.contains(modelNumber)) {
-      // model number has four digits
-      modelNumber = RandomUtils.nextInt(1, 10000);
+      currentModelNumber = modelNumber;
     }
 
-    currentModelNumber = modelNumber;
+    private void handleAtomLine(final String line) {
+      final AtomFilter filter = atomFilter();
+      if (!filter.acceptsModel(currentModelNumber)
+          || !filter.acceptsRecordType(line.startsWith("ATOM") ? "ATOM" : "HETATM")
+          || !filter.acceptsResidue(
+              atomLineDecoder.decodeChainIdentifier(line),
+              atomLineDecoder.decodeResidueName(line))) {
+        return;
+      }
 
-    processedIdentifiers.clear();
-    chainTerminatedAfter.clear();
-    currentIdentifier = Optional.empty();
-  }
+      try {
+        final PdbAtomLine atomLine = atomLineDecoder.decode(line);
+        if (filter.acceptsAlternateLocation(currentModelNumber, atomLine)) {
+          modelBlocks.computeIfAbsent(currentModelNumber, ModelBlock::new).handleAtomLine(atomLine);
+        }
+      } catch (final PdbParsingException e) {
+        PdbParser.LOGGER.warn("Invalid ATOM line: {}", line, e);
+      }
+    }
 
-  private void handleAtomLine(final String line) {
-    try {
-      final PdbAtomLine atomLine = PdbAtomLine.parse(line);
-      final PdbResidueIdentifier identifier = PdbResidueIdentifier.from(atomLine);
+    private void handleTerLine() {
+      final ModelBlock block = modelBlocks.get(currentModelNumber);
+      // the chain ends after the last accepted atom, even if some atoms after it were rejected
+      if (block != null) {
+        block.handleTerLine();
+      }
+    }
 
-      if (processedIdentifiers.contains(identifier)) {
-        PdbParser.LOGGER.warn("Duplicate residue, ignoring it: {}", identifier);
-        return;
+    private void handleTitleLine(final String line) {
+      try {
+        final PdbTitleLine titleLine = PdbTitleLine.parse(line);
+        if (((CollectionUtils.isEmpty(titleLines))
+                && (StringUtils.isBlank(titleLine.continuation())))
+            || (StringUtils.isNotBlank(titleLine.continuation()))) {
+          titleLines.add(titleLine);
+        }
+      } catch (final PdbParsingException e) {
+        PdbParser.LOGGER.warn("Invalid TITLE line: {}", line, e);
       }
+    }
 
-      if (currentIdentifier.isPresent() && !identifier.equals(currentIdentifier.get())) {
-        processedIdentifiers.add(currentIdentifier.get());
-        currentIdentifier = Optional.of(identifier);
+    private void handleMissingResidueLine(final String line) {
+      try {
+        if (PdbRemark465Line.isCommentLine(line)) {
+          return;
+        }
+
+        final PdbRemark465Line remark465Line = PdbRemark465Line.parse(line);
+        missingResidues.add(remark465Line);
+      } catch (final PdbParsingException e) {
+        PdbParser.LOGGER.warn("Invalid REMARK 465 line: {}", line, e);
       }
+    }
 
-      if (!modelAtoms.containsKey(currentModelNumber)) {
-        modelAtoms.put(currentModelNumber, new ArrayList<>());
+    private void handleModifiedResidueLine(final String line) {
+      try {
+        final PdbModresLine modresLine = PdbModresLine.parse(line);
+        modifiedResidues.add(modresLine);
+      } catch (final PdbParsingException e) {
+        PdbParser.LOGGER.warn("Invalid MODRES line: {}", line, e);
       }
+    }
 
-      final List<PdbAtomLine> atomList = modelAtoms.get(currentModelNumber);
-      atomList.add(atomLine);
-    } catch (final PdbParsingException e) {
-      PdbParser.LOGGER.warn("Invalid ATOM line: {}", line, e);
+    private void handleHeaderLine(final String line) {
+      try {
+        headerLine = Optional.of(PdbHeaderLine.parse(line));
+      } catch (final PdbParsingException e) {
+        PdbParser.LOGGER.warn("Invalid HEADER line: {}", line, e);
+      }
     }
-  }
 
-  private void handleTitleLine(final String line) {
-    try {
-      final PdbTitleLine titleLine = PdbTitleLine.parse(line);
-      if (((CollectionUtils.isEmpty(titleLines)) && (StringUtils.isBlank(titleLine.continuation())))
-          || (StringUtils.isNotBlank(titleLine.continuation()))) {
-        titleLines.add(titleLine);
+    private void handleExperimentalDataLine(final String line) {
+      try {
+        experimentalDataLine = Optional.of(PdbExpdtaLine.parse(line));
+      } catch (final PdbParsingException e) {
+        PdbParser.LOGGER.warn("Invalid EXPDTA line: {}", line, e);
       }
-    } catch (final PdbParsingException e) {
-      PdbParser.LOGGER.warn("Invalid TITLE line: {}", line, e);
     }
-  }
 
-  private void handleTerLine() {
-    final List<PdbAtomLine> atomLines = modelAtoms.get(currentModelNumber);
-    chainTerminatedAfter.add(PdbResidueIdentifier.from(atomLines.get(atomLines.size() - 1)));
+    private void handleResolutionLine(final String line) {
+      try {
+        resolutionLine = Optional.of(PdbRemark2Line.parse(line));
+      } catch (final PdbParsingException e) {
+        PdbParser.LOGGER.warn("Invalid REMARK   2 RESOLUTION. line: {}", line, e);
+      }
+    }
   }
 
-  private void handleMissingResidueLine(final String line) {
-    try {
-      if (PdbRemark465Line.isCommentLine(line)) {
-        return;
-      }
+  /** A range of text between two MODEL records. */
+  private static final class ModelSegment {
+    private final int modelNumber;
+    private final int begin;
+    private int end;
 
-      final PdbRemark465Line remark465Line = PdbRemark465Line.parse(line);
-      missingResidues.add(remark465Line);
-    } catch (final PdbParsingException e) {
-      PdbParser.LOGGER.warn("Invalid REMARK 465 line: {}", line, e);
+    private ModelSegment(final int modelNumber, final int begin) {
+      super();
+      this.modelNumber = modelNumber;
+      this.begin = begin;
     }
-  }
 
-  private void handleModifiedResidueLine(final String line) {
-    try {
-      final PdbModresLine modresLine = PdbModresLine.parse(line);
-      modifiedResidues.add(modresLine);
-    } catch (final PdbParsingException e) {
-      PdbParser.LOGGER.warn("Invalid MODRES line: {}", line, e);
+    private static boolean isAtomOrTerRecord(final String content, final int offset) {
+      return content.startsWith("ATOM", offset)
+          || content.startsWith("HETATM", offset)
+          || content.startsWith("TER   ", offset);
     }
-  }
 
-  private void handleHeaderLine(final String line) {
-    try {
-      headerLine = Optional.of(PdbHeaderLine.parse(line));
-    } catch (final PdbParsingException e) {
-      PdbParser.LOGGER.warn("Invalid HEADER line: {}", line, e);
+    private ModelBlock parse(final String content) {
+      final ModelBlock block = new ModelBlock(modelNumber);
+      final PdbAtomLineDecoder atomLineDecoder = new PdbAtomLineDecoder();
+
+      int lineBegin = begin;
+      while (lineBegin < end) {
+        int lineEnd = content.indexOf('\n', lineBegin);
+        if (lineEnd == -1 || lineEnd > end) {
+          lineEnd = end;
+        }
+
+        if (content.startsWith("TER   ", lineBegin)) {
+          block.handleTerLine();
+        } else if (ModelSegment.isAtomOrTerRecord(content, lineBegin)) {
+          final CharSequence line = content.subSequence(lineBegin, lineEnd);
+          try {
+            block.handleAtomLine(atomLineDecoder.decode(line));
+          } catch (final PdbParsingException e) {
+            PdbParser.LOGGER.warn("Invalid ATOM line: {}", line, e);
+          }
+        }
+
+        lineBegin = lineEnd + 1;
+      }
+
+      return block;
     }
   }
 
-  private void handleExperimentalDataLine(final String line) {
-    try {
-      experimentalDataLine = Optional.of(PdbExpdtaLine.parse(line));
-    } catch (final PdbParsingException e) {
-      PdbParser.LOGGER.warn("Invalid EXPDTA line: {}", line, e);
+  /** Atoms and TER records collected for a single model. */
+  private static final class ModelBlock {
+    private final int modelNumber;
+    private final List<PdbAtomLine> atoms = new ArrayList<>();
+    private final Collection<PdbResidueIdentifier> processedIdentifiers = new HashSet<>();
+    private final Set<PdbResidueIdentifier> chainTerminatedAfter = new HashSet<>();
+    private Optional<PdbResidueIdentifier> currentIdentifier = Optional.empty();
+
+    private ModelBlock(final int modelNumber) {
+      super();
+      this.modelNumber = modelNumber;
     }
-  }
 
-  private void handleResolutionLine(final String line) {
-    try {
-      resolutionLine = Optional.of(PdbRemark2Line.parse(line));
-    } catch (final PdbParsingException e) {
-      PdbParser.LOGGER.warn("Invalid REMARK   2 RESOLUTION. line: {}", line, e);
+    private void handleAtomLine(final PdbAtomLine atomLine) {
+      final PdbResidueIdentifier identifier = PdbResidueIdentifier.from(atomLine);
+
+      if (processedIdentifiers.contains(identifier)) {
+        PdbParser.LOGGER.warn("Duplicate residue, ignoring it: {}", identifier);
+        return;
+      }
+
+      if (currentIdentifier.isPresent() && !identifier.equals(currentIdentifier.get())) {
+        processedIdentifiers.add(currentIdentifier.get());
+        currentIdentifier = Optional.of(identifier);
+      }
+
+      atoms.add(atomLine);
+    }
+
+    private void handleTerLine() {
+      if (!atoms.isEmpty()) {
+        chainTerminatedAfter.add(PdbResidueIdentifier.from(atoms.get(atoms.size() - 1)));
+      }
     }
   }
 }
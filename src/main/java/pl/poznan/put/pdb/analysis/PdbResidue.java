@@ -1,13 +1,11 @@
 package pl.poznan.put.pdb.analysis;
 
 import java.io.IOException;
-import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
-import org.apache.commons.collections4.SetUtils;
 import org.apache.commons.math3.geometry.euclidean.threed.Plane;
 import pl.poznan.put.atom.AtomName;
 import pl.poznan.put.pdb.ChainNumberICode;
@@ -112,10 +110,22 @@ public interface PdbResidue extends ChainNumberICode {
    * @return An instance of atom (with coordinates) of the given type.
    */
   default PdbAtomLine findAtom(final AtomName atomName) {
-    return atoms().stream()
-        .filter(atom -> atom.detectAtomName() == atomName)
-        .findFirst()
-        .orElseThrow(() -> new IllegalArgumentException("Failed to find: " + atomName));
+    final PdbAtomLine atom = atomIndex().find(atomName);
+    if (atom == null) {
+      throw new IllegalArgumentException("Failed to find: " + atomName);
+    }
+    return atom;
+  }
+
+  /**
+   * Creates an index of atoms by their names used by {@link #findAtom}, {@link #hasAtom} and {@link
+   * #atomNames}. Implementations with a fixed list of atoms should compute it once (e.g. with
+   * {@code @Value.Lazy}).
+   *
+   * @return An index of atoms in this residue.
+   */
+  default ResidueAtomIndex atomIndex() {
+    return ResidueAtomIndex.of(atoms());
   }
 
   /**
@@ -166,7 +176,7 @@ public interface PdbResidue extends ChainNumberICode {
    * @return The set of all atom names available in this residue.
    */
   default Set<AtomName> atomNames() {
-    return atoms().stream().map(PdbAtomLine::detectAtomName).collect(Collectors.toSet());
+    return atomIndex().atomNames();
   }
 
   /**
@@ -176,14 +186,14 @@ public interface PdbResidue extends ChainNumberICode {
    * @return True if this residue has an atom of the given name.
    */
   default boolean hasAtom(final AtomName atomName) {
-    return atomNames().contains(atomName);
+    return atomIndex().contains(atomName);
   }
 
   /**
    * @return True if there is any hydrogen atom available in this residue.
    */
   default boolean hasAnyHydrogen() {
-    return atomNames().stream().anyMatch(atomName -> !atomName.isHeavy());
+    return atomIndex().heavyAtomNames().size() < atomIndex().atomNames().size();
   }
 
   /**
@@ -194,15 +204,9 @@ public interface PdbResidue extends ChainNumberICode {
    *     this residue.
    */
   default boolean hasAllHeavyAtoms() {
-    final Set<AtomName> heavyAtoms =
-        atomNames().stream().filter(AtomName::isHeavy).collect(Collectors.toSet());
-    final Set<AtomName> expectedHeavyAtoms =
-        residueInformationProvider().moleculeComponents().stream()
-            .map(ResidueComponent::requiredAtoms)
-            .flatMap(Collection::stream)
-            .filter(AtomName::isHeavy)
-            .collect(Collectors.toSet());
-    return SetUtils.isEqualSet(heavyAtoms, expectedHeavyAtoms);
+    return atomIndex()
+        .heavyAtomNames()
+        .equals(ResidueAtomIndex.expectedHeavyAtoms(residueInformationProvider()));
   }
 
   /**
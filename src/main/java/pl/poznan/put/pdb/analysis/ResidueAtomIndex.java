@@ -0,0 +1,122 @@
+package pl.poznan.put.pdb.analysis;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import pl.poznan.put.atom.AtomName;
+import pl.poznan.put.pdb.PdbAtomLine;
+
+/**
+ * An index of atoms in a single residue by their detected names. Each atom name is resolved once
+ * when the index is built, so queries do not allocate. If several atoms share the same name (e.g.
+ * alternate locations), the first one is indexed.
+ */
+public final class ResidueAtomIndex {
+  private static final Map<ResidueInformationProvider, Set<AtomName>> EXPECTED_HEAVY_ATOMS =
+      new ConcurrentHashMap<>();
+
+  private final List<PdbAtomLine> atoms;
+  private final Map<AtomName, Integer> positions = new EnumMap<>(AtomName.class);
+  private final Set<AtomName> atomNames;
+  private final Set<AtomName> heavyAtomNames;
+
+  private ResidueAtomIndex(final List<PdbAtomLine> residueAtoms) {
+    super();
+    atoms = residueAtoms;
+    for (int i = 0; i < residueAtoms.size(); i++) {
+      positions.putIfAbsent(residueAtoms.get(i).detectAtomName(), i);
+    }
+
+    final Set<AtomName> names = EnumSet.noneOf(AtomName.class);
+    names.addAll(positions.keySet());
+    atomNames = Collections.unmodifiableSet(names);
+
+    final Set<AtomName> heavy = EnumSet.noneOf(AtomName.class);
+    for (final AtomName atomName : names) {
+      if (atomName.isHeavy()) {
+        heavy.add(atomName);
+      }
+    }
+    heavyAtomNames = Collections.unmodifiableSet(heavy);
+  }
+
+  /**
+   * Creates an index of atoms.
+   *
+   * @param residueAtoms The list of atoms in a residue.
+   * @return An index of these atoms.
+   */
+  public static ResidueAtomIndex of(final List<PdbAtomLine> residueAtoms) {
+    return new ResidueAtomIndex(residueAtoms);
+  }
+
+  /**
+   * @param provider A residue type.
+   * @return The set of heavy atoms required by all components of the residue type.
+   */
+  static Set<AtomName> expectedHeavyAtoms(final ResidueInformationProvider provider) {
+    // only built-in types are cached, invalid ones are created anew for each unknown residue name
+    if (!(provider instanceof Enum)) {
+      return ResidueAtomIndex.computeExpectedHeavyAtoms(provider);
+    }
+    return ResidueAtomIndex.EXPECTED_HEAVY_ATOMS.computeIfAbsent(
+        provider, ResidueAtomIndex::computeExpectedHeavyAtoms);
+  }
+
+  private static Set<AtomName> computeExpectedHeavyAtoms(
+      final ResidueInformationProvider provider) {
+    final Set<AtomName> expected = EnumSet.noneOf(AtomName.class);
+    for (final ResidueComponent component : provider.moleculeComponents()) {
+      for (final AtomName atomName : component.requiredAtoms()) {
+        if (atomName.isHeavy()) {
+          expected.add(atomName);
+        }
+      }
+    }
+    return Collections.unmodifiableSet(expected);
+  }
+
+  /**
+   * @return The set of all atom names in the residue.
+   */
+  public Set<AtomName> atomNames() {
+    return atomNames;
+  }
+
+  /**
+   * @return The set of heavy (non-hydrogen) atom names in the residue.
+   */
+  public Set<AtomName> heavyAtomNames() {
+    return heavyAtomNames;
+  }
+
+  /**
+   * @param atomName An atom name.
+   * @return True if there is an atom of this name.
+   */
+  public boolean contains(final AtomName atomName) {
+    return positions.containsKey(atomName);
+  }
+
+  /**
+   * @param atomName An atom name.
+   * @return The first atom of this name or null if there is none.
+   */
+  public PdbAtomLine find(final AtomName atomName) {
+    final Integer position = positions.get(atomName);
+    return position == null ? null : atoms.get(position);
+  }
+
+  /**
+   * @param atomName An atom name.
+   * @return The position of the first atom of this name in the list of residue atoms or -1 if there
+   *     is none.
+   */
+  public int indexOf(final AtomName atomName) {
+    return positions.getOrDefault(atomName, -1);
+  }
+}
@@ -108,8 +108,7 @@ public interface ResidueCollection extends Serializable {
    * @return True if a given residue is part of this collection.
    */
   default boolean hasResidue(final ChainNumberICode query) {
-    final PdbResidueIdentifier queryIdentifier = PdbResidueIdentifier.from(query);
-    return residues().stream().map(PdbResidueIdentifier::from).anyMatch(queryIdentifier::equals);
+    return residueIndex().contains(query);
   }
 
   /**
@@ -119,11 +118,11 @@ public interface ResidueCollection extends Serializable {
    * @return The residue found in this collection of residues.
    */
   default PdbResidue findResidue(final ChainNumberICode query) {
-    final PdbResidueIdentifier queryIdentifier = PdbResidueIdentifier.from(query);
-    return residues().stream()
-        .filter(residue -> Objects.equals(PdbResidueIdentifier.from(residue), queryIdentifier))
-        .findFirst()
-        .orElseThrow(() -> new IllegalArgumentException("Failed to find residue: " + query));
+    final int index = residueIndex().indexOf(query);
+    if (index == -1) {
+      throw new IllegalArgumentException("Failed to find residue: " + query);
+    }
+    return residues().get(index);
   }
 
   /**
@@ -133,11 +132,23 @@ public interface ResidueCollection extends Serializable {
    * @return The index of a residue found in this collection of residues.
    */
   default int indexOf(final ChainNumberICode query) {
-    final PdbResidueIdentifier identifier = PdbResidueIdentifier.from(query);
-    return IntStream.range(0, residues().size())
-        .filter(i -> PdbResidueIdentifier.from(residues().get(i)).equals(identifier))
-        .findFirst()
-        .orElseThrow(() -> new IllegalArgumentException("Failed to find residue: " + identifier));
+    final int index = residueIndex().indexOf(query);
+    if (index == -1) {
+      throw new IllegalArgumentException(
+          "Failed to find residue: " + PdbResidueIdentifier.from(query));
+    }
+    return index;
+  }
+
+  /**
+   * Creates an index of residues by (chain, number, icode) used by {@link #hasResidue}, {@link
+   * #findResidue} and {@link #indexOf}. Implementations with a fixed list of residues should
+   * compute it once (e.g. with {@code @Value.Lazy}).
+   *
+   * @return An index of residues in this collection.
+   */
+  default ResidueIndex residueIndex() {
+    return ResidueIndex.of(residues());
   }
 
   /**
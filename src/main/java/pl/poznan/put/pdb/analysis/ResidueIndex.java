@@ -0,0 +1,145 @@
+package pl.poznan.put.pdb.analysis;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import pl.poznan.put.pdb.ChainNumberICode;
+import pl.poznan.put.pdb.PdbResidueIdentifier;
+
+/**
+ * A hash index from (chain, number, icode) to the position in a list of residues. Each identifier
+ * is packed into a single {@code long} (16 bits for up to two 8-bit characters of the chain, 32
+ * bits for the number and 16 bits for a one-character insertion code) and stored in an
+ * open-addressing table, so lookups do not allocate. Identifiers which do not fit this encoding
+ * (e.g. longer mmCIF chain names) are kept in a regular map. If an identifier occurs more than
+ * once, its first position is indexed.
+ */
+public final class ResidueIndex {
+  private static final int EMPTY = -1;
+  private static final long NOT_ENCODABLE = Long.MIN_VALUE;
+
+  private final long[] keys;
+  private final int[] values;
+  private final int mask;
+  private final Map<PdbResidueIdentifier, Integer> fallback = new HashMap<>();
+
+  private ResidueIndex(final List<? extends ChainNumberICode> residues) {
+    super();
+    int capacity = 4;
+    while (capacity < residues.size() * 2) {
+      capacity <<= 1;
+    }
+
+    keys = new long[capacity];
+    values = new int[capacity];
+    mask = capacity - 1;
+    Arrays.fill(values, ResidueIndex.EMPTY);
+
+    for (int i = 0; i < residues.size(); i++) {
+      final ChainNumberICode residue = residues.get(i);
+      final long key = ResidueIndex.encode(residue);
+      if (key == ResidueIndex.NOT_ENCODABLE) {
+        fallback.putIfAbsent(PdbResidueIdentifier.from(residue), i);
+      } else {
+        insert(key, i);
+      }
+    }
+  }
+
+  /**
+   * Creates an index of the given list.
+   *
+   * @param residues The list of residues or their identifiers.
+   * @return An index of positions in the list.
+   */
+  public static ResidueIndex of(final List<? extends ChainNumberICode> residues) {
+    return new ResidueIndex(residues);
+  }
+
+  private static long encode(final ChainNumberICode residue) {
+    final String chain = residue.chainIdentifier();
+    final long chainBits;
+    if (chain.isEmpty()) {
+      chainBits = 0L;
+    } else if (chain.length() == 1 && ResidueIndex.isEncodable(chain.charAt(0))) {
+      chainBits = chain.charAt(0);
+    } else if (chain.length() == 2
+        && ResidueIndex.isEncodable(chain.charAt(0))
+        && ResidueIndex.isEncodable(chain.charAt(1))) {
+      chainBits = ((long) chain.charAt(0) << 8) | chain.charAt(1);
+    } else {
+      return ResidueIndex.NOT_ENCODABLE;
+    }
+
+    final Optional<String> insertionCode = residue.insertionCode();
+    final long insertionCodeBits;
+    if (!insertionCode.isPresent()) {
+      insertionCodeBits = 0L;
+    } else if (insertionCode.get().length() == 1 && insertionCode.get().charAt(0) != 0) {
+      insertionCodeBits = insertionCode.get().charAt(0);
+    } else {
+      return ResidueIndex.NOT_ENCODABLE;
+    }
+
+    // never equal to NOT_ENCODABLE, because a chain with the highest bit set has a second character
+    return (chainBits << 48) | ((residue.residueNumber() & 0xFFFFFFFFL) << 16) | insertionCodeBits;
+  }
+
+  private static boolean isEncodable(final char c) {
+    // a zero would make "A" and "\0A" indistinguishable
+    return c > 0 && c < 256;
+  }
+
+  private static int hash(final long key) {
+    long h = key;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    return (int) h;
+  }
+
+  private void insert(final long key, final int value) {
+    int slot = ResidueIndex.hash(key) & mask;
+    while (values[slot] != ResidueIndex.EMPTY) {
+      if (keys[slot] == key) {
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+  }
+
+  /**
+   * Finds the position of a residue.
+   *
+   * @param query A residue identifier.
+   * @return The index of the first residue with the same (chain, number, icode) or -1 if there is
+   *     none.
+   */
+  public int indexOf(final ChainNumberICode query) {
+    final long key = ResidueIndex.encode(query);
+    if (key == ResidueIndex.NOT_ENCODABLE) {
+      return fallback.getOrDefault(PdbResidueIdentifier.from(query), ResidueIndex.EMPTY);
+    }
+
+    int slot = ResidueIndex.hash(key) & mask;
+    while (values[slot] != ResidueIndex.EMPTY) {
+      if (keys[slot] == key) {
+        return values[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return ResidueIndex.EMPTY;
+  }
+
+  /**
+   * @param query A residue identifier.
+   * @return True if there is a residue with the same (chain, number, icode).
+   */
+  public boolean contains(final ChainNumberICode query) {
+    return indexOf(query) != ResidueIndex.EMPTY;
+  }
+}
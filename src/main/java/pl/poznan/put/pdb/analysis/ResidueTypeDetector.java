@@ -1,10 +1,17 @@
 package pl.poznan.put.pdb.analysis;
 
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import org.apache.commons.collections4.SetUtils;
 import pl.poznan.put.atom.AtomName;
 import pl.poznan.put.protein.AminoAcid;
@@ -12,8 +19,17 @@ import pl.poznan.put.protein.ImmutableBackbone;
 import pl.poznan.put.rna.ImmutableRibose;
 import pl.poznan.put.rna.Nucleotide;
 
-/** A detector of residue type based on its name and atom content. */
+/**
+ * A detector of residue type based on its name and atom content. Residue names are resolved with a
+ * precomputed map of aliases and the results of atom-based detection are memoized, so repeated
+ * queries for the same residue name and atom content are cheap.
+ */
 public final class ResidueTypeDetector {
+  // a bound on memoized atom-based detections, in case of unusually diverse input
+  private static final int MAX_CACHE_SIZE = 65536;
+  private static final Map<String, ResidueInformationProvider> ALIASES = createAliases();
+  private static final Map<DetectionKey, ResidueInformationProvider> CACHE =
+      new ConcurrentHashMap<>();
   private static final Set<AtomName> RIBOSE_HEAVY_ATOMS =
       ImmutableRibose.of().requiredAtoms().stream()
           .filter(AtomName::isHeavy)
@@ -27,6 +43,15 @@ public final class ResidueTypeDetector {
     super();
   }
 
+  // the first provider wins, just like in a sequential search of nucleotides and then amino acids
+  private static Map<String, ResidueInformationProvider> createAliases() {
+    final Map<String, ResidueInformationProvider> aliases = new HashMap<>();
+    Stream.concat(Arrays.stream(Nucleotide.values()), Arrays.stream(AminoAcid.values()))
+        .forEach(
+            provider -> provider.aliases().forEach(alias -> aliases.putIfAbsent(alias, provider)));
+    return Collections.unmodifiableMap(aliases);
+  }
+
   /**
    * Detects the type of residue by its name or atom content. Works by checking if there is a ribose
    * or protein backbone among the atoms. Then it finds the most similar nucleobase or protein
@@ -43,17 +68,25 @@ public final class ResidueTypeDetector {
     if (provider.moleculeType() != MoleculeType.UNKNOWN) {
       return provider;
     }
-    return ResidueTypeDetector.detectResidueTypeFromAtoms(atomNames, residueName);
+
+    final DetectionKey key = new DetectionKey(residueName, atomNames);
+    final ResidueInformationProvider cached = ResidueTypeDetector.CACHE.get(key);
+    if (cached != null) {
+      return cached;
+    }
+
+    final ResidueInformationProvider detected =
+        ResidueTypeDetector.detectResidueTypeFromAtoms(atomNames, residueName);
+    if (ResidueTypeDetector.CACHE.size() < ResidueTypeDetector.MAX_CACHE_SIZE) {
+      ResidueTypeDetector.CACHE.putIfAbsent(key, detected);
+    }
+    return detected;
   }
 
   private static ResidueInformationProvider detectResidueTypeFromResidueName(
       final String residueName) {
-    final Stream<ResidueInformationProvider> stream =
-        Stream.concat(Arrays.stream(Nucleotide.values()), Arrays.stream(AminoAcid.values()));
-    return stream
-        .filter(provider -> provider.aliases().contains(residueName))
-        .findFirst()
-        .orElse(ImmutableInvalidResidueInformationProvider.of(residueName));
+    final ResidueInformationProvider provider = ResidueTypeDetector.ALIASES.get(residueName);
+    return provider != null ? provider : ImmutableInvalidResidueInformationProvider.of(residueName);
   }
 
   private static ResidueInformationProvider detectResidueTypeFromAtoms(
@@ -102,4 +135,36 @@ public final class ResidueTypeDetector {
     return ResidueTypeDetector.intersectionRatio(actual, ResidueTypeDetector.BACKBONE_HEAVY_ATOMS)
         >= 0.5;
   }
+
+  /** A residue name together with atom names stored as a bitset of their ordinals. */
+  private static final class DetectionKey {
+    private final String residueName;
+    private final BitSet atomNames = new BitSet();
+
+    private DetectionKey(final String residueName, final Iterable<AtomName> atomNames) {
+      super();
+      this.residueName = residueName;
+      for (final AtomName atomName : atomNames) {
+        this.atomNames.set(atomName.ordinal());
+      }
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if ((o == null) || (getClass() != o.getClass())) {
+        return false;
+      }
+      final DetectionKey other = (DetectionKey) o;
+      return Objects.equals(residueName, other.residueName)
+          && Objects.equals(atomNames, other.atomNames);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(residueName, atomNames);
+    }
+  }
 }
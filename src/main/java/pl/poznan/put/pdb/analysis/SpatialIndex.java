@@ -0,0 +1,450 @@
+package pl.poznan.put.pdb.analysis;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.apache.commons.lang3.Validate;
+import pl.poznan.put.pdb.PdbAtomLine;
+
+/**
+ * A spatial index of points (usually atoms) in a uniform grid of cubic cells (a cell list). The
+ * coordinates are copied into primitive arrays and the points are sorted by their cells, so that
+ * queries visit only the cells which overlap the searched region. The number of cells is bounded by
+ * the number of points, so sparse structures do not waste memory. Large inputs are indexed and
+ * queried in parallel.
+ *
+ * <p>All queries return indices of points, in the order in which they were given. When the index is
+ * created from a {@link ResidueCollection}, atoms are numbered consecutively residue by residue and
+ * {@link #residueIndex(int)} maps them back to positions in {@link ResidueCollection#residues()}.
+ * An instance is immutable and thread-safe.
+ */
+public final class SpatialIndex {
+  /** A default cell size, close to the typical length of a contact between atoms. */
+  public static final double DEFAULT_CELL_SIZE = 4.0;
+
+  private static final int PARALLEL_THRESHOLD = 16384;
+  private static final int CHUNK_SIZE = 4096;
+  private static final int MAX_CELLS_PER_POINT = 8;
+
+  private final double[] x;
+  private final double[] y;
+  private final double[] z;
+  private final int[] residueIndices;
+  private final int residueCount;
+
+  private final double cellSize;
+  private final double minX;
+  private final double minY;
+  private final double minZ;
+  private final int nx;
+  private final int ny;
+  private final int nz;
+  private final int[] cellStart;
+  private final int[] order;
+  // coordinates in the order of cells, so that scanning a cell reads memory sequentially
+  private final double[] sortedX;
+  private final double[] sortedY;
+  private final double[] sortedZ;
+
+  private SpatialIndex(
+      final double[] x,
+      final double[] y,
+      final double[] z,
+      final int[] residueIndices,
+      final int residueCount,
+      final double requestedCellSize) {
+    super();
+    Validate.isTrue(x.length == y.length && y.length == z.length, "Coordinate arrays differ");
+    Validate.isTrue(requestedCellSize > 0.0, "Cell size must be positive");
+    this.x = x;
+    this.y = y;
+    this.z = z;
+    this.residueIndices = residueIndices;
+    this.residueCount = residueCount;
+
+    final int n = x.length;
+    minX = SpatialIndex.min(x);
+    minY = SpatialIndex.min(y);
+    minZ = SpatialIndex.min(z);
+    final double spanX = SpatialIndex.max(x) - minX;
+    final double spanY = SpatialIndex.max(y) - minY;
+    final double spanZ = SpatialIndex.max(z) - minZ;
+
+    // enlarge cells until their number is proportional to the number of points
+    final long maxCells = Math.max(1L, (long) n * SpatialIndex.MAX_CELLS_PER_POINT);
+    double size = requestedCellSize;
+    while (SpatialIndex.cellCount(spanX, size)
+            * SpatialIndex.cellCount(spanY, size)
+            * SpatialIndex.cellCount(spanZ, size)
+        > maxCells) {
+      size *= 1.5;
+    }
+    cellSize = size;
+    nx = (int) SpatialIndex.cellCount(spanX, size);
+    ny = (int) SpatialIndex.cellCount(spanY, size);
+    nz = (int) SpatialIndex.cellCount(spanZ, size);
+
+    // counting sort of points by their cells, stable to keep ascending indices within a cell
+    final int[] cellOf = new int[n];
+    SpatialIndex.range(n).forEach(i -> cellOf[i] = cellOf(x[i], y[i], z[i]));
+    cellStart = new int[nx * ny * nz + 1];
+    for (final int cell : cellOf) {
+      cellStart[cell + 1]++;
+    }
+    for (int i = 1; i < cellStart.length; i++) {
+      cellStart[i] += cellStart[i - 1];
+    }
+    order = new int[n];
+    final int[] next = Arrays.copyOf(cellStart, cellStart.length - 1);
+    for (int i = 0; i < n; i++) {
+      order[next[cellOf[i]]++] = i;
+    }
+    sortedX = new double[n];
+    sortedY = new double[n];
+    sortedZ = new double[n];
+    SpatialIndex.range(n)
+        .forEach(
+            m -> {
+              sortedX[m] = x[order[m]];
+              sortedY[m] = y[order[m]];
+              sortedZ[m] = z[order[m]];
+            });
+  }
+
+  /**
+   * Creates an index of all atoms in a collection of residues.
+   *
+   * @param residueCollection A collection of residues.
+   * @param cellSize The requested length of a cell edge in Angstroms.
+   * @return An index of atoms.
+   */
+  public static SpatialIndex of(final ResidueCollection residueCollection, final double cellSize) {
+    final List<PdbResidue> residues = residueCollection.residues();
+    final int n = residues.stream().mapToInt(residue -> residue.atoms().size()).sum();
+    final double[] x = new double[n];
+    final double[] y = new double[n];
+    final double[] z = new double[n];
+    final int[] residueIndices = new int[n];
+
+    int k = 0;
+    for (int i = 0; i < residues.size(); i++) {
+      for (final PdbAtomLine atom : residues.get(i).atoms()) {
+        x[k] = atom.x();
+        y[k] = atom.y();
+        z[k] = atom.z();
+        residueIndices[k] = i;
+        k++;
+      }
+    }
+    return new SpatialIndex(x, y, z, residueIndices, residues.size(), cellSize);
+  }
+
+  /**
+   * Creates an index of all atoms in a collection of residues with the default cell size.
+   *
+   * @param residueCollection A collection of residues.
+   * @return An index of atoms.
+   */
+  public static SpatialIndex of(final ResidueCollection residueCollection) {
+    return SpatialIndex.of(residueCollection, SpatialIndex.DEFAULT_CELL_SIZE);
+  }
+
+  /**
+   * Creates an index of arbitrary points. Each point is treated as a separate residue.
+   *
+   * @param x The x coordinates.
+   * @param y The y coordinates.
+   * @param z The z coordinates.
+   * @param cellSize The requested length of a cell edge in Angstroms.
+   * @return An index of points.
+   */
+  public static SpatialIndex of(
+      final double[] x, final double[] y, final double[] z, final double cellSize) {
+    final int[] residueIndices = IntStream.range(0, x.length).toArray();
+    return new SpatialIndex(
+        x.clone(), y.clone(), z.clone(), residueIndices, residueIndices.length, cellSize);
+  }
+
+  private static long cellCount(final double span, final double size) {
+    return Math.max(1L, (long) Math.floor(span / size) + 1L);
+  }
+
+  private static double min(final double[] values) {
+    return Arrays.stream(values).min().orElse(0.0);
+  }
+
+  private static double max(final double[] values) {
+    return Arrays.stream(values).max().orElse(0.0);
+  }
+
+  private static IntStream range(final int n) {
+    final IntStream stream = IntStream.range(0, n);
+    return n >= SpatialIndex.PARALLEL_THRESHOLD ? stream.parallel() : stream;
+  }
+
+  private static int clamp(final long value, final int limit) {
+    return (int) Math.max(0L, Math.min(limit - 1L, value));
+  }
+
+  /**
+   * @return The number of indexed points.
+   */
+  public int size() {
+    return x.length;
+  }
+
+  /**
+   * @return The number of residues (or points, if created from coordinates) in the index.
+   */
+  public int residueCount() {
+    return residueCount;
+  }
+
+  /**
+   * @param atomIndex An index of a point.
+   * @return The index of the residue to which the point belongs.
+   */
+  public int residueIndex(final int atomIndex) {
+    return residueIndices[atomIndex];
+  }
+
+  /**
+   * Finds all points within a given distance.
+   *
+   * @param qx The x coordinate of the query.
+   * @param qy The y coordinate of the query.
+   * @param qz The z coordinate of the query.
+   * @param radius The maximum distance (inclusive).
+   * @return Ascending indices of points not further than the radius.
+   */
+  public int[] withinRadius(
+      final double qx, final double qy, final double qz, final double radius) {
+    final IntBuffer result = new IntBuffer();
+    collectWithinRadius(qx, qy, qz, radius, -1, result);
+    final int[] indices = result.toArray();
+    Arrays.sort(indices);
+    return indices;
+  }
+
+  /**
+   * Finds all residues with at least one atom within a given distance.
+   *
+   * @param qx The x coordinate of the query.
+   * @param qy The y coordinate of the query.
+   * @param qz The z coordinate of the query.
+   * @param radius The maximum distance (inclusive).
+   * @return Ascending, distinct indices of residues.
+   */
+  public int[] residuesWithinRadius(
+      final double qx, final double qy, final double qz, final double radius) {
+    return Arrays.stream(withinRadius(qx, qy, qz, radius))
+        .map(i -> residueIndices[i])
+        .sorted()
+        .distinct()
+        .toArray();
+  }
+
+  /**
+   * Finds the nearest points.
+   *
+   * @param qx The x coordinate of the query.
+   * @param qy The y coordinate of the query.
+   * @param qz The z coordinate of the query.
+   * @param k The number of points to find.
+   * @return Indices of at most k nearest points, ordered by distance (ties by index).
+   */
+  public int[] nearest(final double qx, final double qy, final double qz, final int k) {
+    Validate.isTrue(k >= 0, "The number of neighbours must not be negative");
+    if (k == 0 || size() == 0) {
+      return new int[0];
+    }
+
+    final int cx = SpatialIndex.clamp((long) Math.floor((qx - minX) / cellSize), nx);
+    final int cy = SpatialIndex.clamp((long) Math.floor((qy - minY) / cellSize), ny);
+    final int cz = SpatialIndex.clamp((long) Math.floor((qz - minZ) / cellSize), nz);
+    final int maxShell = Math.max(nx, Math.max(ny, nz));
+    final IntBuffer candidates = new IntBuffer();
+
+    for (int shell = 0; shell <= maxShell; shell++) {
+      for (int i = Math.max(0, cx - shell); i <= Math.min(nx - 1, cx + shell); i++) {
+        for (int j = Math.max(0, cy - shell); j <= Math.min(ny - 1, cy + shell); j++) {
+          for (int l = Math.max(0, cz - shell); l <= Math.min(nz - 1, cz + shell); l++) {
+            final int chebyshev =
+                Math.max(Math.abs(i - cx), Math.max(Math.abs(j - cy), Math.abs(l - cz)));
+            if (chebyshev == shell) {
+              final int cell = (i * ny + j) * nz + l;
+              for (int m = cellStart[cell]; m < cellStart[cell + 1]; m++) {
+                candidates.add(order[m]);
+              }
+            }
+          }
+        }
+      }
+
+      // points in the next shells are at least (shell * cellSize) away
+      if (candidates.size >= k) {
+        final double[] distances = new double[candidates.size];
+        for (int m = 0; m < candidates.size; m++) {
+          distances[m] = distanceSquared(candidates.values[m], qx, qy, qz);
+        }
+        Arrays.sort(distances);
+        final double bound = shell * cellSize;
+        if (distances[k - 1] < bound * bound) {
+          break;
+        }
+      }
+    }
+
+    return Arrays.stream(candidates.toArray())
+        .boxed()
+        .sorted(
+            Comparator.comparingDouble((Integer i) -> distanceSquared(i, qx, qy, qz))
+                .thenComparingInt(i -> i))
+        .limit(k)
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+
+  /**
+   * Finds all pairs of points within a given distance from each other.
+   *
+   * @param cutoff The maximum distance (inclusive).
+   * @return A flat array of pairs {@code [i0, j0, i1, j1, ...]} with {@code i < j}, ordered by i
+   *     and then by j.
+   */
+  public int[] pairsWithinCutoff(final double cutoff) {
+    return SpatialIndex.concatenate(
+        SpatialIndex.chunks(size())
+            .mapToObj(
+                chunk -> {
+                  final IntBuffer pairs = new IntBuffer();
+                  final IntBuffer neighbours = new IntBuffer();
+                  final int end = Math.min(size(), chunk + SpatialIndex.CHUNK_SIZE);
+                  for (int i = chunk; i < end; i++) {
+                    neighbours.size = 0;
+                    collectWithinRadius(x[i], y[i], z[i], cutoff, i, neighbours);
+                    Arrays.sort(neighbours.values, 0, neighbours.size);
+                    for (int m = 0; m < neighbours.size; m++) {
+                      pairs.add(i);
+                      pairs.add(neighbours.values[m]);
+                    }
+                  }
+                  return pairs.toArray();
+                })
+            .toArray(int[][]::new));
+  }
+
+  /**
+   * Finds all pairs of distinct residues which have at least one pair of atoms within a given
+   * distance from each other.
+   *
+   * @param cutoff The maximum distance (inclusive).
+   * @return A flat array of pairs {@code [i0, j0, i1, j1, ...]} of residue indices with {@code i <
+   *     j}, ordered by i and then by j.
+   */
+  public int[] residuePairsWithinCutoff(final double cutoff) {
+    final int[] atomPairs = pairsWithinCutoff(cutoff);
+    final long[] encoded =
+        SpatialIndex.range(atomPairs.length / 2)
+            .mapToLong(
+                p -> {
+                  final int ri = residueIndices[atomPairs[2 * p]];
+                  final int rj = residueIndices[atomPairs[2 * p + 1]];
+                  return ri == rj ? -1L : ((long) Math.min(ri, rj) << 32) | Math.max(ri, rj);
+                })
+            .filter(value -> value >= 0L)
+            .sorted()
+            .distinct()
+            .toArray();
+
+    final int[] result = new int[encoded.length * 2];
+    for (int p = 0; p < encoded.length; p++) {
+      result[2 * p] = (int) (encoded[p] >>> 32);
+      result[2 * p + 1] = (int) encoded[p];
+    }
+    return result;
+  }
+
+  private static IntStream chunks(final int n) {
+    final int count = (n + SpatialIndex.CHUNK_SIZE - 1) / SpatialIndex.CHUNK_SIZE;
+    final IntStream stream = IntStream.range(0, count).map(i -> i * SpatialIndex.CHUNK_SIZE);
+    return n >= SpatialIndex.PARALLEL_THRESHOLD ? stream.parallel() : stream;
+  }
+
+  private static int[] concatenate(final int[][] parts) {
+    final int[] result = new int[Arrays.stream(parts).mapToInt(part -> part.length).sum()];
+    int offset = 0;
+    for (final int[] part : parts) {
+      System.arraycopy(part, 0, result, offset, part.length);
+      offset += part.length;
+    }
+    return result;
+  }
+
+  private int cellOf(final double px, final double py, final double pz) {
+    final int cx = SpatialIndex.clamp((long) Math.floor((px - minX) / cellSize), nx);
+    final int cy = SpatialIndex.clamp((long) Math.floor((py - minY) / cellSize), ny);
+    final int cz = SpatialIndex.clamp((long) Math.floor((pz - minZ) / cellSize), nz);
+    return (cx * ny + cy) * nz + cz;
+  }
+
+  private double distanceSquared(final int i, final double qx, final double qy, final double qz) {
+    final double dx = x[i] - qx;
+    final double dy = y[i] - qy;
+    final double dz = z[i] - qz;
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  // collects points within radius, skipping these with index not greater than lowerBound
+  private void collectWithinRadius(
+      final double qx,
+      final double qy,
+      final double qz,
+      final double radius,
+      final int lowerBound,
+      final IntBuffer result) {
+    if (size() == 0 || !(radius >= 0.0)) {
+      return;
+    }
+
+    final int fromX = SpatialIndex.clamp((long) Math.floor((qx - radius - minX) / cellSize), nx);
+    final int toX = SpatialIndex.clamp((long) Math.floor((qx + radius - minX) / cellSize), nx);
+    final int fromY = SpatialIndex.clamp((long) Math.floor((qy - radius - minY) / cellSize), ny);
+    final int toY = SpatialIndex.clamp((long) Math.floor((qy + radius - minY) / cellSize), ny);
+    final int fromZ = SpatialIndex.clamp((long) Math.floor((qz - radius - minZ) / cellSize), nz);
+    final int toZ = SpatialIndex.clamp((long) Math.floor((qz + radius - minZ) / cellSize), nz);
+    final double radiusSquared = radius * radius;
+
+    for (int i = fromX; i <= toX; i++) {
+      for (int j = fromY; j <= toY; j++) {
+        final int rowStart = (i * ny + j) * nz;
+        for (int m = cellStart[rowStart + fromZ]; m < cellStart[rowStart + toZ + 1]; m++) {
+          final double dx = sortedX[m] - qx;
+          final double dy = sortedY[m] - qy;
+          final double dz = sortedZ[m] - qz;
+          if (dx * dx + dy * dy + dz * dz <= radiusSquared && order[m] > lowerBound) {
+            result.add(order[m]);
+          }
+        }
+      }
+    }
+  }
+
+  /** A growable array of primitive integers. */
+  private static final class IntBuffer {
+    private int[] values = new int[16];
+    private int size;
+
+    private void add(final int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    private int[] toArray() {
+      return Arrays.copyOf(values, size);
+    }
+  }
+}
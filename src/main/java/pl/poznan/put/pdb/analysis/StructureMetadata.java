@@ -0,0 +1,46 @@
+package pl.poznan.put.pdb.analysis;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.io.Serializable;
+import org.immutables.value.Value;
+import pl.poznan.put.pdb.PdbExpdtaLine;
+import pl.poznan.put.pdb.PdbHeaderLine;
+import pl.poznan.put.pdb.PdbRemark2Line;
+
+/** Metadata of a structure which is available without parsing any atoms. */
+@Value.Immutable
+@JsonSerialize(as = ImmutableStructureMetadata.class)
+@JsonDeserialize(as = ImmutableStructureMetadata.class)
+public abstract class StructureMetadata implements Serializable {
+  /**
+   * @return The structure header.
+   */
+  @Value.Parameter(order = 1)
+  public abstract PdbHeaderLine header();
+
+  /**
+   * @return Details about experiment used to solve the structure.
+   */
+  @Value.Parameter(order = 2)
+  public abstract PdbExpdtaLine experimentalData();
+
+  /**
+   * @return Information about the experimental resolution.
+   */
+  @Value.Parameter(order = 3)
+  public abstract PdbRemark2Line resolution();
+
+  /**
+   * @return Structure title.
+   */
+  @Value.Parameter(order = 4)
+  public abstract String title();
+
+  /**
+   * @return PDB id of the structure.
+   */
+  public final String idCode() {
+    return header().idCode();
+  }
+}
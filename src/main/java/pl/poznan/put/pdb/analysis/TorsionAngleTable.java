@@ -0,0 +1,269 @@
+package pl.poznan.put.pdb.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import pl.poznan.put.circular.GeometryKernel;
+import pl.poznan.put.circular.ImmutableAngle;
+import pl.poznan.put.pdb.PdbAtomLine;
+import pl.poznan.put.rna.NucleotideTorsionAngle;
+import pl.poznan.put.rna.PseudophasePuckerType;
+import pl.poznan.put.torsion.AtomBasedTorsionAngleType;
+import pl.poznan.put.torsion.ImmutableTorsionAngleValue;
+import pl.poznan.put.torsion.TorsionAngleType;
+
+/**
+ * Values of all torsion angles in a list of residues, stored in a primitive table with a row per
+ * residue and a column per angle type. For every {@link AtomBasedTorsionAngleType}, the quadruples
+ * of atoms are resolved once to indices in a flat array of coordinates and then all angles are
+ * computed in a single pass with {@link GeometryKernel}, without creating intermediate objects.
+ * Other angle types are computed with {@link TorsionAngleType#calculate(List, int)}. The values are
+ * equal to those calculated for each residue separately by {@link
+ * ResidueTorsionAngles#calculate(List, int)}.
+ */
+public final class TorsionAngleTable {
+  private static final List<TorsionAngleType> SUGAR_ANGLE_TYPES =
+      Stream.of(
+              NucleotideTorsionAngle.NU0,
+              NucleotideTorsionAngle.NU1,
+              NucleotideTorsionAngle.NU2,
+              NucleotideTorsionAngle.NU3,
+              NucleotideTorsionAngle.NU4)
+          .map(angle -> angle.angleTypes().get(0))
+          .collect(Collectors.toList());
+
+  private final List<PdbResidue> residues;
+  private final List<TorsionAngleType> angleTypes;
+  private final Map<TorsionAngleType, Integer> columns;
+  private final int[][] residueColumns;
+  private final double[][] values;
+
+  private TorsionAngleTable(final List<PdbResidue> residues, final boolean parallel) {
+    super();
+    this.residues = residues;
+
+    // residues of the same type share their columns
+    final Map<TorsionAngleType, Integer> columnMap = new LinkedHashMap<>();
+    final Map<ResidueInformationProvider, int[]> providerColumns = new HashMap<>();
+    residueColumns = new int[residues.size()][];
+    for (int i = 0; i < residues.size(); i++) {
+      residueColumns[i] =
+          providerColumns.computeIfAbsent(
+              residues.get(i).residueInformationProvider(),
+              provider ->
+                  provider.torsionAngleTypes().stream()
+                      .mapToInt(type -> columnMap.computeIfAbsent(type, key -> columnMap.size()))
+                      .toArray());
+    }
+    columns = Collections.unmodifiableMap(columnMap);
+    angleTypes = Collections.unmodifiableList(new ArrayList<>(columnMap.keySet()));
+
+    values = new double[residues.size()][angleTypes.size()];
+    for (final double[] row : values) {
+      Arrays.fill(row, Double.NaN);
+    }
+
+    final int[] sugarColumns =
+        TorsionAngleTable.SUGAR_ANGLE_TYPES.stream()
+            .mapToInt(type -> columns.getOrDefault(type, -1))
+            .toArray();
+    final Plan plan = new Plan();
+    final List<int[]> puckers = new ArrayList<>();
+    final List<int[]> fallback = new ArrayList<>();
+    for (int i = 0; i < residues.size(); i++) {
+      for (final int column : residueColumns[i]) {
+        final TorsionAngleType type = angleTypes.get(column);
+        if (type instanceof AtomBasedTorsionAngleType) {
+          plan.add(i, column, (AtomBasedTorsionAngleType) type);
+        } else if (type instanceof PseudophasePuckerType
+            && TorsionAngleTable.containsAll(residueColumns[i], sugarColumns)) {
+          puckers.add(new int[] {i, column});
+        } else {
+          fallback.add(new int[] {i, column});
+        }
+      }
+    }
+
+    final double[] coordinates = plan.coordinates();
+    TorsionAngleTable.stream(plan.size, parallel)
+        .forEach(
+            k ->
+                values[plan.rows[k]][plan.columns[k]] =
+                    GeometryKernel.torsionAngle(
+                        coordinates,
+                        plan.atoms[4 * k],
+                        plan.atoms[4 * k + 1],
+                        plan.atoms[4 * k + 2],
+                        plan.atoms[4 * k + 3]));
+    // pseudophase pucker is derived from nu0..nu4, which are already in the table
+    for (final int[] pucker : puckers) {
+      final double[] row = values[pucker[0]];
+      row[pucker[1]] =
+          GeometryKernel.normalize(
+              PseudophasePuckerType.calculate(
+                  row[sugarColumns[0]],
+                  row[sugarColumns[1]],
+                  row[sugarColumns[2]],
+                  row[sugarColumns[3]],
+                  row[sugarColumns[4]]));
+    }
+
+    TorsionAngleTable.stream(fallback.size(), parallel)
+        .forEach(
+            k -> {
+              final int row = fallback.get(k)[0];
+              final int column = fallback.get(k)[1];
+              values[row][column] =
+                  angleTypes.get(column).calculate(residues, row).value().radians();
+            });
+  }
+
+  /**
+   * Calculates values of all torsion angles in the given residues.
+   *
+   * @param residues The list of residues.
+   * @return A table of torsion angle values.
+   */
+  public static TorsionAngleTable calculate(final List<PdbResidue> residues) {
+    return new TorsionAngleTable(residues, false);
+  }
+
+  /**
+   * Calculates values of all torsion angles in the given residues.
+   *
+   * @param residues The list of residues.
+   * @param parallel If true, the values are computed in parallel.
+   * @return A table of torsion angle values.
+   */
+  public static TorsionAngleTable calculate(
+      final List<PdbResidue> residues, final boolean parallel) {
+    return new TorsionAngleTable(residues, parallel);
+  }
+
+  private static boolean containsAll(final int[] array, final int[] values) {
+    for (final int value : values) {
+      boolean found = false;
+      for (final int element : array) {
+        found |= element == value;
+      }
+      if (!found) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static IntStream stream(final int size, final boolean parallel) {
+    final IntStream stream = IntStream.range(0, size);
+    return parallel ? stream.parallel() : stream;
+  }
+
+  /**
+   * @return The number of rows (residues).
+   */
+  public int size() {
+    return residues.size();
+  }
+
+  /**
+   * @return The list of angle types, in the order of columns.
+   */
+  public List<TorsionAngleType> angleTypes() {
+    return angleTypes;
+  }
+
+  /**
+   * @param residueIndex The index of a residue.
+   * @param angleType An angle type.
+   * @return The value in radians or NaN if it is undefined or not applicable to the residue.
+   */
+  public double value(final int residueIndex, final TorsionAngleType angleType) {
+    final Integer column = columns.get(angleType);
+    return column == null ? Double.NaN : values[residueIndex][column];
+  }
+
+  /**
+   * @return A copy of the table with a row per residue and a column per angle type (see {@link
+   *     #angleTypes()}). Values are in radians, NaN if undefined or not applicable.
+   */
+  public double[][] values() {
+    return Arrays.stream(values).map(double[]::clone).toArray(double[][]::new);
+  }
+
+  /**
+   * @param residueIndex The index of a residue.
+   * @return Values of torsion angles applicable to the residue, in the same form as {@link
+   *     ResidueTorsionAngles#calculate(List, int)}.
+   */
+  public ResidueTorsionAngles residueTorsionAngles(final int residueIndex) {
+    return ImmutableResidueTorsionAngles.of(
+        residues.get(residueIndex).identifier(),
+        Arrays.stream(residueColumns[residueIndex])
+            .mapToObj(
+                column ->
+                    ImmutableTorsionAngleValue.of(
+                        angleTypes.get(column), ImmutableAngle.of(values[residueIndex][column])))
+            .collect(Collectors.toList()));
+  }
+
+  /** Atom quadruples resolved to offsets in a flat array of coordinates of all atoms. */
+  private final class Plan {
+    private final int[] firstAtoms = new int[residues.size() + 1];
+    private int[] rows = new int[16];
+    private int[] columns = new int[16];
+    private int[] atoms = new int[64];
+    private int size;
+
+    private Plan() {
+      super();
+      for (int i = 0; i < residues.size(); i++) {
+        firstAtoms[i + 1] = firstAtoms[i] + residues.get(i).atoms().size();
+      }
+    }
+
+    private void add(final int row, final int column, final AtomBasedTorsionAngleType type) {
+      if (size == rows.length) {
+        rows = Arrays.copyOf(rows, size * 2);
+        columns = Arrays.copyOf(columns, size * 2);
+        atoms = Arrays.copyOf(atoms, size * 8);
+      }
+
+      for (int i = 0; i < 4; i++) {
+        final int index = row + type.residueRule().get(i);
+        if (index < 0 || index >= residues.size()) {
+          return;
+        }
+
+        final int position = residues.get(index).atomIndex().indexOf(type.atoms().get(i));
+        if (position == -1) {
+          return;
+        }
+        atoms[4 * size + i] = 3 * (firstAtoms[index] + position);
+      }
+
+      rows[size] = row;
+      columns[size] = column;
+      size++;
+    }
+
+    private double[] coordinates() {
+      final double[] coordinates = new double[3 * firstAtoms[residues.size()]];
+      int k = 0;
+      for (final PdbResidue residue : residues) {
+        for (final PdbAtomLine atom : residue.atoms()) {
+          coordinates[k++] = atom.x();
+          coordinates[k++] = atom.y();
+          coordinates[k++] = atom.z();
+        }
+      }
+      return coordinates;
+    }
+  }
+}
@@ -3,7 +3,6 @@ package pl.poznan.put.rna;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import java.util.List;
-import java.util.stream.Stream;
 import org.apache.commons.math3.util.FastMath;
 import org.immutables.value.Value;
 import pl.poznan.put.circular.ImmutableAngle;
@@ -60,18 +59,41 @@ public abstract class PseudophasePuckerType implements TorsionAngleType {
     final TorsionAngleValue nu4 =
         NucleotideTorsionAngle.NU4.angleTypes().get(0).calculate(residues, currentIndex);
 
-    if (Stream.of(nu0, nu1, nu2, nu3, nu4)
-        .map(TorsionAngleValue::value)
-        .anyMatch(angle -> !angle.isValid())) {
-      return ImmutableTorsionAngleValue.of(this, ImmutableAngle.of(Double.NaN));
+    return ImmutableTorsionAngleValue.of(
+        this,
+        ImmutableAngle.of(
+            PseudophasePuckerType.calculate(
+                nu0.value().radians(),
+                nu1.value().radians(),
+                nu2.value().radians(),
+                nu3.value().radians(),
+                nu4.value().radians())));
+  }
+
+  /**
+   * Calculates the value of pseudophase pucker from values of sugar ring torsion angles.
+   *
+   * @param nu0 The value of nu0 in radians.
+   * @param nu1 The value of nu1 in radians.
+   * @param nu2 The value of nu2 in radians.
+   * @param nu3 The value of nu3 in radians.
+   * @param nu4 The value of nu4 in radians.
+   * @return The value of pseudophase pucker in radians or NaN if any of the input values is NaN.
+   */
+  public static double calculate(
+      final double nu0, final double nu1, final double nu2, final double nu3, final double nu4) {
+    if (Double.isNaN(nu0)
+        || Double.isNaN(nu1)
+        || Double.isNaN(nu2)
+        || Double.isNaN(nu3)
+        || Double.isNaN(nu4)) {
+      return Double.NaN;
     }
 
     final double scale =
         2.0 * (FastMath.sin(FastMath.toRadians(36.0)) + FastMath.sin(FastMath.toRadians(72.0)));
-    final double y =
-        (nu1.value().radians() + nu4.value().radians())
-            - (nu0.value().radians() + nu3.value().radians());
-    final double x = nu2.value().radians() * scale;
-    return ImmutableTorsionAngleValue.of(this, ImmutableAngle.of(FastMath.atan2(y, x)));
+    final double y = (nu1 + nu4) - (nu0 + nu3);
+    final double x = nu2 * scale;
+    return FastMath.atan2(y, x);
   }
 }
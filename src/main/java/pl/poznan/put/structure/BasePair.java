@@ -5,9 +5,9 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import java.io.Serializable;
 import java.util.stream.Stream;
 import org.apache.commons.lang3.builder.CompareToBuilder;
-import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 import org.immutables.value.Value;
 import pl.poznan.put.atom.AtomName;
+import pl.poznan.put.circular.GeometryKernel;
 import pl.poznan.put.pdb.PdbAtomLine;
 import pl.poznan.put.pdb.PdbNamedResidueIdentifier;
 import pl.poznan.put.pdb.analysis.PdbResidue;
@@ -24,6 +24,11 @@ public abstract class BasePair implements Serializable, Comparable<BasePair> {
   private static final double CG_DISTANCE_N4_O6 = 2.96 + (0.17 * 3.0);
   private static final double CG_DISTANCE_O2_N2 = 2.77 + (0.15 * 3.0);
   private static final double CG_DISTANCE_N3_N1 = 2.89 + (0.11 * 3.0);
+  // every canonical pair has purine N1 bonded to pyrimidine N3 (A-U, C-G) or uracil O2 (G-U)
+  static final double MAX_ANCHOR_DISTANCE =
+      Math.max(
+          BasePair.AU_DISTANCE_N1_N3,
+          Math.max(BasePair.CG_DISTANCE_N3_N1, BasePair.GU_DISTANCE_N1_O2));
 
   /**
    * Checks if two residues are canonical base pairs by means of (1) distance between atoms which
@@ -126,9 +131,14 @@ public abstract class BasePair implements Serializable, Comparable<BasePair> {
     final PdbAtomLine c8 = purine.findAtom(AtomName.C8);
     final PdbAtomLine n1 = purine.findAtom(AtomName.N1);
 
-    final Vector3D v1 = n3.toVector3D().subtract(c6.toVector3D());
-    final Vector3D v2 = n1.toVector3D().subtract(c8.toVector3D());
-    final double dotProduct = v1.dotProduct(v2);
+    final double dotProduct =
+        GeometryKernel.dotProduct(
+            n3.x() - c6.x(),
+            n3.y() - c6.y(),
+            n3.z() - c6.z(),
+            n1.x() - c8.x(),
+            n1.y() - c8.y(),
+            n1.z() - c8.z());
     return dotProduct < 0.0;
   }
 
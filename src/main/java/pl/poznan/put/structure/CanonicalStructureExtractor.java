@@ -5,15 +5,23 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import pl.poznan.put.atom.AtomName;
+import pl.poznan.put.pdb.PdbAtomLine;
 import pl.poznan.put.pdb.PdbNamedResidueIdentifier;
 import pl.poznan.put.pdb.analysis.ImmutableDefaultResidueCollection;
 import pl.poznan.put.pdb.analysis.MoleculeType;
 import pl.poznan.put.pdb.analysis.PdbResidue;
 import pl.poznan.put.pdb.analysis.ResidueCollection;
+import pl.poznan.put.pdb.analysis.SpatialIndex;
 import pl.poznan.put.structure.formats.BpSeq;
 
 /** A set of methods to analyze 3D data to extract the canonical 2D structure. */
 public final class CanonicalStructureExtractor {
+  private static final int PARALLEL_THRESHOLD = 1024;
+  // a margin for rounding differences between the index and the exact distance checks
+  private static final double ANCHOR_DISTANCE_MARGIN = 1.0e-3;
+
   private CanonicalStructureExtractor() {
     super();
     // empty constructor
@@ -44,28 +52,103 @@ public final class CanonicalStructureExtractor {
   public static Collection<ClassifiedBasePair> basePairs(
       final ResidueCollection residueCollection) {
     final List<PdbResidue> residues = residueCollection.residues();
+    final int[] candidates = CanonicalStructureExtractor.candidatePairs(residues);
+    final int count = candidates.length / 2;
+
+    final boolean[] canonical = new boolean[count];
+    final IntStream range = IntStream.range(0, count);
+    (count >= CanonicalStructureExtractor.PARALLEL_THRESHOLD ? range.parallel() : range)
+        .forEach(
+            k ->
+                canonical[k] =
+                    BasePair.isCanonicalPair(
+                        residues.get(candidates[2 * k]), residues.get(candidates[2 * k + 1])));
+
+    // the greedy assignment follows the (i, j) order of the exhaustive search
     final Collection<ClassifiedBasePair> basePairs = new ArrayList<>();
     final Collection<PdbNamedResidueIdentifier> paired = new HashSet<>();
+    for (int k = 0; k < count; k++) {
+      if (canonical[k]) {
+        final PdbNamedResidueIdentifier leftId =
+            residues.get(candidates[2 * k]).namedResidueIdentifier();
+        final PdbNamedResidueIdentifier rightId =
+            residues.get(candidates[2 * k + 1]).namedResidueIdentifier();
 
-    for (int i = 0; i < residues.size(); i++) {
-      final PdbResidue left = residues.get(i);
+        if (!paired.contains(leftId) && !paired.contains(rightId)) {
+          basePairs.add(ImmutableAnalyzedBasePair.of(ImmutableBasePair.of(leftId, rightId)));
+          paired.add(leftId);
+          paired.add(rightId);
+        }
+      }
+    }
 
-      for (int j = i + 1; j < residues.size(); j++) {
-        final PdbResidue right = residues.get(j);
+    return basePairs;
+  }
 
-        if (BasePair.isCanonicalPair(left, right)) {
-          final PdbNamedResidueIdentifier leftId = left.namedResidueIdentifier();
-          final PdbNamedResidueIdentifier rightId = right.namedResidueIdentifier();
+  /*
+   * Each canonical pair requires a hydrogen bond between purine N1 and pyrimidine N3 (A-U, C-G) or
+   * guanine N1 and uracil O2 (G-U), so only residues with such atoms close enough are candidates.
+   * Returns a flat array of residue index pairs (i < j) ordered by i and then by j.
+   */
+  private static int[] candidatePairs(final List<PdbResidue> residues) {
+    final List<PdbAtomLine> anchors = new ArrayList<>();
+    final List<Integer> owners = new ArrayList<>();
+    final List<AtomName> names = new ArrayList<>();
 
-          if (!paired.contains(leftId) && !paired.contains(rightId)) {
-            basePairs.add(ImmutableAnalyzedBasePair.of(ImmutableBasePair.of(leftId, rightId)));
-            paired.add(leftId);
-            paired.add(rightId);
-          }
+    for (int i = 0; i < residues.size(); i++) {
+      final PdbResidue residue = residues.get(i);
+      final char name = Character.toUpperCase(residue.oneLetterName());
+      final AtomName[] atomNames;
+      if (name == 'A' || name == 'G') {
+        atomNames = new AtomName[] {AtomName.N1};
+      } else if (name == 'U' || name == 'T') {
+        atomNames = new AtomName[] {AtomName.N3, AtomName.O2};
+      } else if (name == 'C') {
+        atomNames = new AtomName[] {AtomName.N3};
+      } else {
+        continue;
+      }
+
+      for (final AtomName atomName : atomNames) {
+        if (residue.hasAtom(atomName)) {
+          anchors.add(residue.findAtom(atomName));
+          owners.add(i);
+          names.add(atomName);
         }
       }
     }
 
-    return basePairs;
+    final SpatialIndex index =
+        SpatialIndex.of(
+            anchors.stream().mapToDouble(PdbAtomLine::x).toArray(),
+            anchors.stream().mapToDouble(PdbAtomLine::y).toArray(),
+            anchors.stream().mapToDouble(PdbAtomLine::z).toArray(),
+            BasePair.MAX_ANCHOR_DISTANCE);
+    final int[] anchorPairs =
+        index.pairsWithinCutoff(
+            BasePair.MAX_ANCHOR_DISTANCE + CanonicalStructureExtractor.ANCHOR_DISTANCE_MARGIN);
+
+    final long[] residuePairs =
+        IntStream.range(0, anchorPairs.length / 2)
+            .filter(
+                k ->
+                    names.get(anchorPairs[2 * k]) == AtomName.N1
+                        ^ names.get(anchorPairs[2 * k + 1]) == AtomName.N1)
+            .mapToLong(
+                k -> {
+                  final int i = owners.get(anchorPairs[2 * k]);
+                  final int j = owners.get(anchorPairs[2 * k + 1]);
+                  return ((long) Math.min(i, j) << 32) | Math.max(i, j);
+                })
+            .sorted()
+            .distinct()
+            .toArray();
+
+    final int[] result = new int[residuePairs.length * 2];
+    for (int k = 0; k < residuePairs.length; k++) {
+      result[2 * k] = (int) (residuePairs[k] >>> 32);
+      result[2 * k + 1] = (int) residuePairs[k];
+    }
+    return result;
   }
 }
@@ -212,11 +212,7 @@ public abstract class BpSeq implements Serializable {
             .map(region -> region.entries().get(0))
             .collect(Collectors.toList());
 
-    BpSeq result = ImmutableBpSeq.copyOf(this);
-    for (final BpSeq.Entry entry : toRemove) {
-      result = result.withoutPair(entry);
-    }
-    return result;
+    return withoutPairs(toRemove);
   }
 
   /**
@@ -226,23 +222,31 @@ public abstract class BpSeq implements Serializable {
    * @return A copy of this instance without the given pair.
    */
   public final BpSeq withoutPair(final BpSeq.Entry entry) {
-    if (!entry.isPaired()) {
-      return ImmutableBpSeq.copyOf(this);
-    }
-
-    final SortedSet<Entry> entriesCopy = new TreeSet<>(entries());
-    entriesCopy.remove(entry);
-    entriesCopy.add(ImmutableEntry.copyOf(entry).withPair(0));
-
-    final Optional<Entry> paired =
-        entries().stream().filter(e -> e.index() == entry.pair()).findFirst();
+    return withoutPairs(Collections.singleton(entry));
+  }
 
-    if (paired.isPresent()) {
-      entriesCopy.remove(paired.get());
-      entriesCopy.add(ImmutableEntry.copyOf(paired.get()).withPair(0));
+  /**
+   * Creates a copy of this instance, but with all the given pairs removed. The copy is made once,
+   * so it is much faster than removing pairs one by one.
+   *
+   * @param entriesToRemove The pairs to remove.
+   * @return A copy of this instance without the given pairs.
+   */
+  public final BpSeq withoutPairs(final Collection<? extends BpSeq.Entry> entriesToRemove) {
+    final PairTable pairTable = toPairTable();
+    for (final Entry entry : entriesToRemove) {
+      if (entry.isPaired()) {
+        pairTable.removePair(entry.index());
+      }
     }
+    return pairTable.toBpSeq();
+  }
 
-    return ImmutableBpSeq.of(entriesCopy);
+  /**
+   * @return A new pair table with data from this instance.
+   */
+  public final PairTable toPairTable() {
+    return PairTable.fromBpSeq(this);
   }
 
   @Override
@@ -40,11 +40,11 @@ public abstract class DefaultConverter implements Converter {
     Optional<State> current = state.parent();
 
     while (current.isPresent()) {
-      for (final BpSeq.Entry pairs : current.get().bpSeq().paired()) {
-        final int i = pairs.index();
-        final int j = pairs.pair();
+      final PairTable pairTable = current.get().bpSeq().toPairTable();
+      for (int i = 1; i <= pairTable.size(); i++) {
+        final int j = pairTable.pair(i);
 
-        if (structure[i - 1] == '.') {
+        if (j > i && structure[i - 1] == '.') {
           structure[i - 1] = DefaultConverter.BRACKETS_OPENING[current.get().level()];
           structure[j - 1] = DefaultConverter.BRACKETS_CLOSING[current.get().level()];
         }
@@ -124,7 +124,7 @@ public abstract class DefaultConverter implements Converter {
 
     @Value.Lazy
     public int score() {
-      return bpSeq().paired().size();
+      return bpSeq().toPairTable().pairCount();
     }
 
     @Override
@@ -0,0 +1,169 @@
+package pl.poznan.put.structure.formats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * A mutable, array-based view of RNA secondary structure. For each residue (indexed from 1 like in
+ * BPSEQ), it stores the index of its pair (or 0 if unpaired), the sequence character and the
+ * optional comment. It is meant for algorithms which repeatedly query or remove pairs, where
+ * copying a whole {@link BpSeq} for each change is too costly. Conversions from and to {@link
+ * BpSeq} take O(n).
+ *
+ * <p>This class is not thread-safe.
+ */
+public final class PairTable {
+  private final int[] pairs;
+  private final char[] sequence;
+  private final String[] comments;
+
+  private PairTable(final int[] pairs, final char[] sequence, final String[] comments) {
+    super();
+    this.pairs = pairs;
+    this.sequence = sequence;
+    this.comments = comments;
+  }
+
+  /**
+   * Creates a table with data from BPSEQ.
+   *
+   * @param bpSeq The data in BPSEQ format.
+   * @return A new instance of this class.
+   */
+  public static PairTable fromBpSeq(final BpSeq bpSeq) {
+    final int size = bpSeq.size();
+    final int[] pairs = new int[size];
+    final char[] sequence = new char[size];
+    final String[] comments = new String[size];
+
+    // BpSeq validates that entries are numbered 1, 2, ..., n
+    int i = 0;
+    for (final BpSeq.Entry entry : bpSeq.entries()) {
+      pairs[i] = entry.pair();
+      sequence[i] = entry.seq();
+      comments[i] = entry.comment();
+      i++;
+    }
+    return new PairTable(pairs, sequence, comments);
+  }
+
+  /**
+   * @return A new BPSEQ instance with the current state of this table.
+   */
+  public BpSeq toBpSeq() {
+    final List<BpSeq.Entry> entries = new ArrayList<>(pairs.length);
+    for (int index = 1; index <= pairs.length; index++) {
+      entries.add(entry(index));
+    }
+    return ImmutableBpSeq.of(entries);
+  }
+
+  /**
+   * @return An independent copy of this table.
+   */
+  public PairTable copy() {
+    return new PairTable(pairs.clone(), sequence.clone(), comments.clone());
+  }
+
+  /**
+   * @return The number of residues.
+   */
+  public int size() {
+    return pairs.length;
+  }
+
+  /**
+   * @param index The index of a residue (from 1).
+   * @return The index of its pair or 0 if it is unpaired.
+   */
+  public int pair(final int index) {
+    return pairs[index - 1];
+  }
+
+  /**
+   * @param index The index of a residue (from 1).
+   * @return True if the residue is paired.
+   */
+  public boolean isPaired(final int index) {
+    return pairs[index - 1] != 0;
+  }
+
+  /**
+   * @param index The index of a residue (from 1).
+   * @return The sequence character of the residue.
+   */
+  public char seq(final int index) {
+    return sequence[index - 1];
+  }
+
+  /**
+   * @return The sequence of nucleotides.
+   */
+  public String sequence() {
+    return new String(sequence);
+  }
+
+  /**
+   * @return A copy of the pair column, where value at position i - 1 is the pair of residue i.
+   */
+  public int[] pairs() {
+    return pairs.clone();
+  }
+
+  /**
+   * @return The number of pairs, each counted once.
+   */
+  public int pairCount() {
+    int count = 0;
+    for (int i = 0; i < pairs.length; i++) {
+      if (pairs[i] > i + 1) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @param index The index of a residue (from 1).
+   * @return The BPSEQ entry of the residue.
+   */
+  public BpSeq.Entry entry(final int index) {
+    return ImmutableEntry.of(index, sequence[index - 1], pairs[index - 1])
+        .withComment(comments[index - 1]);
+  }
+
+  /**
+   * @return The list of paired BPSEQ entries (i, j) with i &lt; j, ordered by i.
+   */
+  public List<BpSeq.Entry> paired() {
+    final List<BpSeq.Entry> paired = new ArrayList<>();
+    for (int index = 1; index <= pairs.length; index++) {
+      if (pairs[index - 1] > index) {
+        paired.add(entry(index));
+      }
+    }
+    return paired;
+  }
+
+  /**
+   * Removes a pair of a residue, so that both the residue and its partner become unpaired. Nothing
+   * happens if the residue is unpaired.
+   *
+   * @param index The index of a residue (from 1).
+   */
+  public void removePair(final int index) {
+    Validate.isTrue(index >= 1 && index <= pairs.length, "Index out of range: %d", index);
+    final int pair = pairs[index - 1];
+    if (pair != 0) {
+      pairs[index - 1] = 0;
+      pairs[pair - 1] = 0;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "PairTable{pairs=" + Arrays.toString(pairs) + ", sequence=" + sequence() + '}';
+  }
+}
@@ -2,7 +2,9 @@ package pl.poznan.put.structure.pseudoknots;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -11,11 +13,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
+import java.util.stream.IntStream;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.tuple.Pair;
-import org.apache.commons.math3.util.CombinatoricsUtils;
 import org.immutables.value.Value;
 import pl.poznan.put.structure.pseudoknots.dp.ConflictClique;
 import pl.poznan.put.structure.pseudoknots.dp.ImmutableConflictClique;
@@ -66,14 +65,22 @@ public abstract class ConflictGraph {
    * @param region The region to remove.
    */
   public final void removeRegion(final Region region) {
-    if (conflicts().containsKey(region)) {
-      for (final Region conflicted : conflicts().get(region)) {
-        conflicts().get(conflicted).remove(region);
-        if (conflicts().get(conflicted).isEmpty()) {
-          conflicts().remove(conflicted);
-        }
-      }
-      conflicts().remove(region);
+    final int index = indexOf(region);
+    if (index != -1) {
+      removeRegion(index);
+    }
+  }
+
+  /**
+   * Removes region and all associated conflicts with it from the graph.
+   *
+   * @param index The index of the region in the list used to create this graph.
+   */
+  public final void removeRegion(final int index) {
+    final Adjacency adjacency = adjacency();
+    final int first = adjacency.firsts[index];
+    if (adjacency.degrees[first] > 0) {
+      adjacency.remove(first);
     }
   }
 
@@ -84,9 +91,46 @@ public abstract class ConflictGraph {
    * @return A collection of regions in conflict with the given one.
    */
   public final Set<Region> conflictsWith(final Region region) {
-    return conflicts().containsKey(region)
-        ? Collections.unmodifiableSet(conflicts().get(region))
-        : Collections.emptySet();
+    final Adjacency adjacency = adjacency();
+    final int index = adjacency.indexOf(region);
+    if (index == -1 || adjacency.degrees[index] == 0) {
+      return Collections.emptySet();
+    }
+
+    return new AbstractSet<Region>() {
+      @Override
+      public Iterator<Region> iterator() {
+        return adjacency.regions(adjacency.conflicts(index));
+      }
+
+      @Override
+      public int size() {
+        return adjacency.degrees[index];
+      }
+    };
+  }
+
+  /**
+   * Returns indices of all regions that conflict with a given one. Equal regions are represented by
+   * the first of them in the list used to create this graph.
+   *
+   * @param index The index of a region in the list used to create this graph.
+   * @return Indices of regions in conflict with the given one, in ascending order.
+   */
+  public final int[] conflictIndices(final int index) {
+    final Adjacency adjacency = adjacency();
+    return adjacency.conflicts(adjacency.firsts[index]).toArray();
+  }
+
+  /**
+   * Finds the index of a region.
+   *
+   * @param region A region.
+   * @return The index of the first equal region in the list used to create this graph or -1 if
+   *     there is none.
+   */
+  public final int indexOf(final Region region) {
+    return adjacency().indexOf(region);
   }
 
   /**
@@ -95,14 +139,26 @@ public abstract class ConflictGraph {
    * @return A set of regions which are in at least one conflict.
    */
   public final Set<Region> regionsWithConflicts() {
-    return Collections.unmodifiableSet(conflicts().keySet());
+    final Adjacency adjacency = adjacency();
+    return new AbstractSet<Region>() {
+      @Override
+      public Iterator<Region> iterator() {
+        return adjacency.regions(
+            IntStream.range(0, adjacency.degrees.length).filter(i -> adjacency.degrees[i] > 0));
+      }
+
+      @Override
+      public int size() {
+        return adjacency.withConflicts;
+      }
+    };
   }
 
   /**
    * @return True if at least one region has at least one conflict.
    */
   public final boolean hasConflicts() {
-    return !conflicts().isEmpty();
+    return adjacency().withConflicts > 0;
   }
 
   /**
@@ -112,7 +168,9 @@ public abstract class ConflictGraph {
    * @return True if the given region has at least one conflict.
    */
   public final boolean hasConflicts(final Region region) {
-    return conflicts().containsKey(region);
+    final Adjacency adjacency = adjacency();
+    final int index = adjacency.indexOf(region);
+    return index != -1 && adjacency.degrees[index] > 0;
   }
 
   /**
@@ -121,37 +179,44 @@ public abstract class ConflictGraph {
    * @return The list of conflict cliques.
    */
   public final List<ConflictClique> conflictCliques() {
-    final List<ConflictClique> conflictCliques = new ArrayList<>();
-    final Collection<Region> seen = new HashSet<>();
+    final int[] components = componentLabels();
 
-    for (final Region region : conflicts().keySet()) {
-      if (seen.contains(region)) {
+    final List<Set<Region>> componentRegions = new ArrayList<>();
+    for (int i = 0; i < components.length; i++) {
+      if (components[i] == -1) {
         continue;
       }
-
-      final Collection<Region> todo = new HashSet<>();
-      todo.add(region);
-      final Set<Region> done = new HashSet<>();
-
-      while (!CollectionUtils.isEqualCollection(todo, done)) {
-        final Collection<Region> next = new ArrayList<>();
-        for (final Region r : todo) {
-          next.addAll(conflicts().get(r));
-          done.add(r);
-        }
-        todo.addAll(next);
+      if (components[i] == componentRegions.size()) {
+        componentRegions.add(new HashSet<>());
       }
+      componentRegions.get(components[i]).add(regions().get(i));
+    }
 
-      if (done.size() > 1) {
-        conflictCliques.add(ImmutableConflictClique.of(done));
+    final List<ConflictClique> conflictCliques = new ArrayList<>(componentRegions.size());
+    for (final Set<Region> regions : componentRegions) {
+      if (regions.size() > 1) {
+        conflictCliques.add(ImmutableConflictClique.of(regions));
       }
-
-      seen.addAll(done);
     }
-
     return conflictCliques;
   }
 
+  /**
+   * @return The number of regions in the largest conflict clique or 0 if there are no conflicts.
+   */
+  public final int largestConflictCliqueSize() {
+    final int[] components = componentLabels();
+    final int[] sizes = new int[components.length];
+    int max = 0;
+    for (final int component : components) {
+      if (component != -1) {
+        sizes[component]++;
+        max = Math.max(max, sizes[component]);
+      }
+    }
+    return max;
+  }
+
   /**
    * Creates a simplified copy of this instance. The simplification merges smaller region which are
    * fully embedded into the bigger ones, if both the small and big region have exactly the same
@@ -208,26 +273,282 @@ public abstract class ConflictGraph {
   }
 
   @Value.Lazy
-  protected Map<Region, Set<Region>> conflicts() {
-    if (regions().size() < 2) {
-      return Collections.emptyMap();
-    }
-
-    final Map<Region, Set<Region>> map = new HashMap<>();
-
-    final Iterator<int[]> iterator = CombinatoricsUtils.combinationsIterator(regions().size(), 2);
-    final Iterable<int[]> iterable = () -> iterator;
-    StreamSupport.stream(iterable.spliterator(), false)
-        .map(ints -> Pair.of(regions().get(ints[0]), regions().get(ints[1])))
-        .filter(pair -> ConflictGraph.isConflicting(pair.getLeft(), pair.getRight()))
-        .flatMap(pair -> Stream.of(pair, Pair.of(pair.getRight(), pair.getLeft())))
-        .distinct()
-        .forEach(
-            pair -> {
-              map.putIfAbsent(pair.getLeft(), new HashSet<>());
-              map.get(pair.getLeft()).add(pair.getRight());
-            });
-
-    return map;
+  protected Adjacency adjacency() {
+    return new Adjacency(regions());
+  }
+
+  /**
+   * Finds all conflicting pairs with a sweep over regions sorted by their beginning. Regions i and
+   * j conflict if b_i < b_j < e_i < e_j, so for each region only those which began earlier and end
+   * strictly inside it are reported. These are kept in a binary min-heap ordered by their end, from
+   * which regions ending before the current beginning are discarded. The ones ending before e_j are
+   * found by visiting only the heap nodes with smaller keys, so the total cost is O(n log n + k)
+   * for k conflicts.
+   *
+   * @param regions The list of regions.
+   * @return A flat array of indices [i1, j1, i2, j2, ...] of conflicting regions.
+   */
+  private static int[] conflictingPairs(final List<Region> regions) {
+    final int size = regions.size();
+    final long[] byBegin = new long[size];
+    for (int i = 0; i < size; i++) {
+      byBegin[i] = ConflictGraph.key(regions.get(i).begin(), i);
+    }
+    Arrays.sort(byBegin);
+
+    // active regions keyed by (end, index)
+    final long[] heap = new long[size];
+    int heapSize = 0;
+    final int[] stack = new int[size];
+    int[] pairs = new int[16];
+    int count = 0;
+
+    for (int g = 0; g < size; ) {
+      final int begin = (int) (byBegin[g] >> 32);
+      int h = g;
+      while (h < size && (int) (byBegin[h] >> 32) == begin) {
+        h++;
+      }
+
+      while (heapSize > 0 && (int) (heap[0] >> 32) <= begin) {
+        heapSize--;
+        heap[0] = heap[heapSize];
+        ConflictGraph.siftDown(heap, heapSize, 0);
+      }
+
+      // regions with the same beginning do not conflict, so query the whole group first
+      for (int k = g; k < h; k++) {
+        final int j = (int) byBegin[k];
+        final long limit = ConflictGraph.key(regions.get(j).end(), 0);
+
+        int top = 0;
+        if (heapSize > 0 && heap[0] < limit) {
+          stack[top++] = 0;
+        }
+        while (top > 0) {
+          final int node = stack[--top];
+          if (count + 2 > pairs.length) {
+            pairs = Arrays.copyOf(pairs, pairs.length * 2);
+          }
+          pairs[count++] = (int) heap[node];
+          pairs[count++] = j;
+
+          for (int child = 2 * node + 1; child <= 2 * node + 2 && child < heapSize; child++) {
+            if (heap[child] < limit) {
+              stack[top++] = child;
+            }
+          }
+        }
+      }
+
+      for (int k = g; k < h; k++) {
+        final int i = (int) byBegin[k];
+        final int end = regions.get(i).end();
+        if (end > begin) {
+          heap[heapSize] = ConflictGraph.key(end, i);
+          ConflictGraph.siftUp(heap, heapSize);
+          heapSize++;
+        }
+      }
+      g = h;
+    }
+
+    return Arrays.copyOf(pairs, count);
+  }
+
+  private static void siftUp(final long[] heap, final int index) {
+    final long element = heap[index];
+    int current = index;
+    while (current > 0 && heap[(current - 1) / 2] > element) {
+      heap[current] = heap[(current - 1) / 2];
+      current = (current - 1) / 2;
+    }
+    heap[current] = element;
+  }
+
+  private static void siftDown(final long[] heap, final int size, final int index) {
+    final long element = heap[index];
+    int current = index;
+    while (2 * current + 1 < size) {
+      int child = 2 * current + 1;
+      if (child + 1 < size && heap[child + 1] < heap[child]) {
+        child++;
+      }
+      if (heap[child] >= element) {
+        break;
+      }
+      heap[current] = heap[child];
+      current = child;
+    }
+    heap[current] = element;
+  }
+
+  // labels of connected components (union-find), numbered in the order of first appearance, or -1
+  // for regions without conflicts
+  private int[] componentLabels() {
+    final Adjacency adjacency = adjacency();
+    final int size = adjacency.degrees.length;
+    final int[] parents = new int[size];
+    final int[] ranks = new int[size];
+    for (int i = 0; i < size; i++) {
+      parents[i] = i;
+    }
+    for (int i = 0; i < size; i++) {
+      if (adjacency.removed[i]) {
+        continue;
+      }
+      for (int k = adjacency.offsets[i]; k < adjacency.offsets[i + 1]; k++) {
+        final int j = adjacency.neighbours[k];
+        if (i < j && !adjacency.removed[j]) {
+          ConflictGraph.union(parents, ranks, i, j);
+        }
+      }
+    }
+
+    final int[] rootLabels = new int[size];
+    Arrays.fill(rootLabels, -1);
+    final int[] labels = new int[size];
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (adjacency.degrees[i] == 0) {
+        labels[i] = -1;
+        continue;
+      }
+      final int root = ConflictGraph.find(parents, i);
+      if (rootLabels[root] == -1) {
+        rootLabels[root] = count++;
+      }
+      labels[i] = rootLabels[root];
+    }
+    return labels;
+  }
+
+  private static int find(final int[] parents, final int element) {
+    int current = element;
+    while (parents[current] != current) {
+      parents[current] = parents[parents[current]];
+      current = parents[current];
+    }
+    return current;
+  }
+
+  private static void union(
+      final int[] parents, final int[] ranks, final int first, final int second) {
+    final int firstRoot = ConflictGraph.find(parents, first);
+    final int secondRoot = ConflictGraph.find(parents, second);
+    if (firstRoot == secondRoot) {
+      return;
+    }
+
+    if (ranks[firstRoot] < ranks[secondRoot]) {
+      parents[firstRoot] = secondRoot;
+    } else if (ranks[firstRoot] > ranks[secondRoot]) {
+      parents[secondRoot] = firstRoot;
+    } else {
+      parents[secondRoot] = firstRoot;
+      ranks[firstRoot]++;
+    }
+  }
+
+  private static long key(final int position, final int index) {
+    return ((long) position << 32) | index;
+  }
+
+  /**
+   * Conflicts in compressed sparse row format: neighbours of region i (by its index in the list of
+   * regions) are stored at positions offsets[i] to offsets[i + 1] of one array. Equal regions are
+   * represented by the first of them. Removals are recorded in flags and degrees, without changing
+   * the rows.
+   */
+  static final class Adjacency {
+    private final List<Region> regions;
+    private final Map<Region, Integer> indices = new HashMap<>();
+    private final int[] firsts;
+    private final int[] offsets;
+    private final int[] neighbours;
+    private final int[] degrees;
+    private final boolean[] removed;
+    private int withConflicts;
+
+    private Adjacency(final List<Region> regions) {
+      super();
+      this.regions = regions;
+
+      final int size = regions.size();
+      firsts = new int[size];
+      for (int i = 0; i < size; i++) {
+        indices.putIfAbsent(regions.get(i), i);
+        firsts[i] = indices.get(regions.get(i));
+      }
+
+      final int[] pairs = size < 2 ? new int[0] : ConflictGraph.conflictingPairs(regions);
+      offsets = new int[size + 1];
+      for (final int index : pairs) {
+        offsets[firsts[index] + 1]++;
+      }
+      for (int i = 0; i < size; i++) {
+        offsets[i + 1] += offsets[i];
+      }
+
+      final int[] ends = Arrays.copyOf(offsets, size);
+      final int[] rows = new int[pairs.length];
+      for (int k = 0; k < pairs.length; k += 2) {
+        final int first = firsts[pairs[k]];
+        final int second = firsts[pairs[k + 1]];
+        rows[ends[first]++] = second;
+        rows[ends[second]++] = first;
+      }
+
+      // rows of equal regions are merged, so duplicates are dropped in place
+      int count = 0;
+      degrees = new int[size];
+      for (int i = 0; i < size; i++) {
+        final int begin = offsets[i];
+        Arrays.sort(rows, begin, offsets[i + 1]);
+        offsets[i] = count;
+        for (int k = begin; k < offsets[i + 1]; k++) {
+          if (k == begin || rows[k] != rows[k - 1]) {
+            rows[count++] = rows[k];
+          }
+        }
+        degrees[i] = count - offsets[i];
+        if (degrees[i] > 0) {
+          withConflicts++;
+        }
+      }
+      offsets[size] = count;
+      neighbours = Arrays.copyOf(rows, count);
+      removed = new boolean[size];
+    }
+
+    private int indexOf(final Region region) {
+      return indices.getOrDefault(region, -1);
+    }
+
+    // indices of regions in conflict, which were not removed
+    private IntStream conflicts(final int index) {
+      return IntStream.range(offsets[index], offsets[index + 1])
+          .map(k -> neighbours[k])
+          .filter(neighbour -> !removed[neighbour]);
+    }
+
+    private void remove(final int index) {
+      for (int k = offsets[index]; k < offsets[index + 1]; k++) {
+        final int neighbour = neighbours[k];
+        if (!removed[neighbour]) {
+          degrees[neighbour]--;
+          if (degrees[neighbour] == 0) {
+            withConflicts--;
+          }
+        }
+      }
+      degrees[index] = 0;
+      removed[index] = true;
+      withConflicts--;
+    }
+
+    private Iterator<Region> regions(final IntStream indexStream) {
+      return indexStream.mapToObj(regions::get).iterator();
+    }
   }
 }
@@ -11,6 +11,7 @@ import org.apache.commons.lang3.builder.CompareToBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.immutables.value.Value;
 import pl.poznan.put.structure.formats.BpSeq;
+import pl.poznan.put.structure.formats.PairTable;
 
 /** A collection of pairs (BPSEQ entries) which are consecutive in sequence. */
 @Value.Immutable
@@ -24,11 +25,20 @@ public abstract class Region implements Comparable<Region> {
    * @return A list of regions in the structure.
    */
   public static List<Region> createRegions(final BpSeq bpSeq) {
+    return Region.createRegions(bpSeq.toPairTable());
+  }
+
+  /**
+   * Creates a list of regions from a secondary structure in a pair table.
+   *
+   * @param pairTable The input structure.
+   * @return A list of regions in the structure.
+   */
+  public static List<Region> createRegions(final PairTable pairTable) {
     final List<Region> regions = new ArrayList<>();
     final List<BpSeq.Entry> regionEntries = new ArrayList<>();
-    final Iterable<BpSeq.Entry> allEntries = new ArrayList<>(bpSeq.paired());
 
-    for (final BpSeq.Entry entry : allEntries) {
+    for (final BpSeq.Entry entry : pairTable.paired()) {
       if (regionEntries.isEmpty()) {
         regionEntries.add(entry);
         continue;
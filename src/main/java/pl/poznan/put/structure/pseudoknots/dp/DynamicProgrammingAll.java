@@ -13,7 +13,6 @@ import java.util.SortedMap;
 import java.util.TreeMap;
 import org.immutables.value.Value;
 import pl.poznan.put.structure.formats.BpSeq;
-import pl.poznan.put.structure.formats.ImmutableBpSeq;
 import pl.poznan.put.structure.pseudoknots.ConflictGraph;
 import pl.poznan.put.structure.pseudoknots.ImmutableConflictGraph;
 import pl.poznan.put.structure.pseudoknots.Region;
@@ -158,18 +157,10 @@ public abstract class DynamicProgrammingAll implements DynamicProgramming {
     }
 
     if (regionRemover().isPresent()) {
-      int max;
-      do {
-        max = Integer.MIN_VALUE;
-        for (final ConflictClique conflictClique : conflictGraph.conflictCliques()) {
-          if (conflictClique.size() > max) {
-            max = conflictClique.size();
-          }
-        }
-        if (max > maxCliqueSize()) {
-          conflictGraph.removeRegion(regionRemover().get().selectRegionToRemove(conflictGraph));
-        }
-      } while (max > maxCliqueSize());
+      while (conflictGraph.hasConflicts()
+          && conflictGraph.largestConflictCliqueSize() > maxCliqueSize()) {
+        conflictGraph.removeRegion(regionRemover().get().selectRegionToRemove(conflictGraph));
+      }
     }
 
     List<List<BpSeq.Entry>> results = new ArrayList<>();
@@ -196,11 +187,7 @@ public abstract class DynamicProgrammingAll implements DynamicProgramming {
     final List<BpSeq> bpSeqs = new ArrayList<>();
 
     for (final List<BpSeq.Entry> result : results) {
-      BpSeq nextBpSeq = ImmutableBpSeq.copyOf(bpSeq);
-      for (final BpSeq.Entry entry : result) {
-        nextBpSeq = nextBpSeq.withoutPair(entry);
-      }
-      bpSeqs.add(nextBpSeq);
+      bpSeqs.add(bpSeq.withoutPairs(result));
     }
 
     return bpSeqs;
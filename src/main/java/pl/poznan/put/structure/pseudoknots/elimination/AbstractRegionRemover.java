@@ -1,14 +1,10 @@
 package pl.poznan.put.structure.pseudoknots.elimination;
 
-import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
 import pl.poznan.put.structure.formats.BpSeq;
-import pl.poznan.put.structure.formats.ImmutableBpSeq;
+import pl.poznan.put.structure.formats.PairTable;
 import pl.poznan.put.structure.pseudoknots.ConflictGraph;
-import pl.poznan.put.structure.pseudoknots.ImmutableConflictGraph;
 import pl.poznan.put.structure.pseudoknots.Region;
 
 /**
@@ -17,28 +13,36 @@ import pl.poznan.put.structure.pseudoknots.Region;
  * 14, pp.410–416.
  */
 public abstract class AbstractRegionRemover implements RegionRemover {
-  // Unremove all Regions that were removed but are no longer in conflict
-  private static void restoreNonConflicting(
-      final Iterable<Region> regions, final Collection<Region> removedRegions) {
-    for (final Region ri : regions) {
-      if (!removedRegions.contains(ri)) {
-        continue;
-      }
-
-      boolean nonConflicting = true;
-      for (final Region rj : regions) {
-        if (!removedRegions.contains(rj) && ConflictGraph.isConflicting(ri, rj)) {
-          nonConflicting = false;
-          break;
-        }
+  // Unremove all Regions that were removed but are no longer in conflict. Removed regions are
+  // visited in the order of the list (5' to 3' for regions from Region.createRegions()) and each
+  // restored one is taken into account for the next ones, so the result does not depend on hashing
+  private static void restoreNonConflicting(final List<Region> regions, final boolean[] removed) {
+    final RegionCrossings kept = new RegionCrossings(regions);
+    for (int i = 0; i < regions.size(); i++) {
+      if (!removed[i]) {
+        kept.add(i);
       }
+    }
 
-      if (nonConflicting) {
-        removedRegions.remove(ri);
+    for (int i = 0; i < regions.size(); i++) {
+      if (removed[i] && !kept.hasConflict(regions.get(i))) {
+        removed[i] = false;
+        kept.add(i);
       }
     }
   }
 
+  /**
+   * Selects a region to remove using the incrementally updated state. By default, it delegates to
+   * {@link #selectRegionToRemove(ConflictGraph)}.
+   *
+   * @param conflicts The current state of elimination.
+   * @return The index of a region to be removed.
+   */
+  int selectRegionToRemove(final RegionConflicts conflicts) {
+    return conflicts.indexOf(selectRegionToRemove(conflicts.conflictGraph()));
+  }
+
   /**
    * Finds pseudoknots by removing one region at a time until there are any conflicts. The region to
    * remove is selected according to a heuristic (see {@link MinGain} and {@link MaxConflicts}).
@@ -50,29 +54,26 @@ public abstract class AbstractRegionRemover implements RegionRemover {
    */
   @Override
   public final List<BpSeq> findPseudoknots(final BpSeq bpSeq) {
-    final List<Region> regions = Region.createRegions(bpSeq);
-    final ConflictGraph conflictGraph = ImmutableConflictGraph.of(regions);
-    final Collection<Region> removedRegions = new HashSet<>();
+    final PairTable pairTable = bpSeq.toPairTable();
+    final List<Region> regions = Region.createRegions(pairTable);
+    final RegionConflicts conflicts = new RegionConflicts(regions);
+    final boolean[] removed = new boolean[regions.size()];
 
-    while (conflictGraph.hasConflicts()) {
-      final Region region = selectRegionToRemove(conflictGraph);
-      removedRegions.add(region);
-      conflictGraph.removeRegion(region);
+    while (conflicts.hasConflicts()) {
+      final int id = selectRegionToRemove(conflicts);
+      removed[id] = true;
+      conflicts.remove(id);
     }
 
-    AbstractRegionRemover.restoreNonConflicting(regions, removedRegions);
+    AbstractRegionRemover.restoreNonConflicting(regions, removed);
 
-    final List<BpSeq.Entry> nonPseudoknotted =
-        regions.stream()
-            .filter(region -> !removedRegions.contains(region))
-            .map(Region::entries)
-            .flatMap(Collection::stream)
-            .collect(Collectors.toList());
-
-    BpSeq result = ImmutableBpSeq.copyOf(bpSeq);
-    for (final BpSeq.Entry entry : nonPseudoknotted) {
-      result = result.withoutPair(entry);
+    for (int i = 0; i < regions.size(); i++) {
+      if (!removed[i]) {
+        for (final BpSeq.Entry entry : regions.get(i).entries()) {
+          pairTable.removePair(entry.index());
+        }
+      }
     }
-    return Collections.singletonList(result);
+    return Collections.singletonList(pairTable.toBpSeq());
   }
 }
@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.NavigableSet;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -22,6 +23,25 @@ import pl.poznan.put.structure.pseudoknots.Region;
 @JsonSerialize(as = ImmutableMaxConflicts.class)
 @JsonDeserialize(as = ImmutableMaxConflicts.class)
 public abstract class MaxConflicts extends AbstractRegionRemover {
+  // most conflicts, then least gain
+  private static final RegionConflicts.Order ORDER =
+      (conflicts, first, second) -> {
+        final int result =
+            Integer.compare(conflicts.conflictCount(second), conflicts.conflictCount(first));
+        return result != 0
+            ? result
+            : Integer.compare(conflicts.gain(first), conflicts.gain(second));
+      };
+  // most conflicts, then the highest begin
+  private static final RegionConflicts.Order TIE_ORDER =
+      (conflicts, first, second) -> {
+        final int result =
+            Integer.compare(conflicts.conflictCount(second), conflicts.conflictCount(first));
+        return result != 0
+            ? result
+            : Integer.compare(conflicts.region(second).begin(), conflicts.region(first).begin());
+      };
+
   static List<Region> maxConflictRegions(
       final ConflictGraph conflictGraph, final Collection<Region> regions) {
     final SortedMap<Integer, List<Region>> map = new TreeMap<>();
@@ -59,4 +79,20 @@ public abstract class MaxConflicts extends AbstractRegionRemover {
     maxConflictsRegions.sort(Comparator.comparingInt(Region::begin));
     return maxConflictsRegions.get(maxConflictsRegions.size() - 1);
   }
+
+  @Override
+  final int selectRegionToRemove(final RegionConflicts conflicts) {
+    final NavigableSet<Integer> queue = conflicts.queue(MaxConflicts.ORDER);
+    final int first = queue.first();
+    final Integer second = queue.higher(first);
+
+    // the same rules as in selectRegionToRemove(), the tie on gain is resolved among all regions
+    // with the most conflicts
+    if (second == null
+        || conflicts.conflictCount(second) != conflicts.conflictCount(first)
+        || conflicts.gain(second) != conflicts.gain(first)) {
+      return first;
+    }
+    return conflicts.queue(MaxConflicts.TIE_ORDER).first();
+  }
 }
@@ -22,6 +22,20 @@ import pl.poznan.put.structure.pseudoknots.Region;
 @JsonSerialize(as = ImmutableMinGain.class)
 @JsonDeserialize(as = ImmutableMinGain.class)
 public abstract class MinGain extends AbstractRegionRemover {
+  // least gain, then most conflicts, then the highest begin, as in selectRegionToRemove()
+  private static final RegionConflicts.Order ORDER =
+      (conflicts, first, second) -> {
+        int result = Integer.compare(conflicts.gain(first), conflicts.gain(second));
+        if (result == 0) {
+          result = Integer.compare(conflicts.conflictCount(second), conflicts.conflictCount(first));
+        }
+        if (result == 0) {
+          result =
+              Integer.compare(conflicts.region(second).begin(), conflicts.region(first).begin());
+        }
+        return result;
+      };
+
   static List<Region> minGainRegions(
       final ConflictGraph conflictGraph, final Collection<Region> regions) {
     final SortedMap<Integer, List<Region>> map = new TreeMap<>();
@@ -62,4 +76,9 @@ public abstract class MinGain extends AbstractRegionRemover {
     maxConflictsRegions.sort(Comparator.comparingInt(Region::begin));
     return maxConflictsRegions.get(maxConflictsRegions.size() - 1);
   }
+
+  @Override
+  final int selectRegionToRemove(final RegionConflicts conflicts) {
+    return conflicts.queue(MinGain.ORDER).first();
+  }
 }
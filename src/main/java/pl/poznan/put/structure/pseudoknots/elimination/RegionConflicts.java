@@ -0,0 +1,187 @@
+package pl.poznan.put.structure.pseudoknots.elimination;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import pl.poznan.put.structure.pseudoknots.ConflictGraph;
+import pl.poznan.put.structure.pseudoknots.ImmutableConflictGraph;
+import pl.poznan.put.structure.pseudoknots.Region;
+
+/**
+ * The state of region elimination, updated incrementally. Regions are identified by their index in
+ * the input list. For each one, the number of conflicts and the gain (its length minus the sum of
+ * lengths of regions in conflict with it) are kept in arrays and updated only for neighbours of a
+ * removed region. Removers keep regions with conflicts in ordered sets (see {@link #queue(Order)}),
+ * which are updated in the same way, so each selection costs O(log n) instead of a scan of all
+ * regions.
+ */
+final class RegionConflicts {
+  private final List<Region> regions;
+  private final ConflictGraph conflictGraph;
+  private final int[][] neighbours;
+  private final int[] conflictCounts;
+  private final int[] gains;
+  private final boolean[] removed;
+  private final Map<Order, NavigableSet<Integer>> queues = new IdentityHashMap<>();
+  private int withConflicts;
+
+  RegionConflicts(final List<Region> regions) {
+    super();
+    this.regions = regions;
+    conflictGraph = ImmutableConflictGraph.of(regions);
+
+    final int size = regions.size();
+    neighbours = new int[size][];
+    conflictCounts = new int[size];
+    gains = new int[size];
+    removed = new boolean[size];
+    for (int i = 0; i < size; i++) {
+      neighbours[i] = conflictGraph.conflictIndices(i);
+      conflictCounts[i] = neighbours[i].length;
+      gains[i] = regions.get(i).length();
+      for (final int neighbour : neighbours[i]) {
+        gains[i] -= regions.get(neighbour).length();
+      }
+      if (conflictCounts[i] > 0) {
+        withConflicts++;
+      }
+    }
+  }
+
+  /**
+   * @return The conflict graph, kept up to date with removals.
+   */
+  ConflictGraph conflictGraph() {
+    return conflictGraph;
+  }
+
+  /**
+   * @return True if at least one region has at least one conflict.
+   */
+  boolean hasConflicts() {
+    return withConflicts > 0;
+  }
+
+  /**
+   * @param id The index of a region.
+   * @return The region.
+   */
+  Region region(final int id) {
+    return regions.get(id);
+  }
+
+  /**
+   * @param region A region.
+   * @return The index of the region.
+   */
+  int indexOf(final Region region) {
+    return conflictGraph.indexOf(region);
+  }
+
+  /**
+   * @param id The index of a region.
+   * @return The current number of conflicts of the region.
+   */
+  int conflictCount(final int id) {
+    return conflictCounts[id];
+  }
+
+  /**
+   * @param id The index of a region.
+   * @return The current gain of the region.
+   */
+  int gain(final int id) {
+    return gains[id];
+  }
+
+  /**
+   * Gets the ordered set of regions with at least one conflict. The set is created on first use and
+   * kept up to date with removals. Ties in the order are resolved by region index.
+   *
+   * @param order The order of regions.
+   * @return The set of regions with conflicts ordered by {@code order}. It must not be modified.
+   */
+  NavigableSet<Integer> queue(final Order order) {
+    return queues.computeIfAbsent(
+        order,
+        key -> {
+          final NavigableSet<Integer> queue =
+              new TreeSet<>(
+                  (first, second) -> {
+                    final int result = key.compare(this, first, second);
+                    return result != 0 ? result : Integer.compare(first, second);
+                  });
+          for (int i = 0; i < regions.size(); i++) {
+            if (!removed[i] && conflictCounts[i] > 0) {
+              queue.add(i);
+            }
+          }
+          return queue;
+        });
+  }
+
+  /**
+   * Removes a region and updates the state of all regions in conflict with it.
+   *
+   * @param id The index of the region to remove.
+   */
+  void remove(final int id) {
+    if (removed[id]) {
+      return;
+    }
+
+    dequeue(id);
+    removed[id] = true;
+    if (conflictCounts[id] > 0) {
+      withConflicts--;
+    }
+
+    final int length = regions.get(id).length();
+    for (final int neighbour : neighbours[id]) {
+      if (removed[neighbour]) {
+        continue;
+      }
+
+      // keys must not change while the element is in an ordered set
+      dequeue(neighbour);
+      conflictCounts[neighbour]--;
+      gains[neighbour] += length;
+      if (conflictCounts[neighbour] > 0) {
+        enqueue(neighbour);
+      } else {
+        withConflicts--;
+      }
+    }
+
+    conflictGraph.removeRegion(id);
+  }
+
+  private void enqueue(final int id) {
+    for (final NavigableSet<Integer> queue : queues.values()) {
+      queue.add(id);
+    }
+  }
+
+  private void dequeue(final int id) {
+    for (final NavigableSet<Integer> queue : queues.values()) {
+      queue.remove(id);
+    }
+  }
+
+  /** An order of regions depending on the current state of elimination. */
+  @FunctionalInterface
+  interface Order {
+    /**
+     * Compares two regions.
+     *
+     * @param conflicts The current state.
+     * @param first The index of the first region.
+     * @param second The index of the second region.
+     * @return A negative number, zero or a positive number if the first region should be before,
+     *     together or after the second one.
+     */
+    int compare(RegionConflicts conflicts, int first, int second);
+  }
+}
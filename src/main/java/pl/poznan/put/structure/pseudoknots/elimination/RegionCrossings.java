@@ -0,0 +1,140 @@
+package pl.poznan.put.structure.pseudoknots.elimination;
+
+import java.util.Arrays;
+import java.util.List;
+import pl.poznan.put.structure.pseudoknots.ConflictGraph;
+import pl.poznan.put.structure.pseudoknots.Region;
+
+/**
+ * A dynamic set of regions which answers whether a region is in conflict (see {@link
+ * ConflictGraph#isConflicting(Region, Region)}) with any region in the set. A region (b, e) is in
+ * conflict with (b', e') if either b' is in (b, e) and e' &gt; e, or e' is in (b, e) and b' &lt; b.
+ * Therefore, the set is kept in two segment trees: one over regions sorted by begin with maximum
+ * end, the other over regions sorted by end with minimum begin. Both insertions and queries take
+ * O(log n).
+ */
+final class RegionCrossings {
+  private final List<Region> regions;
+  private final long[] byBegin;
+  private final long[] byEnd;
+  private final int[] beginSlots;
+  private final int[] endSlots;
+  private final int[] maxEnds;
+  private final int[] minBegins;
+  private final int size;
+
+  /**
+   * Creates an empty set for the given universe of regions.
+   *
+   * @param regions All regions which may be added to the set.
+   */
+  RegionCrossings(final List<Region> regions) {
+    super();
+    this.regions = regions;
+    size = regions.size();
+
+    byBegin = new long[size];
+    byEnd = new long[size];
+    for (int i = 0; i < size; i++) {
+      byBegin[i] = RegionCrossings.key(regions.get(i).begin(), i);
+      byEnd[i] = RegionCrossings.key(regions.get(i).end(), i);
+    }
+    Arrays.sort(byBegin);
+    Arrays.sort(byEnd);
+
+    beginSlots = new int[size];
+    endSlots = new int[size];
+    for (int slot = 0; slot < size; slot++) {
+      beginSlots[(int) byBegin[slot]] = slot;
+      endSlots[(int) byEnd[slot]] = slot;
+    }
+
+    maxEnds = new int[2 * size];
+    minBegins = new int[2 * size];
+    Arrays.fill(maxEnds, Integer.MIN_VALUE);
+    Arrays.fill(minBegins, Integer.MAX_VALUE);
+  }
+
+  private static long key(final int position, final int id) {
+    return ((long) position << 32) | id;
+  }
+
+  /**
+   * Adds a region to the set.
+   *
+   * @param id The index of the region.
+   */
+  void add(final int id) {
+    final Region region = regions.get(id);
+
+    int node = beginSlots[id] + size;
+    maxEnds[node] = region.end();
+    for (node >>= 1; node > 0; node >>= 1) {
+      maxEnds[node] = Math.max(maxEnds[2 * node], maxEnds[2 * node + 1]);
+    }
+
+    node = endSlots[id] + size;
+    minBegins[node] = region.begin();
+    for (node >>= 1; node > 0; node >>= 1) {
+      minBegins[node] = Math.min(minBegins[2 * node], minBegins[2 * node + 1]);
+    }
+  }
+
+  /**
+   * Checks if a region conflicts with any region in the set.
+   *
+   * @param region The region to check.
+   * @return True if there is at least one conflict.
+   */
+  boolean hasConflict(final Region region) {
+    final int begin = region.begin();
+    final int end = region.end();
+    if (end - begin < 2) {
+      return false;
+    }
+
+    // slots of positions in (begin, end)
+    final int from = RegionCrossings.lowerBound(byBegin, RegionCrossings.key(begin + 1, 0));
+    final int to = RegionCrossings.lowerBound(byBegin, RegionCrossings.key(end, 0));
+    if (RegionCrossings.max(maxEnds, size, from, to) > end) {
+      return true;
+    }
+
+    final int fromEnd = RegionCrossings.lowerBound(byEnd, RegionCrossings.key(begin + 1, 0));
+    final int toEnd = RegionCrossings.lowerBound(byEnd, RegionCrossings.key(end, 0));
+    return RegionCrossings.min(minBegins, size, fromEnd, toEnd) < begin;
+  }
+
+  private static int lowerBound(final long[] keys, final long key) {
+    final int index = Arrays.binarySearch(keys, key);
+    return index < 0 ? -index - 1 : index;
+  }
+
+  // maximum in slots [from, to)
+  private static int max(final int[] tree, final int size, final int from, final int to) {
+    int result = Integer.MIN_VALUE;
+    for (int low = from + size, high = to + size; low < high; low >>= 1, high >>= 1) {
+      if ((low & 1) == 1) {
+        result = Math.max(result, tree[low++]);
+      }
+      if ((high & 1) == 1) {
+        result = Math.max(result, tree[--high]);
+      }
+    }
+    return result;
+  }
+
+  // minimum in slots [from, to)
+  private static int min(final int[] tree, final int size, final int from, final int to) {
+    int result = Integer.MAX_VALUE;
+    for (int low = from + size, high = to + size; low < high; low >>= 1, high >>= 1) {
+      if ((low & 1) == 1) {
+        result = Math.min(result, tree[low++]);
+      }
+      if ((high & 1) == 1) {
+        result = Math.min(result, tree[--high]);
+      }
+    }
+    return result;
+  }
+}
@@ -11,6 +11,7 @@ import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 import org.immutables.value.Value;
 import pl.poznan.put.atom.AtomName;
 import pl.poznan.put.circular.Angle;
+import pl.poznan.put.circular.GeometryKernel;
 import pl.poznan.put.circular.ImmutableAngle;
 import pl.poznan.put.pdb.PdbAtomLine;
 import pl.poznan.put.pdb.analysis.MoleculeType;
@@ -42,13 +43,11 @@ public interface AtomBasedTorsionAngleType extends TorsionAngleType {
       return ImmutableTorsionAngleValue.of(this, ImmutableAngle.of(Double.NaN));
     }
 
-    return ImmutableTorsionAngleValue.of(
-        this,
-        Angle.torsionAngle(
-            atomPairs.get(0).leftAtom().toVector3D(),
-            atomPairs.get(1).leftAtom().toVector3D(),
-            atomPairs.get(2).leftAtom().toVector3D(),
-            atomPairs.get(2).rightAtom().toVector3D()));
+    return calculate(
+        atomPairs.get(0).leftAtom(),
+        atomPairs.get(1).leftAtom(),
+        atomPairs.get(2).leftAtom(),
+        atomPairs.get(2).rightAtom());
   }
 
   @Override
@@ -104,7 +103,10 @@ public interface AtomBasedTorsionAngleType extends TorsionAngleType {
       final PdbAtomLine a1, final PdbAtomLine a2, final PdbAtomLine a3, final PdbAtomLine a4) {
     return ImmutableTorsionAngleValue.of(
         this,
-        Angle.torsionAngle(a1.toVector3D(), a2.toVector3D(), a3.toVector3D(), a4.toVector3D()));
+        ImmutableAngle.of(
+            GeometryKernel.torsionAngle(
+                a1.x(), a1.y(), a1.z(), a2.x(), a2.y(), a2.z(), a3.x(), a3.y(), a3.z(), a4.x(),
+                a4.y(), a4.z())));
   }
 
   /**
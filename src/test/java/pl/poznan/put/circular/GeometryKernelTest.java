@@ -0,0 +1,225 @@
+package pl.poznan.put.circular;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Random;
+import org.apache.commons.math3.exception.MathArithmeticException;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Test;
+
+public class GeometryKernelTest {
+  // the reference implementations on Vector3D
+  private static double torsionAngle(
+      final Vector3D a, final Vector3D b, final Vector3D c, final Vector3D d) {
+    final Vector3D v1 = b.subtract(a);
+    final Vector3D v2 = c.subtract(b);
+    final Vector3D v3 = d.subtract(c);
+    final Vector3D tmp1 = v1.crossProduct(v2);
+    final Vector3D tmp2 = v2.crossProduct(v3);
+    final Vector3D tmp3 = v1.scalarMultiply(v2.getNorm());
+    return ImmutableAngle.of(FastMath.atan2(tmp3.dotProduct(tmp2), tmp1.dotProduct(tmp2)))
+        .radians();
+  }
+
+  private static double torsionAngleByAcos(
+      final Vector3D a1, final Vector3D a2, final Vector3D a3, final Vector3D a4) {
+    final Vector3D d1 = a1.subtract(a2);
+    final Vector3D d2 = a2.subtract(a3);
+    final Vector3D d3 = a3.subtract(a4);
+    final Vector3D u1 = d1.crossProduct(d2);
+    final Vector3D u2 = d2.crossProduct(d3);
+    final double ctor = u1.dotProduct(u2) / FastMath.sqrt(u1.dotProduct(u1) * u2.dotProduct(u2));
+    final double torp = FastMath.acos(ctor < -1.0 ? -1.0 : Math.min(ctor, 1.0));
+    return ImmutableAngle.of(u1.dotProduct(u2.crossProduct(d2)) >= 0 ? torp : -torp).radians();
+  }
+
+  private static Vector3D random(final Random random) {
+    return new Vector3D(
+        random.nextDouble() * 20.0 - 10.0,
+        random.nextDouble() * 20.0 - 10.0,
+        random.nextDouble() * 20.0 - 10.0);
+  }
+
+  private static void assertSame(final double actual, final double expected) {
+    assertThat(Double.doubleToLongBits(actual), is(Double.doubleToLongBits(expected)));
+  }
+
+  @Test
+  public final void testSameAsVector3D() {
+    final Random random = new Random(7);
+    for (int i = 0; i < 10000; i++) {
+      final Vector3D a = GeometryKernelTest.random(random);
+      final Vector3D b = GeometryKernelTest.random(random);
+      final Vector3D c = GeometryKernelTest.random(random);
+      // include collinear points to exercise the asin branch
+      final Vector3D d =
+          i % 10 == 0 ? c.add(2.0, c.subtract(b)) : GeometryKernelTest.random(random);
+
+      GeometryKernelTest.assertSame(
+          GeometryKernel.torsionAngle(
+              a.getX(), a.getY(), a.getZ(), b.getX(), b.getY(), b.getZ(), c.getX(), c.getY(),
+              c.getZ(), d.getX(), d.getY(), d.getZ()),
+          GeometryKernelTest.torsionAngle(a, b, c, d));
+      GeometryKernelTest.assertSame(
+          GeometryKernel.torsionAngle(
+              new double[] {
+                0.0, a.getX(), a.getY(), a.getZ(), b.getX(), b.getY(), b.getZ(), c.getX(), c.getY(),
+                c.getZ(), d.getX(), d.getY(), d.getZ()
+              },
+              1,
+              4,
+              7,
+              10),
+          GeometryKernelTest.torsionAngle(a, b, c, d));
+      GeometryKernelTest.assertSame(
+          GeometryKernel.torsionAngleByAcos(
+              a.getX(), a.getY(), a.getZ(), b.getX(), b.getY(), b.getZ(), c.getX(), c.getY(),
+              c.getZ(), d.getX(), d.getY(), d.getZ()),
+          GeometryKernelTest.torsionAngleByAcos(a, b, c, d));
+      GeometryKernelTest.assertSame(
+          GeometryKernel.betweenPoints(
+              b.getX(), b.getY(), b.getZ(), c.getX(), c.getY(), c.getZ(), d.getX(), d.getY(),
+              d.getZ()),
+          Vector3D.angle(c.subtract(b), c.subtract(d)));
+      GeometryKernelTest.assertSame(
+          GeometryKernel.distance(a.getX(), a.getY(), a.getZ(), b.getX(), b.getY(), b.getZ()),
+          a.distance(b));
+    }
+  }
+
+  @Test
+  public final void testPlanar() {
+    // exactly planar trans and cis, then trans with D barely off the plane to both sides, for
+    // which atan2 and acos round to -pi or pi
+    final Vector3D[][] cases = {
+      {
+        new Vector3D(0.0, 1.0, 0.0),
+        Vector3D.ZERO,
+        new Vector3D(1.0, 0.0, 0.0),
+        new Vector3D(1.0, -1.0, 0.0)
+      },
+      {
+        new Vector3D(1.0, 2.0, 3.0),
+        new Vector3D(2.0, 2.0, 3.0),
+        new Vector3D(2.0, 3.0, 3.0),
+        new Vector3D(3.0, 3.0, 3.0)
+      },
+      {
+        new Vector3D(0.0, 1.0, 0.0),
+        Vector3D.ZERO,
+        new Vector3D(1.0, 0.0, 0.0),
+        new Vector3D(1.0, 1.0, 0.0)
+      },
+      {
+        new Vector3D(0.0, 1.0, 0.0),
+        Vector3D.ZERO,
+        new Vector3D(1.0, 0.0, 0.0),
+        new Vector3D(1.0, -1.0, -1.0e-20)
+      },
+      {
+        new Vector3D(0.0, 1.0, 0.0),
+        Vector3D.ZERO,
+        new Vector3D(1.0, 0.0, 0.0),
+        new Vector3D(1.0, -1.0, 1.0e-20)
+      }
+    };
+    final double[] expected = {FastMath.PI, FastMath.PI, 0.0, FastMath.PI, FastMath.PI};
+
+    for (int i = 0; i < cases.length; i++) {
+      final Vector3D a = cases[i][0];
+      final Vector3D b = cases[i][1];
+      final Vector3D c = cases[i][2];
+      final Vector3D d = cases[i][3];
+      final double atan2 =
+          GeometryKernel.torsionAngle(
+              a.getX(), a.getY(), a.getZ(), b.getX(), b.getY(), b.getZ(), c.getX(), c.getY(),
+              c.getZ(), d.getX(), d.getY(), d.getZ());
+      final double acos =
+          GeometryKernel.torsionAngleByAcos(
+              a.getX(), a.getY(), a.getZ(), b.getX(), b.getY(), b.getZ(), c.getX(), c.getY(),
+              c.getZ(), d.getX(), d.getY(), d.getZ());
+
+      assertThat(atan2, is(expected[i]));
+      assertThat(acos, is(expected[i]));
+      GeometryKernelTest.assertSame(atan2, GeometryKernelTest.torsionAngle(a, b, c, d));
+      GeometryKernelTest.assertSame(acos, GeometryKernelTest.torsionAngleByAcos(a, b, c, d));
+      GeometryKernelTest.assertSame(atan2, Angle.torsionAngle(a, b, c, d).radians());
+      GeometryKernelTest.assertSame(
+          atan2, Angle.torsionAngle(b.subtract(a), c.subtract(b), d.subtract(c)).radians());
+    }
+  }
+
+  @Test
+  public final void testBatchSameAsScalar() {
+    final Random random = new Random(11);
+    final int size = 10007;
+    final double[][] coordinates = new double[12][size];
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < 12; j++) {
+        coordinates[j][i] = random.nextDouble() * 20.0 - 10.0;
+      }
+    }
+
+    for (final boolean parallel : new boolean[] {false, true}) {
+      final double[] batch =
+          GeometryKernel.torsionAngles(
+              coordinates[0],
+              coordinates[1],
+              coordinates[2],
+              coordinates[3],
+              coordinates[4],
+              coordinates[5],
+              coordinates[6],
+              coordinates[7],
+              coordinates[8],
+              coordinates[9],
+              coordinates[10],
+              coordinates[11],
+              parallel);
+      assertThat(batch.length, is(size));
+      for (int i = 0; i < size; i++) {
+        GeometryKernelTest.assertSame(
+            batch[i],
+            GeometryKernel.torsionAngle(
+                coordinates[0][i],
+                coordinates[1][i],
+                coordinates[2][i],
+                coordinates[3][i],
+                coordinates[4][i],
+                coordinates[5][i],
+                coordinates[6][i],
+                coordinates[7][i],
+                coordinates[8][i],
+                coordinates[9][i],
+                coordinates[10][i],
+                coordinates[11][i]));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public final void testBatchUnequalLengths() {
+    final double[] three = new double[3];
+    GeometryKernel.torsionAngles(
+        three,
+        three,
+        three,
+        three,
+        three,
+        three,
+        three,
+        three,
+        three,
+        three,
+        three,
+        new double[2],
+        false);
+  }
+
+  @Test(expected = MathArithmeticException.class)
+  public final void testBetweenCoincidentPoints() {
+    GeometryKernel.betweenPoints(1.0, 2.0, 3.0, 1.0, 2.0, 3.0, 0.0, 0.0, 0.0);
+  }
+}
@@ -0,0 +1,135 @@
+package pl.poznan.put.circular;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathUtils;
+import org.junit.Test;
+
+public class HistogramCountsTest {
+  private static final double[] WIDTHS = {
+    0.01, 0.1, 0.7, 1.0, FastMath.PI / 18.0, FastMath.PI / 3.0, FastMath.PI
+  };
+
+  // the reference implementation, scanning all data for every bin
+  private static List<List<Angle>> bruteForce(final Collection<Angle> data, final double width) {
+    final List<List<Angle>> bins = new ArrayList<>();
+    for (double radiansStart = 0.0; radiansStart < MathUtils.TWO_PI; radiansStart += width) {
+      final List<Angle> bin = new ArrayList<>();
+      for (final Angle angle : data) {
+        final double radians = angle.radians2PI();
+        if ((radians >= radiansStart) && (radians < (radiansStart + width))) {
+          bin.add(angle);
+        }
+      }
+      bins.add(bin);
+    }
+    return bins;
+  }
+
+  private static List<Angle> randomData(final Random random, final double width) {
+    final List<Angle> data =
+        random
+            .doubles(2000, -FastMath.PI, FastMath.PI)
+            .mapToObj(ImmutableAngle::of)
+            .collect(Collectors.toList());
+    // values exactly at bin boundaries
+    for (double radiansStart = 0.0; radiansStart < MathUtils.TWO_PI; radiansStart += width) {
+      data.add(ImmutableAngle.of(radiansStart));
+      data.add(ImmutableAngle.of(FastMath.nextDown(radiansStart)));
+    }
+    data.add(ImmutableAngle.of(FastMath.PI));
+    data.add(ImmutableAngle.of(-0.0));
+    return data;
+  }
+
+  @Test
+  public final void testSameAsBruteForce() {
+    final Random random = new Random(23);
+    for (final double width : HistogramCountsTest.WIDTHS) {
+      final List<Angle> data = HistogramCountsTest.randomData(random, width);
+      final List<List<Angle>> expected = HistogramCountsTest.bruteForce(data, width);
+
+      final HistogramCounts counts = new HistogramCounts(width);
+      data.forEach(counts::accept);
+      assertThat(counts.binCount(), is(expected.size()));
+      assertThat(counts.total(), is(expected.stream().mapToLong(List::size).sum()));
+
+      final Histogram histogram = ImmutableHistogram.of(data, width);
+      int max = 0;
+      double radiansStart = 0.0;
+      for (int i = 0; i < expected.size(); i++, radiansStart += width) {
+        assertThat(counts.count(i), is(expected.get(i).size()));
+        assertThat(counts.binStart(i), is(radiansStart));
+        assertThat(histogram.findBin(radiansStart), is(expected.get(i)));
+        max = FastMath.max(max, expected.get(i).size());
+      }
+      assertThat(histogram.largestBinSize(), is((double) max / data.size()));
+    }
+  }
+
+  @Test
+  public final void testWeightedAndCombined() {
+    final Random random = new Random(29);
+    final double[] values = random.doubles(100000, -FastMath.PI, FastMath.PI).toArray();
+    final double width = FastMath.PI / 36.0;
+
+    final HistogramCounts sequential = new HistogramCounts(width);
+    for (final double value : values) {
+      sequential.accept(value, 0.5);
+    }
+
+    final HistogramCounts parallel =
+        Arrays.stream(values)
+            .parallel()
+            .collect(
+                () -> new HistogramCounts(width),
+                HistogramCounts::accept,
+                HistogramCounts::combine);
+
+    assertThat(parallel.counts(), is(sequential.counts()));
+    for (int i = 0; i < sequential.binCount(); i++) {
+      assertThat(FastMath.abs(sequential.weight(i) - 0.5 * parallel.weight(i)) < 1.0e-9, is(true));
+    }
+  }
+
+  @Test
+  public final void testNaN() {
+    final HistogramCounts counts = new HistogramCounts(1.0);
+    counts.accept(Double.NaN);
+    assertThat(counts.total(), is(0L));
+    assertThat(counts.binIndex(Double.NaN), is(-1));
+  }
+
+  @Test
+  public final void testOutOfRange() {
+    // the bins are [0, 1), [1, 2), ..., [6, 7)
+    final HistogramCounts counts = new HistogramCounts(1.0);
+    for (final double value :
+        new double[] {-7.0, 7.0, 10.0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY}) {
+      counts.accept(value);
+      assertThat(counts.binIndex(value), is(-1));
+    }
+    assertThat(counts.total(), is(0L));
+
+    assertThat(counts.binIndex(-MathUtils.TWO_PI), is(0));
+    assertThat(counts.binIndex(6.5), is(6));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public final void testCombineDifferentWidths() {
+    new HistogramCounts(1.0).combine(new HistogramCounts(0.5));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public final void testZeroWidth() {
+    new HistogramCounts(0.0);
+  }
+}
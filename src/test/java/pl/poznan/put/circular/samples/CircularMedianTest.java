@@ -0,0 +1,131 @@
+package pl.poznan.put.circular.samples;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Test;
+import pl.poznan.put.circular.Angle;
+import pl.poznan.put.circular.ImmutableAngle;
+
+public class CircularMedianTest {
+  // the reference implementation, evaluating mean deviation of every candidate
+  private static double[] exhaustive(final double[] radians) {
+    final List<Angle> data =
+        Arrays.stream(radians).mapToObj(ImmutableAngle::of).collect(Collectors.toList());
+    final List<Angle> sorted = data.stream().sorted().collect(Collectors.toList());
+    final List<Angle> candidates = new ArrayList<>();
+    if (sorted.size() % 2 == 1) {
+      candidates.addAll(sorted);
+    } else {
+      for (int i = 1; i < sorted.size(); i++) {
+        candidates.add(
+            ImmutableAngle.of((sorted.get(i - 1).radians() + sorted.get(i).radians()) / 2.0));
+      }
+      candidates.add(
+          ImmutableAngle.of(
+              (sorted.get(sorted.size() - 1).radians() + sorted.get(0).radians()) / 2.0));
+    }
+
+    double minDeviation = Double.POSITIVE_INFINITY;
+    Angle minCandidate = candidates.get(0);
+    for (final Angle candidate : candidates) {
+      for (final Angle alpha :
+          new Angle[] {candidate, ImmutableAngle.of(candidate.radians() + FastMath.PI)}) {
+        final double deviation =
+            data.stream()
+                    .mapToDouble(angle -> angle.subtract(alpha).radians())
+                    .reduce(Double::sum)
+                    .orElse(Double.NaN)
+                / data.size();
+        if (deviation < minDeviation) {
+          minDeviation = deviation;
+          minCandidate = alpha;
+        }
+      }
+    }
+    return new double[] {minCandidate.radians(), minDeviation};
+  }
+
+  private static void assertSameAsExhaustive(final double[] radians) {
+    final CircularMedian median = CircularMedian.calculate(radians);
+    final double[] expected = CircularMedianTest.exhaustive(radians);
+    assertThat(
+        Double.doubleToLongBits(median.median().radians()),
+        is(Double.doubleToLongBits(expected[0])));
+    assertThat(
+        Double.doubleToLongBits(median.meanDeviation()), is(Double.doubleToLongBits(expected[1])));
+  }
+
+  @Test
+  public final void testSameAsExhaustive() {
+    final Random random = new Random(17);
+    for (int n = 1; n < 60; n++) {
+      // uniform, concentrated and rounded (with many ties) samples
+      CircularMedianTest.assertSameAsExhaustive(
+          random.doubles(n, -FastMath.PI, FastMath.PI).toArray());
+      CircularMedianTest.assertSameAsExhaustive(
+          random.doubles(n).map(v -> ImmutableAngle.of(2.5 + v).radians()).toArray());
+      CircularMedianTest.assertSameAsExhaustive(
+          random
+              .ints(n, -180, 181)
+              .mapToDouble(v -> ImmutableAngle.of(FastMath.toRadians(v / 10 * 10)).radians())
+              .toArray());
+    }
+  }
+
+  @Test
+  public final void testLargeSample() {
+    final Random random = new Random(19);
+    final double[] radians =
+        random.doubles(2001).map(v -> ImmutableAngle.of(-2.0 + v * v).radians()).toArray();
+    CircularMedianTest.assertSameAsExhaustive(radians);
+  }
+
+  @Test(timeout = 10000L)
+  public final void testEvenlySpaced() {
+    // all candidates are at the same mean distance up to rounding errors
+    for (final int n : new int[] {100000, 100001}) {
+      final double[] radians = new double[n];
+      for (int i = 0; i < n; i++) {
+        radians[i] = -FastMath.PI + (2.0 * FastMath.PI * (i + 1)) / n;
+      }
+
+      final CircularMedian median = CircularMedian.calculate(radians);
+      final Angle alpha = median.median();
+      final double deviation =
+          Arrays.stream(radians)
+                  .mapToObj(ImmutableAngle::of)
+                  .mapToDouble(angle -> angle.subtract(alpha).radians())
+                  .reduce(Double::sum)
+                  .orElse(Double.NaN)
+              / n;
+      assertThat(
+          Double.doubleToLongBits(median.meanDeviation()), is(Double.doubleToLongBits(deviation)));
+      assertThat(FastMath.abs(deviation - FastMath.PI / 2.0) < 1.0e-6, is(true));
+    }
+  }
+
+  @Test
+  public final void testSymmetric() {
+    CircularMedianTest.assertSameAsExhaustive(new double[] {0.0, FastMath.PI});
+    CircularMedianTest.assertSameAsExhaustive(
+        new double[] {0.0, FastMath.PI / 2.0, FastMath.PI, -FastMath.PI / 2.0});
+    CircularMedianTest.assertSameAsExhaustive(new double[] {1.0, 1.0, 1.0});
+  }
+
+  @Test
+  public final void testNaN() {
+    CircularMedianTest.assertSameAsExhaustive(new double[] {0.5, Double.NaN, 1.0});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public final void testEmpty() {
+    CircularMedian.calculate(new double[0]);
+  }
+}
@@ -0,0 +1,102 @@
+package pl.poznan.put.circular.samples;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Test;
+import pl.poznan.put.circular.Angle;
+import pl.poznan.put.circular.ImmutableAngle;
+
+public class CircularStatisticsTest {
+  private static void assertClose(final double actual, final double expected) {
+    assertThat(
+        String.format("%s != %s", actual, expected),
+        FastMath.abs(actual - expected) < 1.0e-9,
+        is(true));
+  }
+
+  private static void assertSameStatistics(
+      final CircularStatistics statistics, final AngleSample sample) {
+    assertThat(statistics.count(), is((long) sample.data().size()));
+    CircularStatisticsTest.assertClose(
+        statistics.meanDirection().radians(), sample.meanDirection().radians());
+    CircularStatisticsTest.assertClose(
+        statistics.meanResultantLength(), sample.meanResultantLength());
+    CircularStatisticsTest.assertClose(statistics.circularVariance(), sample.circularVariance());
+    CircularStatisticsTest.assertClose(
+        statistics.circularStandardDeviation(), sample.circularStandardDeviation());
+    CircularStatisticsTest.assertClose(
+        statistics.circularDispersion(), sample.circularDispersion());
+    CircularStatisticsTest.assertClose(statistics.skewness(), sample.skewness());
+    CircularStatisticsTest.assertClose(statistics.kurtosis(), sample.kurtosis());
+  }
+
+  @Test
+  public final void testMardiaJupp() {
+    /* Example 2.1 from Mardia & Jupp "Directional Statistics". */
+    final CircularStatistics statistics = new CircularStatistics();
+    for (final double degrees :
+        new double[] {43.0, 45.0, 52.0, 61.0, 75.0, 88.0, 88.0, 279.0, 357.0}) {
+      statistics.accept(FastMath.toRadians(degrees));
+    }
+    assertThat(statistics.meanDirection(), is(ImmutableAngle.of(FastMath.toRadians(51.05))));
+    assertThat(FastMath.abs(statistics.meanResultantLength() - 0.711) < 1.0e-3, is(true));
+  }
+
+  @Test
+  public final void testSameAsTwoPassComputation() {
+    final Random random = new Random(3);
+    final List<Angle> data =
+        random.doubles(1000, 0.5, 2.0).mapToObj(ImmutableAngle::of).collect(Collectors.toList());
+    final AngleSample sample = ImmutableAngleSample.of(data);
+
+    final CircularStatistics statistics = new CircularStatistics();
+    data.forEach(statistics::accept);
+    CircularStatisticsTest.assertSameStatistics(statistics, sample);
+
+    final TrigonometricMoment cm2 =
+        TrigonometricMoment.computeCentered(data, 2, sample.meanDirection());
+    CircularStatisticsTest.assertClose(
+        statistics.centeredSecondMoment().meanResultantLength(), cm2.meanResultantLength());
+    CircularStatisticsTest.assertClose(
+        statistics.centeredSecondMoment().meanDirection().radians(), cm2.meanDirection().radians());
+  }
+
+  @Test
+  public final void testCombine() {
+    final Random random = new Random(5);
+    final List<Angle> data =
+        random
+            .doubles(100000, -FastMath.PI, FastMath.PI)
+            .mapToObj(ImmutableAngle::of)
+            .collect(Collectors.toList());
+
+    final CircularStatistics sequential = new CircularStatistics();
+    data.forEach(sequential::accept);
+
+    final CircularStatistics parallel =
+        data.parallelStream()
+            .mapToDouble(Angle::radians)
+            .collect(
+                CircularStatistics::new, CircularStatistics::accept, CircularStatistics::combine);
+
+    assertThat(parallel.count(), is(sequential.count()));
+    CircularStatisticsTest.assertClose(
+        parallel.meanResultantLength(), sequential.meanResultantLength());
+    CircularStatisticsTest.assertClose(
+        parallel.meanDirection().radians(), sequential.meanDirection().radians());
+    CircularStatisticsTest.assertClose(parallel.kurtosis(), sequential.kurtosis());
+  }
+
+  @Test
+  public final void testEmpty() {
+    final CircularStatistics statistics = new CircularStatistics();
+    assertThat(statistics.count(), is(0L));
+    assertThat(Double.isNaN(statistics.meanResultantLength()), is(true));
+    assertThat(Double.isNaN(statistics.meanDirection().radians()), is(true));
+  }
+}
@@ -0,0 +1,94 @@
+package pl.poznan.put.pdb;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+import pl.poznan.put.utility.ResourcesHelper;
+
+public class PdbAtomLineDecoderTest {
+  // @formatter:off
+  private static final String VALID_LINE =
+      "ATOM      1  OP3   G A   1      50.193  51.190  50.534  1.00 99.85           O  ";
+  private static final String ALTERNATE_LOCATION_LINE =
+      "HETATM 1234  C1'APSU B  55A     -0.001  -1.250 -10.000  0.50  7.10           C1-";
+  private static final String SHORT_LINE = "ATOM      2  P     G A   1      50.626  49.730  50.573";
+  private static final String EXPONENT_LINE =
+      "ATOM    ***  P     G A   1      1.0e+1  49.730  50.573   abc                   P  ";
+
+  // @formatter:on
+
+  private static void assertSameAtom(final PdbAtomLine expected, final PdbAtomLine actual) {
+    assertThat(actual.serialNumber(), is(expected.serialNumber()));
+    assertThat(actual.atomName(), is(expected.atomName()));
+    assertThat(actual.alternateLocation(), is(expected.alternateLocation()));
+    assertThat(actual.residueName(), is(expected.residueName()));
+    assertThat(actual.chainIdentifier(), is(expected.chainIdentifier()));
+    assertThat(actual.residueNumber(), is(expected.residueNumber()));
+    assertThat(actual.insertionCode(), is(expected.insertionCode()));
+    assertThat(Double.doubleToLongBits(actual.x()), is(Double.doubleToLongBits(expected.x())));
+    assertThat(Double.doubleToLongBits(actual.y()), is(Double.doubleToLongBits(expected.y())));
+    assertThat(Double.doubleToLongBits(actual.z()), is(Double.doubleToLongBits(expected.z())));
+    assertThat(
+        Double.doubleToLongBits(actual.occupancy()),
+        is(Double.doubleToLongBits(expected.occupancy())));
+    assertThat(
+        Double.doubleToLongBits(actual.temperatureFactor()),
+        is(Double.doubleToLongBits(expected.temperatureFactor())));
+    assertThat(actual.elementSymbol(), is(expected.elementSymbol()));
+    assertThat(actual.charge(), is(expected.charge()));
+  }
+
+  private static void assertDecodedSame(final PdbAtomLineDecoder decoder, final String line) {
+    final PdbAtomLine expected = PdbAtomLine.parse(line);
+    PdbAtomLineDecoderTest.assertSameAtom(expected, decoder.decode(line));
+
+    final byte[] bytes = ("#" + line + '\n').getBytes(StandardCharsets.ISO_8859_1);
+    PdbAtomLineDecoderTest.assertSameAtom(expected, decoder.decode(bytes, 1, line.length()));
+  }
+
+  @Test
+  public final void testSpecialLines() {
+    final PdbAtomLineDecoder decoder = new PdbAtomLineDecoder();
+    PdbAtomLineDecoderTest.assertDecodedSame(decoder, PdbAtomLineDecoderTest.VALID_LINE);
+    PdbAtomLineDecoderTest.assertDecodedSame(
+        decoder, PdbAtomLineDecoderTest.ALTERNATE_LOCATION_LINE);
+    PdbAtomLineDecoderTest.assertDecodedSame(decoder, PdbAtomLineDecoderTest.SHORT_LINE);
+    PdbAtomLineDecoderTest.assertDecodedSame(decoder, PdbAtomLineDecoderTest.EXPONENT_LINE);
+  }
+
+  @Test
+  public final void testAllResourceLines() throws Exception {
+    final PdbAtomLineDecoder decoder = new PdbAtomLineDecoder();
+    for (final String resource :
+        new String[] {"1EHZ.pdb", "2MIY.pdb", "148L.pdb", "5JUP_IRES_chain_EC.pdb", "amber.pdb"}) {
+      for (final String line : ResourcesHelper.loadResource(resource).split("\n")) {
+        if (line.startsWith("ATOM") || line.startsWith("HETATM")) {
+          PdbAtomLineDecoderTest.assertDecodedSame(decoder, line);
+        }
+      }
+    }
+  }
+
+  @Test
+  public final void testNamesAreReused() {
+    final PdbAtomLineDecoder decoder = new PdbAtomLineDecoder();
+    final PdbAtomLine first = decoder.decode(PdbAtomLineDecoderTest.VALID_LINE);
+    final PdbAtomLine second = decoder.decode(PdbAtomLineDecoderTest.VALID_LINE);
+    assertThat(second.atomName(), sameInstance(first.atomName()));
+    assertThat(second.chainIdentifier(), sameInstance(first.chainIdentifier()));
+  }
+
+  @Test(expected = PdbParsingException.class)
+  public final void testMisalignedLine() {
+    new PdbAtomLineDecoder().decode(StringUtils.normalizeSpace(PdbAtomLineDecoderTest.VALID_LINE));
+  }
+
+  @Test(expected = PdbParsingException.class)
+  public final void testNotAtomLine() {
+    new PdbAtomLineDecoder().decode("REMARK 465");
+  }
+}
@@ -3,9 +3,13 @@ package pl.poznan.put.pdb.analysis;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import org.junit.Test;
 import pl.poznan.put.pdb.ExperimentalTechnique;
@@ -104,4 +108,73 @@ public class CifParserTest {
     final CifModel model = models.get(0);
     assertThat(model.residues().size(), is(1));
   }
+
+  @Test
+  public final void testConcurrentParsingWithSharedInstance() throws Exception {
+    final String cif100D = ResourcesHelper.loadResource("100D.cif");
+    final String cif148L = ResourcesHelper.loadResource("148L.cif");
+    final CifParser parser = new CifParser();
+    final List<CifModel> expected100D = parser.parse(cif100D);
+    final List<CifModel> expected148L = parser.parse(cif148L);
+
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<Boolean>> futures = new ArrayList<>();
+      for (int i = 0; i < 32; i++) {
+        final boolean even = i % 2 == 0;
+        futures.add(
+            executor.submit(
+                () ->
+                    even
+                        ? parser.parse(cif100D).equals(expected100D)
+                        : CifParser.parseContent(cif148L).equals(expected148L)));
+      }
+      for (final Future<Boolean> future : futures) {
+        assertThat(future.get(), is(true));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public final void testMetadataMatchesFullParse() throws Exception {
+    for (final String resource :
+        new String[] {"100D.cif", "148L.cif", "1a73-assembly-1.cif", "3P49.cif", "5A93.cif"}) {
+      final String content = ResourcesHelper.loadResource(resource);
+      final CifParser parser = new CifParser();
+      final PdbModel model = parser.parse(content).get(0);
+      final StructureMetadata metadata = parser.parseMetadata(content);
+
+      assertThat(metadata.idCode(), is(model.idCode()));
+      assertThat(metadata.header().classification(), is(model.header().classification()));
+      assertThat(metadata.experimentalData(), is(model.experimentalData()));
+      assertThat(metadata.resolution(), is(model.resolution()));
+      assertThat(metadata.title(), is(model.title()));
+    }
+  }
+
+  @Test
+  public final void testSelectionByMoleculeTypeMatchesFilteredNewInstance() throws Exception {
+    for (final String resource : new String[] {"148L.cif", "1a73-assembly-1.cif", "3P49.cif"}) {
+      final String content = ResourcesHelper.loadResource(resource);
+      final CifParser parser = new CifParser();
+      final AtomSelection selection =
+          ImmutableAtomSelection.builder().moleculeType(MoleculeType.RNA).build();
+
+      final List<CifModel> expected =
+          parser.parse(content).stream()
+              .filter(model -> model.containsAny(MoleculeType.RNA))
+              .map(model -> model.filteredNewInstance(MoleculeType.RNA))
+              .collect(Collectors.toList());
+      final List<CifModel> actual = parser.parse(content, selection);
+
+      assertThat(actual.size(), is(expected.size()));
+      for (int i = 0; i < expected.size(); i++) {
+        assertThat(actual.get(i).atoms(), is(expected.get(i).atoms()));
+        assertThat(actual.get(i).residues(), is(expected.get(i).residues()));
+        assertThat(actual.get(i).missingResidues(), is(expected.get(i).missingResidues()));
+      }
+    }
+  }
 }
@@ -0,0 +1,80 @@
+package pl.poznan.put.pdb.analysis;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import org.junit.Test;
+import pl.poznan.put.pdb.PdbAtomLine;
+import pl.poznan.put.utility.ResourcesHelper;
+
+public class ColumnarPdbModelTest {
+  private static void assertSameModel(final PdbModel expected, final PdbModel actual) {
+    assertThat(actual.atoms().size(), is(expected.atoms().size()));
+    for (int i = 0; i < expected.atoms().size(); i++) {
+      final PdbAtomLine expectedAtom = expected.atoms().get(i);
+      final PdbAtomLine actualAtom = actual.atoms().get(i);
+      assertThat(actualAtom, is(expectedAtom));
+      assertThat(actualAtom.toPdb(), is(expectedAtom.toPdb()));
+      assertThat(actualAtom.alternateLocation(), is(expectedAtom.alternateLocation()));
+    }
+
+    assertThat(actual.residues(), is(expected.residues()));
+    for (int i = 0; i < expected.residues().size(); i++) {
+      final PdbResidue expectedResidue = expected.residues().get(i);
+      final PdbResidue actualResidue = actual.residues().get(i);
+      assertThat(actualResidue.toString(), is(expectedResidue.toString()));
+      assertThat(
+          actualResidue.residueInformationProvider(),
+          is(expectedResidue.residueInformationProvider()));
+      assertThat(actualResidue.atomNames(), is(expectedResidue.atomNames()));
+      assertThat(actualResidue.isModified(), is(expectedResidue.isModified()));
+      assertThat(
+          actualResidue.namedResidueIdentifier(), is(expectedResidue.namedResidueIdentifier()));
+    }
+    assertThat(actual.chains(), is(expected.chains()));
+    assertThat(actual.sequence(), is(expected.sequence()));
+    assertThat(actual.missingResidues(), is(expected.missingResidues()));
+    assertThat(actual.modifiedResidues(), is(expected.modifiedResidues()));
+    assertThat(actual.chainTerminatedAfter(), is(expected.chainTerminatedAfter()));
+    assertThat(actual.title(), is(expected.title()));
+  }
+
+  @Test
+  public final void testSameContentAs1EHZ() throws Exception {
+    final String pdb1EHZ = ResourcesHelper.loadResource("1EHZ.pdb");
+    final PdbModel model = new PdbParser().parse(pdb1EHZ).get(0);
+    final ColumnarPdbModel columnar = ColumnarPdbModel.of(model);
+
+    ColumnarPdbModelTest.assertSameModel(model, columnar);
+    assertThat(columnar.atomCount(), is(model.atoms().size()));
+    assertThat(columnar.x(0), is(model.atoms().get(0).x()));
+    assertThat(columnar.atomName(0), is(model.atoms().get(0).detectAtomName()));
+
+    // residues do not keep materialized atoms
+    final PdbResidue residue = columnar.residues().get(0);
+    assertThat(residue instanceof DefaultPdbResidue, is(false));
+    assertThat(residue.atoms().get(0) == residue.atoms().get(0), is(false));
+    assertThat(residue.atoms().get(0), is(model.residues().get(0).atoms().get(0)));
+  }
+
+  @Test
+  public final void testSameContentWithMissingResidues() throws Exception {
+    final String pdb4A04 = ResourcesHelper.loadResource("4A04.pdb");
+    final List<PdbModel> models = new PdbParser().parse(pdb4A04);
+    for (final PdbModel model : models) {
+      ColumnarPdbModelTest.assertSameModel(model, ColumnarPdbModel.of(model));
+    }
+  }
+
+  @Test
+  public final void testFilteredNewInstance() throws Exception {
+    final String pdb148L = ResourcesHelper.loadResource("148L.pdb");
+    final PdbModel model = new PdbParser().parse(pdb148L).get(0);
+    final PdbModel columnar = ColumnarPdbModel.of(model);
+
+    ColumnarPdbModelTest.assertSameModel(
+        model.filteredNewInstance(MoleculeType.PROTEIN),
+        columnar.filteredNewInstance(MoleculeType.PROTEIN));
+  }
+}
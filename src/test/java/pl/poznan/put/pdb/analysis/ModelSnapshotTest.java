@@ -0,0 +1,165 @@
+package pl.poznan.put.pdb.analysis;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import pl.poznan.put.pdb.PdbResidueIdentifier;
+import pl.poznan.put.structure.QuantifiedBasePair;
+import pl.poznan.put.utility.ResourcesHelper;
+
+public class ModelSnapshotTest {
+  private static void assertSameModels(
+      final List<? extends PdbModel> expected, final List<PdbModel> actual) {
+    assertThat(actual.size(), is(expected.size()));
+    for (int i = 0; i < expected.size(); i++) {
+      final PdbModel expectedModel = expected.get(i);
+      final PdbModel actualModel = actual.get(i);
+      assertThat(actualModel.header(), is(expectedModel.header()));
+      assertThat(actualModel.experimentalData(), is(expectedModel.experimentalData()));
+      assertThat(actualModel.resolution(), is(expectedModel.resolution()));
+      assertThat(actualModel.modelNumber(), is(expectedModel.modelNumber()));
+      assertThat(actualModel.title(), is(expectedModel.title()));
+      assertThat(actualModel.atoms(), is(expectedModel.atoms()));
+      assertThat(actualModel.modifiedResidues(), is(expectedModel.modifiedResidues()));
+      assertThat(actualModel.missingResidues(), is(expectedModel.missingResidues()));
+      assertThat(actualModel.chainTerminatedAfter(), is(expectedModel.chainTerminatedAfter()));
+      assertThat(actualModel.residues(), is(expectedModel.residues()));
+    }
+  }
+
+  @Test
+  public final void testPdbRoundTrip() throws Exception {
+    for (final String resource : new String[] {"1EHZ.pdb", "2MIY.pdb", "4A04.pdb", "148L.pdb"}) {
+      final List<PdbModel> models = new PdbParser().parse(ResourcesHelper.loadResource(resource));
+      final List<PdbModel> restored = ModelSnapshot.fromBytes(ModelSnapshot.toBytes(models));
+
+      ModelSnapshotTest.assertSameModels(models, restored);
+      assertThat(restored.get(0), instanceOf(ColumnarPdbModel.class));
+    }
+  }
+
+  @Test
+  public final void testCifRoundTripThroughFile() throws Exception {
+    final List<CifModel> models = new CifParser().parse(ResourcesHelper.loadResource("3P49.cif"));
+    final Path path = Files.createTempFile("snapshot", ".bin");
+    try {
+      ModelSnapshot.write(models, path);
+      final List<PdbModel> restored = ModelSnapshot.read(path);
+
+      ModelSnapshotTest.assertSameModels(models, restored);
+      final List<QuantifiedBasePair> expectedPairs = models.get(0).basePairs();
+      final List<QuantifiedBasePair> actualPairs = ((CifModel) restored.get(0)).basePairs();
+      assertThat(expectedPairs.isEmpty(), is(false));
+      assertThat(actualPairs, is(expectedPairs));
+      for (int i = 0; i < expectedPairs.size(); i++) {
+        assertThat(actualPairs.get(i).shear(), is(expectedPairs.get(i).shear()));
+        assertThat(actualPairs.get(i).opening(), is(expectedPairs.get(i).opening()));
+        assertThat(actualPairs.get(i).saenger(), is(expectedPairs.get(i).saenger()));
+        assertThat(actualPairs.get(i).leontisWesthof(), is(expectedPairs.get(i).leontisWesthof()));
+      }
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public final void testInvalidMagicNumber() throws Exception {
+    ModelSnapshot.fromBytes(new byte[] {1, 2, 3, 4, 0, 0, 0, 1});
+  }
+
+  @Test(expected = IOException.class)
+  public final void testTruncatedSnapshot() throws Exception {
+    final List<PdbModel> models = new PdbParser().parse(ResourcesHelper.loadResource("1EHZ.pdb"));
+    final byte[] bytes = ModelSnapshot.toBytes(models);
+    ModelSnapshot.fromBytes(Arrays.copyOf(bytes, bytes.length / 2));
+  }
+
+  @Test
+  public final void testCorruptSnapshot() throws Exception {
+    final List<PdbModel> models = new PdbParser().parse(ResourcesHelper.loadResource("1EHZ.pdb"));
+    final byte[] bytes = ModelSnapshot.toBytes(models);
+
+    // magic, version, model count, kind and length of classification
+    final int countOffset = 8;
+    final int lengthOffset = 13;
+    ModelSnapshotTest.assertCorrupt(bytes, countOffset, -1);
+    ModelSnapshotTest.assertCorrupt(bytes, countOffset, Integer.MAX_VALUE);
+    ModelSnapshotTest.assertCorrupt(bytes, lengthOffset, -5);
+    ModelSnapshotTest.assertCorrupt(bytes, lengthOffset, Integer.MAX_VALUE);
+
+    // unknown name of experimental technique
+    final String technique =
+        models.get(0).experimentalData().experimentalTechniques().get(0).name();
+    final byte[] unknown = bytes.clone();
+    final int index =
+        new String(unknown, StandardCharsets.ISO_8859_1).indexOf(technique, lengthOffset);
+    unknown[index] = '?';
+    ModelSnapshotTest.assertCorrupt(unknown);
+  }
+
+  @Test
+  public final void testCorruptColumns() throws Exception {
+    final PdbModel model = new PdbParser().parse(ResourcesHelper.loadResource("1EHZ.pdb")).get(0);
+    final byte[] bytes = ModelSnapshot.toBytes(Collections.singletonList(model));
+    final int atomCount = model.atoms().size();
+    final int residueCount =
+        (int) model.atoms().stream().map(PdbResidueIdentifier::from).distinct().count();
+
+    // a PDB model ends with 3 residue columns, preceded by 5 atom columns of dictionary codes and
+    // by the column of residue indices
+    final int chainCodeOffset = bytes.length - 3 * Integer.BYTES * residueCount;
+    final int residueIndexOffset = chainCodeOffset - 6 * Integer.BYTES * atomCount;
+    final int atomNameCodeOffset = residueIndexOffset + Integer.BYTES * atomCount;
+    ModelSnapshotTest.assertCorrupt(bytes, chainCodeOffset, 1_000_000);
+    ModelSnapshotTest.assertCorrupt(bytes, atomNameCodeOffset, -1);
+    ModelSnapshotTest.assertCorrupt(bytes, residueIndexOffset, residueCount);
+    ModelSnapshotTest.assertCorrupt(bytes, residueIndexOffset, -1);
+  }
+
+  @Test
+  public final void testEmptyModel() throws Exception {
+    final PdbModel model = new PdbParser().parse(ResourcesHelper.loadResource("1EHZ.pdb")).get(0);
+    final PdbModel empty =
+        ColumnarPdbModel.of(
+            model.header(),
+            model.experimentalData(),
+            model.resolution(),
+            model.modelNumber(),
+            Collections.emptyList(),
+            model.modifiedResidues(),
+            model.missingResidues(),
+            model.title(),
+            Collections.emptySet());
+    final List<PdbModel> restored =
+        ModelSnapshot.fromBytes(ModelSnapshot.toBytes(Collections.singletonList(empty)));
+
+    ModelSnapshotTest.assertSameModels(Collections.singletonList(empty), restored);
+    assertThat(restored.get(0).atoms().isEmpty(), is(true));
+  }
+
+  private static void assertCorrupt(final byte[] bytes, final int offset, final int value) {
+    final byte[] corrupt = bytes.clone();
+    ByteBuffer.wrap(corrupt).putInt(offset, value);
+    ModelSnapshotTest.assertCorrupt(corrupt);
+  }
+
+  private static void assertCorrupt(final byte[] bytes) {
+    try {
+      ModelSnapshot.fromBytes(bytes);
+      fail("Corrupt snapshot was read");
+    } catch (final IOException e) {
+      // expected
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package pl.poznan.put.pdb.analysis;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -7,9 +8,17 @@ import static org.junit.Assert.assertTrue;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.junit.Test;
+import pl.poznan.put.pdb.ImmutablePdbAtomLine;
+import pl.poznan.put.pdb.PdbAtomLine;
 
 public class PdbParserTest {
 
@@ -50,4 +59,258 @@ public class PdbParserTest {
             .collect(Collectors.toList());
     assertTrue("Failed to find chain EC", chainNames.contains("EC"));
   }
+
+  @Test
+  public void testStreamingParseMatchesStringParse() throws IOException {
+    // Given
+    String pdbContent = new String(Files.readAllBytes(Paths.get("src/test/resources/2MIY.pdb")));
+    PdbParser parser = new PdbParser();
+
+    // When
+    List<PdbModel> expected = parser.parse(pdbContent);
+    List<PdbModel> actual;
+    try (Stream<PdbModel> stream = parser.parse(Paths.get("src/test/resources/2MIY.pdb"))) {
+      actual = stream.collect(Collectors.toList());
+    }
+
+    // Then
+    assertEquals("Should parse all 18 models", 18, actual.size());
+    assertEquals("Streamed models should match", expected, actual);
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).modelNumber(), actual.get(i).modelNumber());
+      assertEquals(expected.get(i).title(), actual.get(i).title());
+      assertEquals(expected.get(i).header(), actual.get(i).header());
+      assertEquals(expected.get(i).chainTerminatedAfter(), actual.get(i).chainTerminatedAfter());
+    }
+  }
+
+  @Test
+  public void testStreamingParseWithoutModelRecords() throws IOException {
+    // Given
+    String pdbContent = new String(Files.readAllBytes(Paths.get("src/test/resources/1EHZ.pdb")));
+    PdbParser parser = new PdbParser();
+
+    // When
+    List<PdbModel> expected = parser.parse(pdbContent);
+    List<PdbModel> actual;
+    try (Stream<PdbModel> stream =
+        parser.parse(Files.newInputStream(Paths.get("src/test/resources/1EHZ.pdb")))) {
+      actual = stream.collect(Collectors.toList());
+    }
+
+    // Then
+    assertEquals(expected, actual);
+    assertEquals(expected.get(0).modifiedResidues(), actual.get(0).modifiedResidues());
+  }
+
+  @Test
+  public void testParallelParseMatchesSequentialParse() throws IOException {
+    for (String file : new String[] {"2MIY.pdb", "1EHZ.pdb", "FrabaseExport.pdb", "PKB300.pdb"}) {
+      // Given
+      String pdbContent = new String(Files.readAllBytes(Paths.get("src/test/resources/" + file)));
+      PdbParser parser = new PdbParser();
+
+      // When
+      List<PdbModel> expected = parser.parse(pdbContent);
+      List<PdbModel> actual = parser.parseParallel(pdbContent);
+
+      // Then
+      assertEquals("Parallel models should match for " + file, expected, actual);
+      for (int i = 0; i < expected.size(); i++) {
+        assertEquals(expected.get(i).modelNumber(), actual.get(i).modelNumber());
+        assertEquals(expected.get(i).missingResidues(), actual.get(i).missingResidues());
+        assertEquals(expected.get(i).modifiedResidues(), actual.get(i).modifiedResidues());
+        assertEquals(expected.get(i).chainTerminatedAfter(), actual.get(i).chainTerminatedAfter());
+      }
+    }
+  }
+
+  @Test
+  public void testConcurrentParsingWithSharedInstance() throws Exception {
+    // Given
+    String pdb1EHZ = new String(Files.readAllBytes(Paths.get("src/test/resources/1EHZ.pdb")));
+    String pdb2MIY = new String(Files.readAllBytes(Paths.get("src/test/resources/2MIY.pdb")));
+    PdbParser parser = new PdbParser();
+    List<PdbModel> expected1EHZ = parser.parse(pdb1EHZ);
+    List<PdbModel> expected2MIY = parser.parse(pdb2MIY);
+
+    // When
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<Boolean>> futures = new ArrayList<>();
+    try {
+      for (int i = 0; i < 32; i++) {
+        boolean even = i % 2 == 0;
+        futures.add(
+            executor.submit(
+                () ->
+                    even
+                        ? parser.parse(pdb1EHZ).equals(expected1EHZ)
+                        : PdbParser.parseContent(pdb2MIY).equals(expected2MIY)));
+      }
+
+      // Then
+      for (Future<Boolean> future : futures) {
+        assertTrue("Concurrent parsing should give the same result", future.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testMetadataMatchesFullParse() throws IOException {
+    for (String file : new String[] {"1EHZ.pdb", "2MIY.pdb", "148L.pdb"}) {
+      // Given
+      String pdbContent = new String(Files.readAllBytes(Paths.get("src/test/resources/" + file)));
+      PdbParser parser = new PdbParser();
+
+      // When
+      PdbModel model = parser.parse(pdbContent).get(0);
+      StructureMetadata metadata = parser.parseMetadata(pdbContent);
+
+      // Then
+      assertEquals(model.header(), metadata.header());
+      assertEquals(model.experimentalData(), metadata.experimentalData());
+      assertEquals(model.resolution(), metadata.resolution());
+      assertEquals(model.title(), metadata.title());
+    }
+  }
+
+  @Test
+  public void testSelectionByMoleculeTypeMatchesFilteredNewInstance() throws IOException {
+    for (String file : new String[] {"1XPO.pdb", "3OK4.pdb", "4A04.pdb", "148L.pdb"}) {
+      for (MoleculeType moleculeType :
+          new MoleculeType[] {MoleculeType.RNA, MoleculeType.PROTEIN}) {
+        // Given
+        String pdbContent = new String(Files.readAllBytes(Paths.get("src/test/resources/" + file)));
+        PdbParser parser = new PdbParser();
+        AtomSelection selection =
+            ImmutableAtomSelection.builder().moleculeType(moleculeType).build();
+
+        // When
+        List<PdbModel> expected =
+            parser.parse(pdbContent).stream()
+                .filter(model -> model.containsAny(moleculeType))
+                .map(model -> model.filteredNewInstance(moleculeType))
+                .collect(Collectors.toList());
+        List<PdbModel> actual = parser.parse(pdbContent, selection);
+
+        // Then
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+          assertEquals(expected.get(i).modelNumber(), actual.get(i).modelNumber());
+          assertEquals(expected.get(i).atoms(), actual.get(i).atoms());
+          assertEquals(expected.get(i).residues(), actual.get(i).residues());
+          assertEquals(expected.get(i).chains(), actual.get(i).chains());
+          assertEquals(expected.get(i).missingResidues(), actual.get(i).missingResidues());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSelectionByModelAndChain() throws IOException {
+    // Given
+    String pdbContent = new String(Files.readAllBytes(Paths.get("src/test/resources/2MIY.pdb")));
+    PdbParser parser = new PdbParser();
+    AtomSelection selection =
+        ImmutableAtomSelection.builder()
+            .addModelNumbers(2)
+            .addChainIdentifiers("A")
+            .addRecordTypes("ATOM")
+            .build();
+
+    // When
+    List<PdbModel> selected = parser.parse(pdbContent, selection);
+
+    // Then
+    List<String> expectedLines;
+    try (Stream<String> lines = Files.lines(Paths.get("src/test/resources/2MIY.pdb"))) {
+      expectedLines =
+          lines
+              .dropWhile(line -> !line.startsWith("MODEL        2"))
+              .takeWhile(line -> !line.startsWith("ENDMDL"))
+              .filter(line -> line.startsWith("ATOM") && line.charAt(21) == 'A')
+              .collect(Collectors.toList());
+    }
+    assertEquals(1, selected.size());
+    assertEquals(2, selected.get(0).modelNumber());
+    assertEquals(
+        expectedLines.stream().map(PdbAtomLine::parse).collect(Collectors.toList()),
+        selected.get(0).atoms());
+  }
+
+  @Test
+  public void testSelectionOfFirstAlternateLocation() throws IOException {
+    // Given
+    String pdbContent = new String(Files.readAllBytes(Paths.get("src/test/resources/148L.pdb")));
+    PdbParser parser = new PdbParser();
+    AtomSelection selection =
+        ImmutableAtomSelection.builder()
+            .alternateLocationPolicy(AtomSelection.AlternateLocationPolicy.FIRST)
+            .build();
+
+    // When
+    PdbModel full = parser.parse(pdbContent).get(0);
+    PdbModel selected = parser.parse(pdbContent, selection).get(0);
+
+    // Then
+    assertTrue(selected.atoms().size() < full.atoms().size());
+    assertEquals(full.residues().size(), selected.residues().size());
+    for (PdbResidue residue : selected.residues()) {
+      List<String> atomNames =
+          residue.atoms().stream().map(PdbAtomLine::atomName).collect(Collectors.toList());
+      assertEquals(atomNames.size(), atomNames.stream().distinct().count());
+    }
+  }
+
+  @Test
+  public void testSelectionOfFirstAlternateLocationKeepsTerRecords() {
+    // Given: the last line before TER is a rejected B conformer of an accepted residue
+    String pdbContent =
+        String.join(
+            "\n",
+            atom(1, Optional.empty(), "A", 1, 0.0).toPdb(),
+            atom(2, Optional.of("A"), "A", 2, 3.8).toPdb(),
+            atom(3, Optional.of("B"), "A", 2, 3.9).toPdb(),
+            "TER       4      GLY A   2",
+            atom(5, Optional.empty(), "A", 3, 7.6).toPdb());
+    PdbParser parser = new PdbParser();
+    AtomSelection selection =
+        ImmutableAtomSelection.builder()
+            .alternateLocationPolicy(AtomSelection.AlternateLocationPolicy.FIRST)
+            .build();
+
+    // When
+    PdbModel full = parser.parse(pdbContent).get(0);
+    PdbModel selected = parser.parse(pdbContent, selection).get(0);
+
+    // Then
+    assertEquals(3, selected.atoms().size());
+    assertEquals(1, full.chainTerminatedAfter().size());
+    assertEquals(full.chainTerminatedAfter(), selected.chainTerminatedAfter());
+  }
+
+  private static PdbAtomLine atom(
+      int serialNumber,
+      Optional<String> alternateLocation,
+      String chainIdentifier,
+      int residueNumber,
+      double x) {
+    return ImmutablePdbAtomLine.of(
+        serialNumber,
+        "CA",
+        alternateLocation,
+        "GLY",
+        chainIdentifier,
+        residueNumber,
+        Optional.empty(),
+        x,
+        0.0,
+        0.0,
+        1.0,
+        0.0,
+        "C",
+        "");
+  }
 }
@@ -0,0 +1,57 @@
+package pl.poznan.put.pdb.analysis;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import pl.poznan.put.atom.AtomName;
+import pl.poznan.put.pdb.PdbAtomLine;
+import pl.poznan.put.utility.ResourcesHelper;
+
+public class ResidueAtomIndexTest {
+  @Test
+  public final void testSameAsLinearSearch() throws Exception {
+    for (final String resource : new String[] {"1EHZ.pdb", "148L.pdb", "3OK4.pdb", "amber.pdb"}) {
+      final PdbModel model = new PdbParser().parse(ResourcesHelper.loadResource(resource)).get(0);
+
+      for (final PdbResidue residue : model.residues()) {
+        final Set<AtomName> expectedNames =
+            residue.atoms().stream().map(PdbAtomLine::detectAtomName).collect(Collectors.toSet());
+        assertThat(residue.atomNames(), is(expectedNames));
+
+        for (final AtomName atomName : AtomName.values()) {
+          final boolean expectedPresence = expectedNames.contains(atomName);
+          assertThat(residue.hasAtom(atomName), is(expectedPresence));
+          if (expectedPresence) {
+            final PdbAtomLine expectedAtom =
+                residue.atoms().stream()
+                    .filter(atom -> atom.detectAtomName() == atomName)
+                    .findFirst()
+                    .get();
+            assertThat(residue.findAtom(atomName), sameInstance(expectedAtom));
+          }
+        }
+
+        final Set<AtomName> expectedHeavyAtoms =
+            residue.residueInformationProvider().moleculeComponents().stream()
+                .flatMap(component -> component.requiredAtoms().stream())
+                .filter(AtomName::isHeavy)
+                .collect(Collectors.toSet());
+        final Set<AtomName> heavyAtoms =
+            expectedNames.stream().filter(AtomName::isHeavy).collect(Collectors.toSet());
+        assertThat(residue.hasAllHeavyAtoms(), is(heavyAtoms.equals(expectedHeavyAtoms)));
+        assertThat(
+            residue.hasAnyHydrogen(), is(expectedNames.stream().anyMatch(name -> !name.isHeavy())));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public final void testMissingAtom() throws Exception {
+    final PdbModel model = new PdbParser().parse(ResourcesHelper.loadResource("1EHZ.pdb")).get(0);
+    model.residues().get(0).findAtom(AtomName.CA);
+  }
+}
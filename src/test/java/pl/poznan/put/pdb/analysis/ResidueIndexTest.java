@@ -0,0 +1,69 @@
+package pl.poznan.put.pdb.analysis;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Test;
+import pl.poznan.put.pdb.ImmutablePdbResidueIdentifier;
+import pl.poznan.put.pdb.PdbResidueIdentifier;
+import pl.poznan.put.utility.ResourcesHelper;
+
+public class ResidueIndexTest {
+  @Test
+  public final void testSameAsLinearSearch() throws Exception {
+    for (final String resource : new String[] {"1EHZ.pdb", "4A04.pdb", "3OK4.pdb", "1XPO.pdb"}) {
+      final PdbModel model = new PdbParser().parse(ResourcesHelper.loadResource(resource)).get(0);
+      final List<PdbResidue> residues = model.residues();
+
+      for (int i = 0; i < residues.size(); i++) {
+        final PdbResidueIdentifier identifier = PdbResidueIdentifier.from(residues.get(i));
+        int expected = 0;
+        while (!PdbResidueIdentifier.from(residues.get(expected)).equals(identifier)) {
+          expected++;
+        }
+        assertThat(model.indexOf(identifier), is(expected));
+        assertThat(model.findResidue(identifier), sameInstance(residues.get(expected)));
+        assertThat(model.hasResidue(identifier), is(true));
+      }
+
+      for (final PdbChain chain : model.chains()) {
+        for (int i = 0; i < chain.residues().size(); i++) {
+          assertThat(chain.indexOf(chain.residues().get(i)), is(i));
+        }
+      }
+    }
+  }
+
+  @Test
+  public final void testEncodingEdgeCases() {
+    final List<PdbResidueIdentifier> identifiers =
+        Arrays.asList(
+            ImmutablePdbResidueIdentifier.of("A", 1, Optional.empty()),
+            ImmutablePdbResidueIdentifier.of("A", 1, Optional.of("A")),
+            ImmutablePdbResidueIdentifier.of("A", 1, Optional.of("")),
+            ImmutablePdbResidueIdentifier.of("", 1, Optional.empty()),
+            ImmutablePdbResidueIdentifier.of("AA", -1, Optional.empty()),
+            ImmutablePdbResidueIdentifier.of("AAA", 1, Optional.empty()),
+            ImmutablePdbResidueIdentifier.of("Ą", 1, Optional.empty()),
+            ImmutablePdbResidueIdentifier.of("A", Integer.MIN_VALUE, Optional.of("AB")),
+            ImmutablePdbResidueIdentifier.of("A", 1, Optional.empty()));
+    final ResidueIndex index = ResidueIndex.of(identifiers);
+
+    for (int i = 0; i < identifiers.size() - 1; i++) {
+      assertThat(index.indexOf(identifiers.get(i)), is(i));
+    }
+    assertThat(index.indexOf(ImmutablePdbResidueIdentifier.of("B", 1, Optional.empty())), is(-1));
+    assertThat(
+        index.contains(ImmutablePdbResidueIdentifier.of("AAAA", 1, Optional.empty())), is(false));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public final void testMissingResidue() throws Exception {
+    final PdbModel model = new PdbParser().parse(ResourcesHelper.loadResource("1EHZ.pdb")).get(0);
+    model.findResidue(ImmutablePdbResidueIdentifier.of("Z", 1, Optional.empty()));
+  }
+}
@@ -0,0 +1,50 @@
+package pl.poznan.put.pdb.analysis;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.Test;
+import pl.poznan.put.atom.AtomName;
+import pl.poznan.put.protein.AminoAcid;
+import pl.poznan.put.rna.Nucleotide;
+
+public class ResidueTypeDetectorTest {
+  @Test
+  public final void testAliasesResolvedAsInSequentialSearch() {
+    Stream.concat(Arrays.stream(Nucleotide.values()), Arrays.stream(AminoAcid.values()))
+        .flatMap(provider -> provider.aliases().stream())
+        .forEach(
+            alias -> {
+              final ResidueInformationProvider expected =
+                  Stream.concat(
+                          Arrays.stream(Nucleotide.values()), Arrays.stream(AminoAcid.values()))
+                      .filter(provider -> provider.aliases().contains(alias))
+                      .findFirst()
+                      .get();
+              assertThat(
+                  ResidueTypeDetector.detectResidueType(alias, Collections.emptySet()),
+                  is(expected));
+            });
+  }
+
+  @Test
+  public final void testDetectionFromAtoms() {
+    final Set<AtomName> atomNames = EnumSet.noneOf(AtomName.class);
+    Nucleotide.URACIL
+        .moleculeComponents()
+        .forEach(component -> atomNames.addAll(component.requiredAtoms()));
+
+    // the second query is answered from cache and must be the same
+    for (int i = 0; i < 2; i++) {
+      assertThat(ResidueTypeDetector.detectResidueType("XYZ", atomNames), is(Nucleotide.URACIL));
+    }
+    assertThat(
+        ResidueTypeDetector.detectResidueType("XYZ", EnumSet.of(AtomName.P)).moleculeType(),
+        is(MoleculeType.UNKNOWN));
+  }
+}
@@ -0,0 +1,141 @@
+package pl.poznan.put.pdb.analysis;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+import pl.poznan.put.pdb.PdbAtomLine;
+import pl.poznan.put.utility.ResourcesHelper;
+
+public class SpatialIndexTest {
+  private static double distance(
+      final double[] x, final double[] y, final double[] z, final int i, final int j) {
+    return Math.sqrt(
+        (x[i] - x[j]) * (x[i] - x[j])
+            + (y[i] - y[j]) * (y[i] - y[j])
+            + (z[i] - z[j]) * (z[i] - z[j]));
+  }
+
+  private static List<Integer> bruteForcePairs(
+      final double[] x, final double[] y, final double[] z, final double cutoff) {
+    final List<Integer> pairs = new ArrayList<>();
+    for (int i = 0; i < x.length; i++) {
+      for (int j = i + 1; j < x.length; j++) {
+        if (SpatialIndexTest.distance(x, y, z, i, j) <= cutoff) {
+          pairs.add(i);
+          pairs.add(j);
+        }
+      }
+    }
+    return pairs;
+  }
+
+  private static List<Integer> toList(final int[] values) {
+    return IntStream.of(values).boxed().collect(Collectors.toList());
+  }
+
+  @Test
+  public final void testRandomPointsSameAsBruteForce() {
+    final Random random = new Random(42);
+    // a dense cluster and a few distant points, so that the grid has to enlarge its cells
+    final int n = 2000;
+    final double[] x = new double[n];
+    final double[] y = new double[n];
+    final double[] z = new double[n];
+    for (int i = 0; i < n; i++) {
+      final double scale = i % 100 == 0 ? 1000.0 : 30.0;
+      x[i] = random.nextDouble() * scale;
+      y[i] = random.nextDouble() * scale;
+      z[i] = random.nextDouble() * scale;
+    }
+
+    final SpatialIndex index = SpatialIndex.of(x, y, z, 2.0);
+    assertThat(index.size(), is(n));
+
+    for (final double cutoff : new double[] {0.0, 1.5, 3.0, 7.5}) {
+      assertThat(
+          SpatialIndexTest.toList(index.pairsWithinCutoff(cutoff)),
+          is(SpatialIndexTest.bruteForcePairs(x, y, z, cutoff)));
+    }
+
+    for (int q = 0; q < 50; q++) {
+      final double qx = random.nextDouble() * 40.0 - 5.0;
+      final double qy = random.nextDouble() * 40.0 - 5.0;
+      final double qz = random.nextDouble() * 40.0 - 5.0;
+      final double[] dx = new double[n];
+      for (int i = 0; i < n; i++) {
+        dx[i] =
+            Math.sqrt(
+                (x[i] - qx) * (x[i] - qx) + (y[i] - qy) * (y[i] - qy) + (z[i] - qz) * (z[i] - qz));
+      }
+
+      final List<Integer> expectedWithin =
+          IntStream.range(0, n).filter(i -> dx[i] <= 4.0).boxed().collect(Collectors.toList());
+      assertThat(SpatialIndexTest.toList(index.withinRadius(qx, qy, qz, 4.0)), is(expectedWithin));
+
+      final List<Integer> expectedNearest =
+          IntStream.range(0, n)
+              .boxed()
+              .sorted(Comparator.comparingDouble((Integer i) -> dx[i]).thenComparingInt(i -> i))
+              .limit(10)
+              .collect(Collectors.toList());
+      assertThat(SpatialIndexTest.toList(index.nearest(qx, qy, qz, 10)), is(expectedNearest));
+    }
+  }
+
+  @Test
+  public final void testResiduePairsSameAsBruteForce() throws Exception {
+    final PdbModel model = new PdbParser().parse(ResourcesHelper.loadResource("1EHZ.pdb")).get(0);
+    final List<PdbResidue> residues = model.residues();
+    final SpatialIndex index = SpatialIndex.of(model);
+    assertThat(index.residueCount(), is(residues.size()));
+    assertThat(
+        index.size(), is(residues.stream().mapToInt(residue -> residue.atoms().size()).sum()));
+
+    final List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < residues.size(); i++) {
+      for (int j = i + 1; j < residues.size(); j++) {
+        final int r = j;
+        final boolean contact =
+            residues.get(i).atoms().stream()
+                .anyMatch(
+                    a ->
+                        residues.get(r).atoms().stream()
+                            .anyMatch((PdbAtomLine b) -> a.distanceTo(b) <= 3.5));
+        if (contact) {
+          expected.add(i);
+          expected.add(j);
+        }
+      }
+    }
+    assertThat(SpatialIndexTest.toList(index.residuePairsWithinCutoff(3.5)), is(expected));
+
+    final PdbAtomLine atom = residues.get(10).atoms().get(0);
+    final TreeSet<Integer> expectedResidues = new TreeSet<>();
+    for (int i = 0; i < residues.size(); i++) {
+      for (final PdbAtomLine other : residues.get(i).atoms()) {
+        if (atom.distanceTo(other) <= 6.0) {
+          expectedResidues.add(i);
+        }
+      }
+    }
+    assertThat(
+        SpatialIndexTest.toList(index.residuesWithinRadius(atom.x(), atom.y(), atom.z(), 6.0)),
+        is(new ArrayList<>(expectedResidues)));
+  }
+
+  @Test
+  public final void testEmpty() {
+    final SpatialIndex index = SpatialIndex.of(new double[0], new double[0], new double[0], 1.0);
+    assertThat(index.withinRadius(0.0, 0.0, 0.0, 10.0).length, is(0));
+    assertThat(index.nearest(0.0, 0.0, 0.0, 3).length, is(0));
+    assertThat(index.pairsWithinCutoff(10.0).length, is(0));
+  }
+}
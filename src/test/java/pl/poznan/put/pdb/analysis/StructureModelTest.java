@@ -1,12 +1,14 @@
 package pl.poznan.put.pdb.analysis;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
 import pl.poznan.put.atom.AtomName;
@@ -466,4 +468,29 @@ public class StructureModelTest {
     assertThat(model.chains().get(4).moleculeType(), is(MoleculeType.PROTEIN));
     assertThat(model.chains().get(5).moleculeType(), is(MoleculeType.PROTEIN));
   }
+
+  @Test
+  public final void testResiduesAndChainsAreComputedOnce() throws Exception {
+    final String pdb1XPO = ResourcesHelper.loadResource("1XPO.pdb");
+    final PdbModel model = new PdbParser().parse(pdb1XPO).get(0);
+    final ColumnarPdbModel columnar = ColumnarPdbModel.of(model);
+
+    assertThat(model.residues(), sameInstance(model.residues()));
+    assertThat(model.chains(), sameInstance(model.chains()));
+    assertThat(columnar.residues(), sameInstance(columnar.residues()));
+    assertThat(columnar.chains(), sameInstance(columnar.chains()));
+
+    // chains follow the order of the first appearance in the file
+    final List<String> chainOrder =
+        model.atoms().stream()
+            .map(PdbAtomLine::chainIdentifier)
+            .distinct()
+            .collect(Collectors.toList());
+    final List<String> residueChainOrder =
+        model.residues().stream()
+            .map(PdbResidue::chainIdentifier)
+            .distinct()
+            .collect(Collectors.toList());
+    assertThat(residueChainOrder, is(chainOrder));
+  }
 }
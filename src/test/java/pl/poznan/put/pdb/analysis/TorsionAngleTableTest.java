@@ -0,0 +1,43 @@
+package pl.poznan.put.pdb.analysis;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import org.junit.Test;
+import pl.poznan.put.torsion.TorsionAngleType;
+import pl.poznan.put.torsion.TorsionAngleValue;
+import pl.poznan.put.utility.ResourcesHelper;
+
+public class TorsionAngleTableTest {
+  @Test
+  public final void testSameAsPerResidueCalculation() throws Exception {
+    for (final String resource : new String[] {"1EHZ.pdb", "1XPO.pdb", "3OK4.pdb", "148L.pdb"}) {
+      final PdbModel model = new PdbParser().parse(ResourcesHelper.loadResource(resource)).get(0);
+      final List<PdbResidue> residues = model.residues();
+
+      for (final boolean parallel : new boolean[] {false, true}) {
+        final TorsionAngleTable table = TorsionAngleTable.calculate(residues, parallel);
+        final double[][] values = table.values();
+        assertThat(table.size(), is(residues.size()));
+
+        for (int i = 0; i < residues.size(); i++) {
+          final List<TorsionAngleValue> expected =
+              ResidueTorsionAngles.calculate(residues, i).values();
+          final List<TorsionAngleValue> actual = table.residueTorsionAngles(i).values();
+          assertThat(actual.size(), is(expected.size()));
+
+          for (int j = 0; j < expected.size(); j++) {
+            final TorsionAngleType angleType = expected.get(j).angleType();
+            final long expectedBits = Double.doubleToLongBits(expected.get(j).value().radians());
+            assertThat(actual.get(j).angleType(), is(angleType));
+            assertThat(Double.doubleToLongBits(actual.get(j).value().radians()), is(expectedBits));
+            assertThat(Double.doubleToLongBits(table.value(i, angleType)), is(expectedBits));
+            final int column = table.angleTypes().indexOf(angleType);
+            assertThat(Double.doubleToLongBits(values[i][column]), is(expectedBits));
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package pl.poznan.put.structure;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.Test;
+import pl.poznan.put.pdb.PdbNamedResidueIdentifier;
+import pl.poznan.put.pdb.analysis.CifParser;
+import pl.poznan.put.pdb.analysis.PdbModel;
+import pl.poznan.put.pdb.analysis.PdbParser;
+import pl.poznan.put.pdb.analysis.PdbResidue;
+import pl.poznan.put.utility.ResourcesHelper;
+
+public class CanonicalStructureExtractorTest {
+  // the exhaustive search over all pairs of residues
+  private static Collection<ClassifiedBasePair> exhaustiveBasePairs(final PdbModel model) {
+    final List<PdbResidue> residues = model.residues();
+    final Collection<ClassifiedBasePair> basePairs = new ArrayList<>();
+    final Collection<PdbNamedResidueIdentifier> paired = new HashSet<>();
+
+    for (int i = 0; i < residues.size(); i++) {
+      for (int j = i + 1; j < residues.size(); j++) {
+        if (BasePair.isCanonicalPair(residues.get(i), residues.get(j))) {
+          final PdbNamedResidueIdentifier leftId = residues.get(i).namedResidueIdentifier();
+          final PdbNamedResidueIdentifier rightId = residues.get(j).namedResidueIdentifier();
+          if (!paired.contains(leftId) && !paired.contains(rightId)) {
+            basePairs.add(ImmutableAnalyzedBasePair.of(ImmutableBasePair.of(leftId, rightId)));
+            paired.add(leftId);
+            paired.add(rightId);
+          }
+        }
+      }
+    }
+    return basePairs;
+  }
+
+  @Test
+  public final void testSameAsExhaustiveSearch() throws Exception {
+    final List<PdbModel> models = new ArrayList<>();
+    for (final String pdb :
+        new String[] {"1EHZ.pdb", "1XPO.pdb", "2Z74.pdb", "3P49.pdb", "4A04.pdb"}) {
+      models.addAll(new PdbParser().parse(ResourcesHelper.loadResource(pdb)));
+    }
+    models.addAll(new CifParser().parse(ResourcesHelper.loadResource("100D.cif")));
+
+    for (final PdbModel model : models) {
+      final Collection<ClassifiedBasePair> expected =
+          CanonicalStructureExtractorTest.exhaustiveBasePairs(model);
+      assertThat(new ArrayList<>(CanonicalStructureExtractor.basePairs(model)), is(expected));
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package pl.poznan.put.structure.formats;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.util.List;
+import org.junit.Test;
+import pl.poznan.put.utility.ResourcesHelper;
+
+public class PairTableTest {
+  private static final String INPUT =
+      "1 A 0\n" + "2 C 7\n" + "3 G 6\n" + "4 U 0\n" + "5 A 0\n" + "6 C 3\n" + "7 G 2";
+  private static final String OUTPUT =
+      "1 A 0\n" + "2 C 0\n" + "3 G 6\n" + "4 U 0\n" + "5 A 0\n" + "6 C 3\n" + "7 G 0";
+
+  @Test
+  public final void testRoundTrip() throws IOException {
+    final BpSeq bpSeq = BpSeq.fromString(ResourcesHelper.loadResource("1XPO.bpseq"));
+    final PairTable pairTable = bpSeq.toPairTable();
+    assertThat(pairTable.size(), is(bpSeq.size()));
+    assertThat(pairTable.sequence(), is(bpSeq.sequence()));
+    assertThat(pairTable.pairCount(), is(bpSeq.paired().size()));
+    assertThat(pairTable.paired(), is(List.copyOf(bpSeq.paired())));
+    assertThat(pairTable.toBpSeq(), is(bpSeq));
+  }
+
+  @Test
+  public final void testRemovePair() {
+    final BpSeq bpSeq = BpSeq.fromString(PairTableTest.INPUT);
+    final PairTable pairTable = bpSeq.toPairTable();
+    final PairTable copy = pairTable.copy();
+
+    pairTable.removePair(7);
+    pairTable.removePair(1);
+    assertThat(pairTable.pair(2), is(0));
+    assertThat(pairTable.isPaired(7), is(false));
+    assertThat(pairTable.pairCount(), is(1));
+    assertThat(pairTable.toBpSeq(), is(BpSeq.fromString(PairTableTest.OUTPUT)));
+    assertThat(copy.toBpSeq(), is(bpSeq));
+  }
+
+  @Test
+  public final void testWithoutPairs() {
+    final BpSeq bpSeq = BpSeq.fromString(PairTableTest.INPUT);
+    final List<BpSeq.Entry> entries = List.copyOf(bpSeq.entries());
+    final BpSeq expected = bpSeq.withoutPair(entries.get(1)).withoutPair(entries.get(2));
+
+    assertThat(
+        bpSeq.withoutPairs(List.of(entries.get(1), entries.get(2))).paired().isEmpty(), is(true));
+    assertThat(bpSeq.withoutPairs(List.of(entries.get(1), entries.get(2))), is(expected));
+    assertThat(
+        bpSeq.withoutPairs(List.of(entries.get(0), entries.get(6))),
+        is(BpSeq.fromString(PairTableTest.OUTPUT)));
+  }
+}
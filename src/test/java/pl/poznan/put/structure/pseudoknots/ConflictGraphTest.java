@@ -0,0 +1,162 @@
+package pl.poznan.put.structure.pseudoknots;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import pl.poznan.put.structure.formats.ImmutableEntry;
+
+public class ConflictGraphTest {
+  private static Region region(final int begin, final int end) {
+    return ImmutableRegion.of(Collections.singletonList(ImmutableEntry.of(begin, 'A', end)))
+        .withBegin(begin)
+        .withEnd(end);
+  }
+
+  // the reference implementation, checking all pairs
+  private static Map<Region, Set<Region>> bruteForce(final List<Region> regions) {
+    final Map<Region, Set<Region>> map = new HashMap<>();
+    for (final Region first : regions) {
+      for (final Region second : regions) {
+        if (ConflictGraph.isConflicting(first, second)) {
+          map.computeIfAbsent(first, key -> new HashSet<>()).add(second);
+        }
+      }
+    }
+    return map;
+  }
+
+  private static void assertSameAsBruteForce(final List<Region> regions) {
+    final ConflictGraph graph = ImmutableConflictGraph.of(regions);
+    final Map<Region, Set<Region>> expected = ConflictGraphTest.bruteForce(regions);
+    assertThat(graph.regionsWithConflicts(), is(expected.keySet()));
+    for (int i = 0; i < regions.size(); i++) {
+      final Region region = regions.get(i);
+      final Set<Region> conflicts = expected.getOrDefault(region, Collections.emptySet());
+      assertThat(graph.conflictsWith(region), is(conflicts));
+
+      final int index = graph.indexOf(region);
+      assertThat(regions.get(index), is(region));
+      assertThat(regions.indexOf(region), is(index));
+      final Set<Region> indexed = new HashSet<>();
+      for (final int conflict : graph.conflictIndices(i)) {
+        assertThat(regions.indexOf(regions.get(conflict)), is(conflict));
+        indexed.add(regions.get(conflict));
+      }
+      assertThat(indexed, is(conflicts));
+    }
+  }
+
+  @Test
+  public final void testSameAsBruteForce() {
+    final Random random = new Random(31);
+    for (int n = 0; n < 200; n += 7) {
+      final List<Region> regions = new ArrayList<>();
+      for (int i = 0; i < n; i++) {
+        // small range to have many shared endpoints and duplicates
+        final int begin = random.nextInt(50);
+        final int end = random.nextInt(50);
+        regions.add(ConflictGraphTest.region(begin, end));
+      }
+      ConflictGraphTest.assertSameAsBruteForce(regions);
+    }
+  }
+
+  @Test
+  public final void testConflictCliques() {
+    final Random random = new Random(37);
+    for (int n = 0; n < 200; n += 7) {
+      final List<Region> regions = new ArrayList<>();
+      for (int i = 0; i < n; i++) {
+        final int begin = random.nextInt(400);
+        regions.add(ConflictGraphTest.region(begin, begin + 1 + random.nextInt(40)));
+      }
+
+      // the reference implementation, a depth-first search on the brute force graph
+      final Map<Region, Set<Region>> edges = ConflictGraphTest.bruteForce(regions);
+      final Set<Set<Region>> expected = new HashSet<>();
+      final Set<Region> seen = new HashSet<>();
+      for (final Region region : edges.keySet()) {
+        if (seen.add(region)) {
+          final Set<Region> component = new HashSet<>();
+          final List<Region> stack = new ArrayList<>(Collections.singletonList(region));
+          while (!stack.isEmpty()) {
+            final Region current = stack.remove(stack.size() - 1);
+            component.add(current);
+            for (final Region neighbour : edges.get(current)) {
+              if (seen.add(neighbour)) {
+                stack.add(neighbour);
+              }
+            }
+          }
+          expected.add(component);
+        }
+      }
+
+      final ConflictGraph graph = ImmutableConflictGraph.of(regions);
+      final Set<Set<Region>> actual = new HashSet<>();
+      graph.conflictCliques().forEach(clique -> actual.add(new HashSet<>(clique.regions())));
+      assertThat(actual, is(expected));
+      assertThat(
+          graph.largestConflictCliqueSize(),
+          is(expected.stream().mapToInt(Set::size).max().orElse(0)));
+    }
+  }
+
+  @Test
+  public final void testRemoveRegion() {
+    final Region a = ConflictGraphTest.region(1, 10);
+    final Region b = ConflictGraphTest.region(5, 15);
+    final Region c = ConflictGraphTest.region(12, 20);
+    final ConflictGraph graph = ImmutableConflictGraph.of(Arrays.asList(a, b, c));
+    assertThat(graph.conflictsWith(b), is(new HashSet<>(Arrays.asList(a, c))));
+
+    graph.removeRegion(b);
+    assertThat(graph.hasConflicts(), is(false));
+    assertThat(graph.conflictsWith(a).isEmpty(), is(true));
+    assertThat(graph.conflictIndices(0).length, is(0));
+    assertThat(graph.conflictCliques().isEmpty(), is(true));
+  }
+
+  @Test
+  public final void testRemoveRegionSameAsBruteForce() {
+    final Random random = new Random(41);
+    final List<Region> regions = new ArrayList<>();
+    for (int i = 0; i < 150; i++) {
+      final int begin = random.nextInt(100);
+      regions.add(ConflictGraphTest.region(begin, begin + 1 + random.nextInt(30)));
+    }
+
+    final ConflictGraph graph = ImmutableConflictGraph.of(regions);
+    final List<Region> remaining = new ArrayList<>(regions);
+    while (graph.hasConflicts()) {
+      final Region region = graph.regionsWithConflicts().iterator().next();
+      graph.removeRegion(region);
+      remaining.removeIf(region::equals);
+
+      final Map<Region, Set<Region>> expected = ConflictGraphTest.bruteForce(remaining);
+      assertThat(graph.regionsWithConflicts(), is(expected.keySet()));
+      assertThat(graph.regionsWithConflicts().size(), is(expected.size()));
+      for (final Region other : regions) {
+        assertThat(
+            graph.conflictsWith(other), is(expected.getOrDefault(other, Collections.emptySet())));
+      }
+      assertThat(
+          graph.largestConflictCliqueSize(),
+          is(
+              graph.conflictCliques().stream()
+                  .mapToInt(clique -> clique.regions().size())
+                  .max()
+                  .orElse(0)));
+    }
+  }
+}
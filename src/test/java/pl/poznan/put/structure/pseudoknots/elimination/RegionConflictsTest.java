@@ -0,0 +1,67 @@
+package pl.poznan.put.structure.pseudoknots.elimination;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import pl.poznan.put.structure.formats.BpSeq;
+import pl.poznan.put.structure.formats.ImmutableEntry;
+import pl.poznan.put.structure.pseudoknots.ConflictGraph;
+import pl.poznan.put.structure.pseudoknots.ImmutableConflictGraph;
+import pl.poznan.put.structure.pseudoknots.ImmutableRegion;
+import pl.poznan.put.structure.pseudoknots.Region;
+
+public class RegionConflictsTest {
+  private static List<Region> randomRegions(final Random random, final int count) {
+    final List<Integer> begins = new ArrayList<>();
+    for (int i = 0; i < 4 * count; i++) {
+      begins.add(i);
+    }
+    Collections.shuffle(begins, random);
+
+    final List<Region> regions = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      final int begin = begins.get(i);
+      final int end = begin + 1 + random.nextInt(2 * count);
+      // lengths from a small range to have many ties
+      final List<BpSeq.Entry> entries = new ArrayList<>();
+      for (int j = random.nextInt(3); j >= 0; j--) {
+        entries.add(ImmutableEntry.of(begin, 'A', end));
+      }
+      regions.add(ImmutableRegion.of(entries).withBegin(begin).withEnd(end));
+    }
+    return regions;
+  }
+
+  // each step must select the same region as the selection on the whole conflict graph
+  private static void assertSameSelections(
+      final AbstractRegionRemover remover, final List<Region> regions) {
+    final ConflictGraph conflictGraph = ImmutableConflictGraph.of(regions);
+    final RegionConflicts conflicts = new RegionConflicts(regions);
+
+    while (conflictGraph.hasConflicts()) {
+      assertThat(conflicts.hasConflicts(), is(true));
+      final Region expected = remover.selectRegionToRemove(conflictGraph);
+      final int id = remover.selectRegionToRemove(conflicts);
+      assertThat(conflicts.region(id), is(expected));
+
+      conflictGraph.removeRegion(expected);
+      conflicts.remove(id);
+    }
+    assertThat(conflicts.hasConflicts(), is(false));
+  }
+
+  @Test
+  public final void testSameSelections() {
+    final Random random = new Random(41);
+    for (int count = 2; count < 120; count += 3) {
+      final List<Region> regions = RegionConflictsTest.randomRegions(random, count);
+      RegionConflictsTest.assertSameSelections(ImmutableMinGain.of(), regions);
+      RegionConflictsTest.assertSameSelections(ImmutableMaxConflicts.of(), regions);
+    }
+  }
+}
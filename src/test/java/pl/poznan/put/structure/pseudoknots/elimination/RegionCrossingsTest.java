@@ -0,0 +1,52 @@
+package pl.poznan.put.structure.pseudoknots.elimination;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import pl.poznan.put.structure.formats.ImmutableEntry;
+import pl.poznan.put.structure.pseudoknots.ConflictGraph;
+import pl.poznan.put.structure.pseudoknots.ImmutableRegion;
+import pl.poznan.put.structure.pseudoknots.Region;
+
+public class RegionCrossingsTest {
+  @Test
+  public final void testSameAsPairwise() {
+    final Random random = new Random(24);
+
+    for (int attempt = 0; attempt < 50; attempt++) {
+      // positions from a small range to have shared begins and ends
+      final List<Region> regions = new ArrayList<>();
+      for (int i = 0; i < 60; i++) {
+        final int begin = 1 + random.nextInt(40);
+        final int end = begin + 1 + random.nextInt(40);
+        regions.add(
+            ImmutableRegion.of(Collections.singletonList(ImmutableEntry.of(begin, 'A', end)))
+                .withBegin(begin)
+                .withEnd(end));
+      }
+
+      final List<Integer> order = new ArrayList<>();
+      for (int i = 0; i < regions.size(); i++) {
+        order.add(i);
+      }
+      Collections.shuffle(order, random);
+
+      final RegionCrossings crossings = new RegionCrossings(regions);
+      final List<Region> added = new ArrayList<>();
+      for (final int id : order) {
+        for (final Region region : regions) {
+          final boolean expected =
+              added.stream().anyMatch(other -> ConflictGraph.isConflicting(region, other));
+          assertThat(crossings.hasConflict(region), is(expected));
+        }
+        crossings.add(id);
+        added.add(regions.get(id));
+      }
+    }
+  }
+}